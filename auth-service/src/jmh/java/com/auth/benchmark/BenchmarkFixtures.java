@@ -0,0 +1,51 @@
+package com.auth.benchmark;
+
+import com.auth.model.Role;
+import com.auth.model.User;
+import com.auth.security.JwtTokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class builds objects used by the benchmarks.
+ * Values match application.yaml.
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "mySuperStrongJwtSecretKeyForPricewise123456";
+    static final long EXPIRATION_MS = 3600000;
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtTokenProvider tokenProvider() {
+        return tokenProvider("standard");
+    }
+
+    static JwtTokenProvider tokenProvider(String profile) {
+        JwtTokenProvider provider = new JwtTokenProvider(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(provider, "secret", SECRET);
+        ReflectionTestUtils.setField(provider, "expirationMs", EXPIRATION_MS);
+        ReflectionTestUtils.setField(provider, "profile", profile);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+        return provider;
+    }
+
+    static User user(String username, String... roleNames) {
+        Set<Role> roles = new HashSet<>();
+        long id = 1;
+        for (String roleName : roleNames) {
+            roles.add(new Role(id++, roleName));
+        }
+        return User.builder()
+                .id(42L)
+                .username(username)
+                .password("$2a$10$abcdefghijklmnopqrstuv")
+                .provider("LOCAL")
+                .roles(roles)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.auth.benchmark;
+
+import com.auth.model.User;
+import com.auth.security.JwtAuthFilter;
+import com.auth.security.JwtTokenProvider;
+import com.auth.security.TokenVerdictCache;
+import com.auth.service.RevocationEventService;
+import com.auth.service.TokenAllowListService;
+import com.auth.service.TokenBlacklistService;
+import com.auth.service.TokenValidationService;
+import com.auth.service.UserActivityTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the full {@link JwtAuthFilter} path with in-memory token stores.
+ *
+ * <p>Redis and the database are replaced by fixed answers, so the result
+ * is the CPU and allocation cost of the filter itself.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthFilterBenchmark {
+
+    /**
+     * valid: allowed token. revoked: token in blacklist. garbage: not a jwt.
+     * forged: jwt with a wrong signature. none: no header.
+     */
+    @Param({"valid", "revoked", "garbage", "forged", "none"})
+    public String tokenKind;
+
+    /**
+     * false: every call runs the full check. true: calls share the result through the verdict cache.
+     */
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private JwtAuthFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setup() {
+        JwtTokenProvider provider = BenchmarkFixtures.tokenProvider();
+        User user = BenchmarkFixtures.user("alice", "ROLE_USER");
+        String token = provider.generateToken(user);
+        boolean revoked = "revoked".equals(tokenKind);
+
+        TokenBlacklistService blacklist = new TokenBlacklistService(null) {
+            @Override
+            public boolean isBlacklisted(String username, String t) {
+                return revoked;
+            }
+        };
+        TokenAllowListService allowList = new TokenAllowListService(null) {
+            @Override
+            public boolean isAllowed(String username, String t) {
+                return true;
+            }
+        };
+        UserDetailsService userDetailsService = username -> user;
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TokenVerdictCache verdictCache = new TokenVerdictCache(
+                new RevocationEventService(null, null, registry), registry, cached, 1000, 10_000);
+        filter = new JwtAuthFilter(new TokenValidationService(provider, blacklist, allowList),
+                userDetailsService, verdictCache, new UserActivityTracker(null), registry);
+
+        request = new MockHttpServletRequest("GET", "/auth/me");
+        switch (tokenKind) {
+            case "valid", "revoked" -> request.addHeader("Authorization", "Bearer " + token);
+            case "garbage" -> request.addHeader("Authorization", "Bearer not.a.jwt");
+            case "forged" -> request.addHeader("Authorization", "Bearer " + token.substring(0, token.length() - 4) + "AAAA");
+            default -> { }
+        }
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public void doFilter(Blackhole blackhole) throws Exception {
+        filter.doFilter(request, response, chain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+}
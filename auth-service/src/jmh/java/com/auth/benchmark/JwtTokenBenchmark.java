@@ -0,0 +1,60 @@
+package com.auth.benchmark;
+
+import com.auth.client.RoleClaims;
+import com.auth.model.User;
+import com.auth.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link JwtTokenProvider}: create and parse access tokens,
+ * in the standard and the compact token profile.
+ *
+ * <p>The token size of each profile is printed at setup.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenBenchmark {
+
+    @Param({"standard", "compact"})
+    public String profile;
+
+    private JwtTokenProvider provider;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        provider = BenchmarkFixtures.tokenProvider(profile);
+        user = BenchmarkFixtures.user("alice", "ROLE_USER", "ROLE_ADMIN");
+        token = provider.generateToken(user);
+        System.out.println("Token size (" + profile + "): " + token.length() + " chars");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return provider.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return provider.extractUsername(token);
+    }
+
+    @Benchmark
+    public Date getExpiration() {
+        return provider.getExpiration(token);
+    }
+
+    @Benchmark
+    public List<String> getClaimsWithRoles() {
+        return RoleClaims.roles(provider.getClaims(token), provider.getRoleTable());
+    }
+}
@@ -0,0 +1,96 @@
+package com.auth.benchmark;
+
+import com.auth.service.RedisLookupBatcher;
+import com.auth.service.TokenKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of allow-list checks against a local Redis: one command per check
+ * (RedisTemplate, as {@code redis.lookup-batch.enabled=false}) against {@link RedisLookupBatcher}.
+ *
+ * <p>Concurrency is the JMH thread count, for example:
+ * {@code -Djmh.args="RedisLookup -t 16 -bm thrpt"}. Redis runs on the same host,
+ * so the result shows the saved syscalls and Redis work, not saved network round trips.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisLookupBenchmark {
+
+    private static final int KEYS = 1024;
+
+    /**
+     * per-call: RedisTemplate.hasKey. batched: batcher without window. batched-100us: batcher with a 100 µs window.
+     */
+    @Param({"per-call", "batched", "batched-100us"})
+    public String path;
+
+    @Param("6391")
+    public int port;
+
+    private RedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate template;
+    private RedisLookupBatcher batcher;
+    private String[] keys;
+
+    @Setup
+    public void setup() throws IOException {
+        redis = new RedisServer(port);
+        redis.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port),
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofSeconds(2)).build());
+        connectionFactory.afterPropertiesSet();
+        template = new StringRedisTemplate(connectionFactory);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = TokenKeys.allowList("user" + (i % 100), "token-" + i);
+            if (i % 2 == 0) {
+                template.opsForValue().set(keys[i], "user");
+            }
+        }
+        if (!"per-call".equals(path)) {
+            long windowMicros = "batched-100us".equals(path) ? 100 : 0;
+            batcher = new RedisLookupBatcher(connectionFactory, new SimpleMeterRegistry(),
+                    128, windowMicros, 4096, Duration.ofSeconds(2));
+            batcher.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (batcher != null) {
+            batcher.stop();
+        }
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Benchmark
+    public boolean exists(Cursor cursor) {
+        String key = keys[cursor.next++ & (KEYS - 1)];
+        return batcher != null ? batcher.exists(key) : Boolean.TRUE.equals(template.hasKey(key));
+    }
+
+    /**
+     * Position in the keys, one per thread.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+    }
+}
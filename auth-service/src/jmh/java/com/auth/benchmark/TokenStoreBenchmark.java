@@ -0,0 +1,84 @@
+package com.auth.benchmark;
+
+import com.auth.service.InMemoryTokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link InMemoryTokenStore} lookups with many stored tokens.
+ *
+ * <p>Tokens are random strings with the length of a real access token (about 200 chars),
+ * so the time includes hashing the token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TokenStoreBenchmark {
+
+    private static final int SAMPLE_SIZE = 4096;
+    private static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"100000", "1000000"})
+    public int tokens;
+
+    private InMemoryTokenStore store;
+    private String[] sample;
+    private String[] unknown;
+    private int next;
+
+    @Setup
+    public void setup() {
+        store = new InMemoryTokenStore(new SimpleMeterRegistry(), 64, 1024, 1000, 4096);
+        SplittableRandom random = new SplittableRandom(42);
+        sample = new String[SAMPLE_SIZE];
+        unknown = new String[SAMPLE_SIZE];
+        for (int i = 0; i < tokens; i++) {
+            String token = randomToken(random);
+            store.issue("user" + (i % 10_000), token, TTL_MILLIS);
+            if (i < SAMPLE_SIZE) {
+                sample[i] = token;
+            }
+        }
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            unknown[i] = randomToken(random);
+        }
+    }
+
+    @Benchmark
+    public boolean isAllowed() {
+        return store.isAllowed("user", sample[next++ & (SAMPLE_SIZE - 1)]);
+    }
+
+    @Benchmark
+    public boolean isAllowedUnknown() {
+        return store.isAllowed("user", unknown[next++ & (SAMPLE_SIZE - 1)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean isAllowedConcurrent(Cursor cursor) {
+        return store.isAllowed("user", sample[cursor.next++ & (SAMPLE_SIZE - 1)]);
+    }
+
+    private static String randomToken(SplittableRandom random) {
+        byte[] bytes = new byte[150];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Position in the sample, one per thread.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+    }
+}
@@ -0,0 +1,38 @@
+package com.auth.benchmark;
+
+import com.auth.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link User#getAuthorities()}, called once per authenticated request.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserAuthoritiesBenchmark {
+
+    @Param({"1", "3"})
+    public int roleCount;
+
+    private User user;
+
+    @Setup
+    public void setup() {
+        String[] roles = {"ROLE_USER", "ROLE_ADMIN", "ROLE_AUDITOR"};
+        String[] selected = new String[roleCount];
+        System.arraycopy(roles, 0, selected, 0, roleCount);
+        user = BenchmarkFixtures.user("alice", selected);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+}
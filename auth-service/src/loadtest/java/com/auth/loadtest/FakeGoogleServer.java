@@ -0,0 +1,65 @@
+package com.auth.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * This class is a fake Google tokeninfo endpoint.
+ *
+ * <p>Any id token "x" is valid and belongs to {@code x@loadtest.local}.
+ * The id token "invalid" returns 400, like Google does for a bad token.
+ */
+final class FakeGoogleServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final String clientId;
+
+    FakeGoogleServer(String clientId) throws IOException {
+        this.clientId = clientId;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/tokeninfo", this::handle);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.start();
+    }
+
+    String tokenInfoUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/tokeninfo";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String idToken = query != null && query.startsWith("id_token=")
+                ? URLDecoder.decode(query.substring("id_token=".length()), StandardCharsets.UTF_8)
+                : "";
+
+        if (idToken.isEmpty() || "invalid".equals(idToken)) {
+            write(exchange, 400, "{\"error\":\"invalid_token\"}");
+            return;
+        }
+
+        String email = idToken + "@loadtest.local";
+        write(exchange, 200, "{\"aud\":\"" + clientId + "\",\"email\":\"" + email
+                + "\",\"sub\":\"" + idToken + "\",\"email_verified\":\"true\"}");
+    }
+
+    private void write(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,97 @@
+package com.auth.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class is a TCP proxy that adds faults between the service and a dependency.
+ *
+ * <p>Faults:
+ * - latency: every chunk sent to the dependency waits {@code latencyMs}
+ * - stalls: every {@code stallEveryMs} all traffic stops for {@code stallMs}
+ *
+ * <p>One virtual thread copies each direction of each connection.
+ */
+final class LatencyProxy implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final int targetPort;
+    private final long latencyMs;
+    private final long stallEveryMs;
+    private final long stallMs;
+    private final long startedAt = System.currentTimeMillis();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    LatencyProxy(int targetPort, long latencyMs, long stallEveryMs, long stallMs) throws IOException {
+        this.targetPort = targetPort;
+        this.latencyMs = latencyMs;
+        this.stallEveryMs = stallEveryMs;
+        this.stallMs = stallMs;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress("127.0.0.1", 0));
+        executor.submit(this::acceptLoop);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                client.setTcpNoDelay(true);
+                Socket target = new Socket("127.0.0.1", targetPort);
+                target.setTcpNoDelay(true);
+                executor.submit(() -> pipe(client, target, true));
+                executor.submit(() -> pipe(target, client, false));
+            } catch (IOException ex) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Proxy accept failed: " + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void pipe(Socket from, Socket to, boolean towardsTarget) {
+        byte[] buffer = new byte[16 * 1024];
+        try (from; to) {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (towardsTarget) {
+                    applyFaults();
+                }
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException ex) {
+            // connection closed by one side
+        }
+    }
+
+    private void applyFaults() throws InterruptedException {
+        if (stallEveryMs > 0 && stallMs > 0) {
+            long phase = (System.currentTimeMillis() - startedAt) % stallEveryMs;
+            if (phase < stallMs) {
+                Thread.sleep(stallMs - phase);
+            }
+        }
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,327 @@
+package com.auth.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class sends a mix of requests at a fixed arrival rate (open model).
+ *
+ * <p>A request is started at its planned time even when earlier requests are still running.
+ * Latency is measured from the planned start time, so a slow service is not hidden
+ * by the load generator waiting for it (no coordinated omission).
+ */
+final class LoadGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int SEED_ATTEMPTS = 300;
+
+    private final String baseUrl;
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final AtomicReferenceArray<Session> sessions;
+    private final AtomicLong sessionCursor = new AtomicLong();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final String[] schedule;
+    private final Histogram[] seconds;
+
+    private volatile boolean measuring;
+    private volatile long runStart;
+
+    /**
+     * This record is a logged-in client.
+     */
+    record Session(String accessToken, String refreshToken) { }
+
+    /**
+     * This class is the result of one endpoint.
+     */
+    static final class EndpointStats {
+        final Histogram latencyMicros = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        final LongAdder errors = new LongAdder();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    }
+
+    LoadGenerator(String baseUrl, LoadTestConfig config) {
+        this.baseUrl = baseUrl;
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.sessions = new AtomicReferenceArray<>(Math.max(1, config.users()));
+        this.schedule = buildSchedule(config.mix());
+        // one histogram per second of warm-up and measured run, for the p99 timeline
+        this.seconds = new Histogram[config.warmupSeconds() + config.durationSeconds()];
+        for (int i = 0; i < seconds.length; i++) {
+            seconds[i] = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 2);
+        }
+    }
+
+    /**
+     * This method creates the users with signup.
+     * Signups shed by the service (503) are sent again, so every user exists before the run.
+     */
+    void seedUsers() {
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+        for (int i = 0; i < config.users(); i++) {
+            String body = "{\"username\":\"user" + i + "\",\"password\":\"password" + i + "\",\"role\":\"ROLE_USER\"}";
+            calls.add(signup(body, SEED_ATTEMPTS).thenAccept(this::storeSession).exceptionally(ex -> null));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private CompletableFuture<HttpResponse<String>> signup(String body, int attemptsLeft) {
+        return post("/auth/signup", body, null).thenCompose(response -> {
+            if (response.statusCode() != 503 || attemptsLeft <= 1) {
+                return CompletableFuture.completedFuture(response);
+            }
+            long delayMs = 100 + ThreadLocalRandom.current().nextLong(400);
+            return CompletableFuture.supplyAsync(() -> null,
+                            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> signup(body, attemptsLeft - 1));
+        });
+    }
+
+    /**
+     * This method runs warm-up and then the measured run.
+     *
+     * @return stats per endpoint
+     */
+    Map<String, EndpointStats> run() {
+        runStart = System.nanoTime();
+        drive(config.warmupSeconds());
+        stats.clear();
+        measuring = true;
+        drive(config.durationSeconds());
+        return stats;
+    }
+
+    private void drive(int seconds) {
+        if (seconds <= 0) {
+            return;
+        }
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        long start = System.nanoTime();
+        long total = (long) config.rate() * seconds;
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        for (long n = 0; n < total; n++) {
+            long plannedStart = start + n * intervalNanos;
+            long wait = plannedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String endpoint = schedule[(int) (n % schedule.length)];
+            inFlight.add(execute(endpoint, plannedStart).exceptionally(ex -> null));
+            if (inFlight.size() > 10_000) {
+                inFlight.removeIf(CompletableFuture::isDone);
+            }
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private CompletableFuture<?> execute(String endpoint, long plannedStart) {
+        return switch (endpoint) {
+            case "login" -> {
+                int i = ThreadLocalRandom.current().nextInt(config.users());
+                String body = "{\"username\":\"user" + i + "\",\"password\":\"password" + i + "\"}";
+                yield timed(endpoint, plannedStart, post("/auth/login", body, null))
+                        .thenAccept(this::storeSession);
+            }
+            case "google" -> {
+                int i = ThreadLocalRandom.current().nextInt(config.users());
+                yield timed(endpoint, plannedStart, post("/auth/google", "{\"idToken\":\"g" + i + "\"}", null))
+                        .thenAccept(this::storeSession);
+            }
+            case "me" -> {
+                Session session = randomSession(false);
+                String token = session != null ? session.accessToken() : "none";
+                yield timed(endpoint, plannedStart, get("/auth/me", token));
+            }
+            case "refresh" -> {
+                Session session = randomSession(true);
+                String refreshToken = session != null ? session.refreshToken() : "none";
+                yield timed(endpoint, plannedStart,
+                        post("/auth/refresh", "{\"refreshToken\":\"" + refreshToken + "\"}", null))
+                        .thenAccept(this::storeSession);
+            }
+            case "logout" -> {
+                Session session = randomSession(true);
+                String token = session != null ? session.accessToken() : "none";
+                yield timed(endpoint, plannedStart, post("/auth/logout", "", token));
+            }
+            default -> throw new IllegalArgumentException("Unknown endpoint in mix: " + endpoint);
+        };
+    }
+
+    private CompletableFuture<HttpResponse<String>> timed(String endpoint, long plannedStart,
+                                                          CompletableFuture<HttpResponse<String>> call) {
+        return call.whenComplete((response, error) -> {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - plannedStart);
+            int second = (int) TimeUnit.NANOSECONDS.toSeconds(plannedStart - runStart);
+            if (second >= 0 && second < seconds.length) {
+                seconds[second].recordValue(Math.min(micros, seconds[second].getHighestTrackableValue()));
+            }
+            if (!measuring) {
+                return;
+            }
+            EndpointStats endpointStats = stats.computeIfAbsent(endpoint, key -> new EndpointStats());
+            endpointStats.latencyMicros.recordValue(Math.min(micros, endpointStats.latencyMicros.getHighestTrackableValue()));
+            int status = response != null ? response.statusCode() : -1;
+            endpointStats.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            if (status < 200 || status >= 300) {
+                endpointStats.errors.increment();
+            }
+        });
+    }
+
+    private CompletableFuture<HttpResponse<String>> post(String path, String body, String bearer) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (bearer != null) {
+            request.header("Authorization", "Bearer " + bearer);
+        }
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private CompletableFuture<HttpResponse<String>> get(String path, String bearer) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + bearer)
+                .GET()
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * This method keeps the tokens of a successful auth response.
+     */
+    private void storeSession(HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            return;
+        }
+        try {
+            JsonNode json = MAPPER.readTree(response.body());
+            Session session = new Session(json.path("accessToken").asText(), json.path("refreshToken").asText());
+            int slot = (int) (sessionCursor.getAndIncrement() % sessions.length());
+            sessions.set(slot, session);
+        } catch (Exception ex) {
+            // not an auth response
+        }
+    }
+
+    /**
+     * This method returns a random session.
+     * With {@code take}, the session is removed, because refresh and logout use it up.
+     */
+    private Session randomSession(boolean take) {
+        int slot = ThreadLocalRandom.current().nextInt(sessions.length());
+        return take ? sessions.getAndSet(slot, null) : sessions.get(slot);
+    }
+
+    private static String[] buildSchedule(Map<String, Integer> mix) {
+        List<String> slots = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(endpoint);
+            }
+        });
+        // spread endpoints evenly instead of sending them in blocks
+        Collections.shuffle(slots, new Random(42));
+        return slots.toArray(String[]::new);
+    }
+
+    /**
+     * This method returns the p99 of each second since the first request (all endpoints, warm-up included).
+     *
+     * @return p99 in ms, one value per second
+     */
+    List<Double> p99Timeline() {
+        List<Double> timeline = new ArrayList<>(seconds.length);
+        for (Histogram second : seconds) {
+            timeline.add(second.getValueAtPercentile(99) / 1000.0);
+        }
+        return timeline;
+    }
+
+    /**
+     * This method returns the time from the first request until p99 is steady.
+     * Steady p99 is the p99 of the second half of the measured run (all endpoints). The time is the start of the
+     * first window of {@code windowSeconds} seconds whose p99 is at most {@code tolerance} times the steady p99.
+     *
+     * @param windowSeconds length of the window, so one quiet second is not enough
+     * @param tolerance     allowed factor over the steady p99
+     * @return seconds since the first request, or -1 when p99 never gets steady
+     */
+    int timeToSteadyP99(int windowSeconds, double tolerance) {
+        Histogram measured = new Histogram(TimeUnit.MINUTES.toMicros(1), 2);
+        for (int i = config.warmupSeconds() + config.durationSeconds() / 2; i < seconds.length; i++) {
+            measured.add(seconds[i]);
+        }
+        double limit = measured.getValueAtPercentile(99) * tolerance;
+        for (int start = 0; start + windowSeconds <= seconds.length; start++) {
+            Histogram window = new Histogram(TimeUnit.MINUTES.toMicros(1), 2);
+            for (int i = start; i < start + windowSeconds; i++) {
+                window.add(seconds[i]);
+            }
+            if (window.getTotalCount() > 0 && window.getValueAtPercentile(99) <= limit) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method builds a report map (used for console and JSON output).
+     *
+     * @param results     stats per endpoint
+     * @param durationSec measured run time
+     * @return report
+     */
+    static Map<String, Object> report(Map<String, EndpointStats> results, int durationSec) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        results.forEach((endpoint, endpointStats) -> {
+            Histogram h = endpointStats.latencyMicros;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", h.getTotalCount());
+            row.put("errors", endpointStats.errors.sum());
+            row.put("throughputPerSec", h.getTotalCount() / (double) durationSec);
+            row.put("p50Ms", h.getValueAtPercentile(50) / 1000.0);
+            row.put("p90Ms", h.getValueAtPercentile(90) / 1000.0);
+            row.put("p99Ms", h.getValueAtPercentile(99) / 1000.0);
+            row.put("p999Ms", h.getValueAtPercentile(99.9) / 1000.0);
+            row.put("maxMs", h.getMaxValue() / 1000.0);
+            Map<String, Long> statuses = new LinkedHashMap<>();
+            endpointStats.statuses.forEach((status, count) -> statuses.put(String.valueOf(status), count.sum()));
+            row.put("statuses", statuses);
+            report.put(endpoint, row);
+        });
+        return report;
+    }
+}
@@ -0,0 +1,55 @@
+package com.auth.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This record is the load test configuration.
+ * All values are read from system properties ({@code -Dloadtest.rate=500} ...).
+ *
+ * @param rate             requests per second (fixed arrival rate)
+ * @param durationSeconds  measured run time
+ * @param warmupSeconds    run time before measuring
+ * @param users            number of users created before the run
+ * @param mix              endpoint weights, example: login=10,refresh=10,me=70,logout=5,google=5
+ * @param redisLatencyMs   delay added to each Redis packet
+ * @param dbLatencyMs      delay added to each database packet
+ * @param dbStallEveryMs   period of database stalls (0 = no stalls)
+ * @param dbStallMs        length of one database stall
+ */
+record LoadTestConfig(int rate,
+                      int durationSeconds,
+                      int warmupSeconds,
+                      int users,
+                      Map<String, Integer> mix,
+                      long redisLatencyMs,
+                      long dbLatencyMs,
+                      long dbStallEveryMs,
+                      long dbStallMs) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.rate", 200),
+                Integer.getInteger("loadtest.duration", 30),
+                Integer.getInteger("loadtest.warmup", 10),
+                Integer.getInteger("loadtest.users", 200),
+                parseMix(System.getProperty("loadtest.mix", "login=10,refresh=10,me=70,logout=5,google=5")),
+                Long.getLong("fault.redis-latency-ms", 0),
+                Long.getLong("fault.db-latency-ms", 0),
+                Long.getLong("fault.db-stall-every-ms", 0),
+                Long.getLong("fault.db-stall-ms", 0)
+        );
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(pair[0].trim(), weight);
+            }
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,147 @@
+package com.auth.loadtest;
+
+import com.auth.AuthApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class runs the load test without Docker.
+ *
+ * <p>It starts:
+ * - embedded Postgres and embedded Redis (real servers, started from the test jar)
+ * - a fault-injecting TCP proxy in front of each of them
+ * - a fake Google tokeninfo endpoint
+ * - the Auth Service on a random port
+ *
+ * <p>Then it creates users and sends the configured request mix at a fixed rate.
+ * See {@link LoadTestConfig} for options. System properties {@code app.*} are given to
+ * the Auth Service without the prefix ({@code -Dapp.warmup.enabled=false}).
+ *
+ * <p>Startup is reported too:
+ * - time to ready: from the start of the Spring context until it is ready (warm-up included)
+ * - time to steady p99: from the first request until a 5 s window has a p99 near the steady p99
+ *   (second half of the measured run);
+ *   run with {@code loadtest.warmup=0} to see how the first seconds of traffic look
+ */
+public final class LoadTestMain {
+
+    private static final String GOOGLE_CLIENT_ID = "loadtest-client";
+    private static final int STEADY_WINDOW_SECONDS = 5;
+    private static final double STEADY_TOLERANCE = 1.5;
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        System.out.println("Load test config: " + config);
+
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             LatencyProxy dbProxy = new LatencyProxy(postgres.getPort(),
+                     config.dbLatencyMs(), config.dbStallEveryMs(), config.dbStallMs());
+             LatencyProxy redisProxy = new LatencyProxy(redisPort, config.redisLatencyMs(), 0, 0);
+             FakeGoogleServer google = new FakeGoogleServer(GOOGLE_CLIENT_ID)) {
+
+            // passed as command line arguments, so they win over application.yaml
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("server.port", 0);
+            properties.put("grpc.port", 0);
+            properties.put("spring.datasource.url",
+                    "jdbc:postgresql://127.0.0.1:" + dbProxy.port() + "/postgres?reWriteBatchedInserts=true");
+            properties.put("spring.datasource.username", "postgres");
+            properties.put("spring.datasource.password", "postgres");
+            properties.put("spring.jpa.show-sql", false);
+            properties.put("redis.host", "127.0.0.1");
+            properties.put("redis.port", redisProxy.port());
+            properties.put("google.client-id", GOOGLE_CLIENT_ID);
+            properties.put("google.tokeninfo-url", google.tokenInfoUrl());
+            properties.put("eureka.client.enabled", false);
+            properties.put("logging.level.root", "WARN");
+            System.getProperties().stringPropertyNames().stream()
+                    .filter(name -> name.startsWith("app."))
+                    .forEach(name -> properties.put(name.substring(4), System.getProperty(name)));
+
+            String[] appArgs = properties.entrySet().stream()
+                    .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                    .toArray(String[]::new);
+
+            long startNanos = System.nanoTime();
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AuthApplication.class)
+                    .run(appArgs)) {
+                // run() returns after the runners (warm-up), when readiness is ACCEPTING_TRAFFIC
+                long timeToReadyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                TimeGauge warmup = context.getBean(MeterRegistry.class).find("auth.startup.warmup").timeGauge();
+
+                String port = context.getEnvironment().getProperty("local.server.port");
+                LoadGenerator generator = new LoadGenerator("http://127.0.0.1:" + port, config);
+
+                System.out.println("Creating " + config.users() + " users...");
+                generator.seedUsers();
+
+                System.out.println("Running: warm-up " + config.warmupSeconds() + "s, measure "
+                        + config.durationSeconds() + "s at " + config.rate() + " req/s");
+                Map<String, Object> report = LoadGenerator.report(generator.run(), config.durationSeconds());
+
+                Map<String, Object> startup = new LinkedHashMap<>();
+                startup.put("timeToReadyMs", timeToReadyMs);
+                startup.put("warmupMs", warmup != null ? Math.round(warmup.value(TimeUnit.MILLISECONDS)) : 0);
+                startup.put("timeToSteadyP99Sec", generator.timeToSteadyP99(STEADY_WINDOW_SECONDS, STEADY_TOLERANCE));
+                startup.put("p99TimelineMs", generator.p99Timeline());
+
+                printReport(report);
+                System.out.printf("%nTime to ready: %d ms (warm-up %d ms), time to steady p99: %d s%n",
+                        startup.get("timeToReadyMs"), startup.get("warmupMs"), startup.get("timeToSteadyP99Sec"));
+                writeReport(config, startup, report);
+            }
+        } finally {
+            redis.stop();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printReport(Map<String, Object> report) {
+        System.out.printf("%n%-10s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        report.forEach((endpoint, value) -> {
+            Map<String, Object> row = (Map<String, Object>) value;
+            System.out.printf("%-10s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    endpoint, row.get("count"), row.get("errors"), row.get("throughputPerSec"),
+                    row.get("p50Ms"), row.get("p90Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"),
+                    row.get("statuses"));
+        });
+    }
+
+    private static void writeReport(LoadTestConfig config, Map<String, Object> startup,
+                                    Map<String, Object> report) throws IOException {
+        String path = System.getProperty("loadtest.result", "target/loadtest-result.json");
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("config", config);
+        result.put("startup", startup);
+        result.put("endpoints", report);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(path), result);
+        System.out.println("Result written to " + path);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.auth.bootstrap;
+
+import com.auth.model.Role;
+import com.auth.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class RoleDataInitializer implements CommandLineRunner {
+
+    private static final List<String> ROLE_NAMES = List.of("ROLE_USER", "ROLE_ADMIN");
+
+    private final RoleRepository roleRepository;
+
+    @Override
+    public void run(String... args) {
+        // one select for all roles, and one batch insert for the missing ones (shorter start)
+        Set<String> existing = roleRepository.findAll().stream()
+                .map(Role::getName)
+                .collect(Collectors.toSet());
+        List<Role> missing = ROLE_NAMES.stream()
+                .filter(name -> !existing.contains(name))
+                .map(name -> new Role(null, name))
+                .toList();
+        if (!missing.isEmpty()) {
+            roleRepository.saveAll(missing);
+        }
+    }
+}
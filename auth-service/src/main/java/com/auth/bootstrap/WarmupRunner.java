@@ -0,0 +1,266 @@
+package com.auth.bootstrap;
+
+import com.auth.dto.AuthResponseDto;
+import com.auth.dto.ErrorResponseDto;
+import com.auth.dto.LoginRequestDto;
+import com.auth.dto.UserProfileDto;
+import com.auth.model.Role;
+import com.auth.model.User;
+import com.auth.security.JwtTokenProvider;
+import com.auth.service.TokenValidationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class warms up the service before it takes traffic.
+ *
+ * <p>Spring Boot sets readiness to ACCEPTING_TRAFFIC only after all runners are done,
+ * so {@code /actuator/health/readiness} stays DOWN while this runs. Steps:
+ * - database: opens the pool connections and runs {@code SELECT 1} on each
+ * - Redis: PING on the write and read connections (token-store.type=redis only)
+ * - tokens: makes and checks {@code warmup.iterations} access tokens, so the JIT compiles
+ *   signing, parsing and the role claims before the first user comes
+ * - JSON: writes and reads the API records, and one password check
+ * - HTTP: a few local requests through the filter chain and the error writer
+ *
+ * <p>No step can stop the start: errors are logged, and all steps together stop after
+ * {@code warmup.max-duration}. The time is in gauge {@code auth.startup.warmup}.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class WarmupRunner implements ApplicationRunner {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenValidationService tokenValidationService;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final ObjectProvider<RedisTemplate<String, String>> redisTemplate;
+    private final ObjectProvider<RedisTemplate<String, String>> tokenReadRedisTemplate;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${warmup.http-requests:200}")
+    private int httpRequests;
+
+    @Value("${warmup.max-duration:20s}")
+    private Duration maxDuration;
+
+    @Value("${token-store.type:redis}")
+    private String tokenStoreType;
+
+    private volatile long warmupNanos;
+
+    public WarmupRunner(JwtTokenProvider jwtTokenProvider,
+                        TokenValidationService tokenValidationService,
+                        PasswordEncoder passwordEncoder,
+                        ObjectMapper objectMapper,
+                        DataSource dataSource,
+                        @Qualifier("redisTemplate") ObjectProvider<RedisTemplate<String, String>> redisTemplate,
+                        @Qualifier("tokenReadRedisTemplate") ObjectProvider<RedisTemplate<String, String>> tokenReadRedisTemplate,
+                        Environment environment,
+                        MeterRegistry meterRegistry) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenValidationService = tokenValidationService;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.redisTemplate = redisTemplate;
+        this.tokenReadRedisTemplate = tokenReadRedisTemplate;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * This method runs at app start, after the data initializers.
+     *
+     * @param args the start args
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        TimeGauge.builder("auth.startup.warmup", this, TimeUnit.NANOSECONDS, runner -> runner.warmupNanos)
+                .description("Time of the warm-up before readiness")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+
+        int connections = step("database", this::openConnections);
+        int pings = "redis".equals(tokenStoreType) ? step("redis", this::pingRedis) : 0;
+        int tokens = step("tokens", () -> checkTokens(deadline));
+        step("json", this::writeJson);
+        String token = jwtTokenProvider.generateToken(warmupUser());
+        int requests = step("http", () -> sendRequests(token, deadline));
+
+        warmupNanos = System.nanoTime() - start;
+        log.info("Warm-up done in {} ms: {} db connections, {} redis pings, {} tokens, {} http requests",
+                TimeUnit.NANOSECONDS.toMillis(warmupNanos), connections, pings, tokens, requests);
+    }
+
+    /**
+     * This interface is one warm-up step; it returns how many things it did.
+     */
+    private interface Step {
+        int run() throws Exception;
+    }
+
+    private int step(String name, Step step) {
+        try {
+            return step.run();
+        } catch (Exception ex) {
+            log.warn("Warm-up step {} failed: {}", name, ex.toString());
+            return 0;
+        }
+    }
+
+    /**
+     * This method takes all pool connections at the same time, so the pool opens them now
+     * and not on the first requests.
+     */
+    private int openConnections() throws SQLException {
+        int size = 1;
+        if (dataSource instanceof HikariDataSource hikari) {
+            // minimum-idle is -1 until the pool is started; then it defaults to the pool size
+            int minimumIdle = hikari.getMinimumIdle();
+            size = Math.max(1, minimumIdle >= 0 ? Math.min(hikari.getMaximumPoolSize(), minimumIdle)
+                    : hikari.getMaximumPoolSize());
+        }
+        List<Connection> open = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = dataSource.getConnection();
+                open.add(connection);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+            }
+        } finally {
+            for (Connection connection : open) {
+                connection.close();
+            }
+        }
+        return open.size();
+    }
+
+    private int pingRedis() {
+        int pings = 0;
+        for (ObjectProvider<RedisTemplate<String, String>> template : List.of(redisTemplate, tokenReadRedisTemplate)) {
+            RedisTemplate<String, String> available = template.getIfAvailable();
+            if (available != null) {
+                available.execute(RedisConnection::ping, true);
+                pings++;
+            }
+        }
+        return pings;
+    }
+
+    /**
+     * This method makes and parses tokens. One check in ten also goes through the token store
+     * (the token is not allowed, so the answer is "unknown" and nothing is written).
+     */
+    private int checkTokens(long deadline) {
+        User user = warmupUser();
+        int done = 0;
+        while (done < iterations && System.nanoTime() < deadline) {
+            String token = jwtTokenProvider.generateToken(user);
+            jwtTokenProvider.getClaims(token);
+            if (done % 10 == 0) {
+                tokenValidationService.validate(token);
+            }
+            done++;
+        }
+        return done;
+    }
+
+    private int writeJson() throws Exception {
+        String token = jwtTokenProvider.generateToken(warmupUser());
+        objectMapper.writeValueAsString(new AuthResponseDto("Bearer", token, token, "warmup"));
+        objectMapper.writeValueAsString(new UserProfileDto(0L, "warmup", jwtTokenProvider.getRoleTable()));
+        objectMapper.writeValueAsString(new ErrorResponseDto(401, "Unauthorized"));
+        objectMapper.readValue("{\"username\":\"warmup\",\"password\":\"warmup\"}", LoginRequestDto.class);
+        passwordEncoder.matches("warmup", passwordEncoder.encode("warmup"));
+        return 1;
+    }
+
+    /**
+     * This method sends requests to the own port: {@code /auth/me} with a token that is
+     * not allowed (answer 401) and the liveness probe. No data is changed.
+     */
+    private int sendRequests(String token, long deadline) throws Exception {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (port == null || port <= 0 || httpRequests <= 0) {
+            return 0;
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        HttpRequest me = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/auth/me"))
+                .timeout(Duration.ofSeconds(5))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        // actuator is on the management port when it has its own
+        Integer managementPort = environment.getProperty("local.management.port", Integer.class, port);
+        HttpRequest liveness = HttpRequest.newBuilder(
+                        URI.create("http://127.0.0.1:" + managementPort + "/actuator/health/liveness"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        int done = 0;
+        while (done < httpRequests && System.nanoTime() < deadline) {
+            client.send(done % 4 == 0 ? liveness : me, HttpResponse.BodyHandlers.discarding());
+            done++;
+        }
+        return done;
+    }
+
+    private User warmupUser() {
+        Set<Role> roles = new HashSet<>();
+        for (String name : jwtTokenProvider.getRoleTable()) {
+            roles.add(new Role(null, name));
+        }
+        return User.builder()
+                .username("warmup")
+                .roles(roles)
+                .build();
+    }
+}
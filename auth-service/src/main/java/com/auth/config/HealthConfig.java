@@ -0,0 +1,62 @@
+package com.auth.config;
+
+import com.auth.service.DependencyHealthMonitor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HealthConfig gives the health indicators of dependencies.
+ *
+ * <p>They read the last result of {@link DependencyHealthMonitor}, so
+ * {@code /actuator/health} does no I/O. The bean names {@code redisHealthIndicator}
+ * and {@code dbHealthIndicator} replace the Spring Boot indicators, which would
+ * call Redis and the database on every health request.
+ *
+ * <p>Groups (see {@code management.endpoint.health.group} in {@code application.yaml}):
+ * - readiness: redis and db
+ * - liveness: only the state of the application, a slow dependency must not restart the pod
+ */
+@Configuration
+public class HealthConfig {
+
+    @Bean
+    public HealthIndicator redisHealthIndicator(DependencyHealthMonitor monitor) {
+        return () -> toHealth(monitor.snapshot(DependencyHealthMonitor.REDIS));
+    }
+
+    @Bean
+    public HealthIndicator dbHealthIndicator(DependencyHealthMonitor monitor) {
+        return () -> toHealth(monitor.snapshot(DependencyHealthMonitor.DATABASE));
+    }
+
+    @Bean
+    public HealthIndicator eurekaRegistryHealthIndicator(DependencyHealthMonitor monitor) {
+        return () -> toHealth(monitor.snapshot(DependencyHealthMonitor.EUREKA));
+    }
+
+    private static Health toHealth(DependencyHealthMonitor.Snapshot snapshot) {
+        Status status = switch (snapshot.state()) {
+            case UP -> Status.UP;
+            case DOWN -> Status.DOWN;
+            case EMPTY, UNKNOWN -> Status.UNKNOWN;
+        };
+        Health.Builder builder = Health.status(status)
+                .withDetail("detail", snapshot.detail())
+                .withDetail("consecutiveFailures", snapshot.consecutiveFailures());
+        if (snapshot.checkedAt() != null) {
+            builder.withDetail("checkedAt", snapshot.checkedAt().toString())
+                    .withDetail("latencyMs", round(snapshot.lastLatencyMs()))
+                    .withDetail("p50LatencyMs", round(snapshot.p50LatencyMs()))
+                    .withDetail("p99LatencyMs", round(snapshot.p99LatencyMs()))
+                    .withDetail("maxLatencyMs", round(snapshot.maxLatencyMs()));
+        }
+        return builder.build();
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100) / 100.0;
+    }
+}
@@ -0,0 +1,103 @@
+package com.auth.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * RedisCircuitBreakerConfig creates the circuit breaker around Redis token state.
+ *
+ * <p>When Redis calls fail or are slow, the breaker opens and calls are not sent
+ * to Redis for a while. The token services then use the fallback policy
+ * ({@code redis.fallback-policy}) instead of waiting for a timeout on every request.
+ *
+ * <p>Metrics:
+ * - resilience4j.circuitbreaker.state (gauge per state)
+ * - resilience4j.circuitbreaker.calls (calls by kind)
+ * - auth.redis.circuit.transitions (counter with from/to tags)
+ */
+@Slf4j
+@Configuration
+public class RedisCircuitBreakerConfig {
+
+    /**
+     * Failure rate in percent that opens the breaker.
+     */
+    @Value("${redis.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    /**
+     * Calls slower than this are counted as slow.
+     */
+    @Value("${redis.circuit-breaker.slow-call-duration:100ms}")
+    private Duration slowCallDuration;
+
+    /**
+     * Slow call rate in percent that opens the breaker.
+     */
+    @Value("${redis.circuit-breaker.slow-call-rate-threshold:50}")
+    private float slowCallRateThreshold;
+
+    /**
+     * Number of last calls used to compute the rates.
+     */
+    @Value("${redis.circuit-breaker.window-size:50}")
+    private int windowSize;
+
+    /**
+     * Time the breaker stays open before it tries Redis again.
+     */
+    @Value("${redis.circuit-breaker.wait-in-open:5s}")
+    private Duration waitInOpen;
+
+    /**
+     * Number of test calls in half-open state.
+     */
+    @Value("${redis.circuit-breaker.half-open-calls:5}")
+    private int halfOpenCalls;
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(windowSize)
+                .minimumNumberOfCalls(Math.min(10, windowSize))
+                .waitDurationInOpenState(waitInOpen)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build();
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    /**
+     * Creates the breaker used by all Redis token state calls.
+     *
+     * @param registry      circuit breaker registry
+     * @param meterRegistry micrometer registry
+     * @return redis circuit breaker
+     */
+    @Bean
+    public CircuitBreaker redisCircuitBreaker(CircuitBreakerRegistry registry, MeterRegistry meterRegistry) {
+        CircuitBreaker breaker = registry.circuitBreaker("redis");
+        breaker.getEventPublisher().onStateTransition(event -> {
+            log.warn("Redis circuit breaker state changed: {}", event.getStateTransition());
+            meterRegistry.counter("auth.redis.circuit.transitions",
+                    "from", event.getStateTransition().getFromState().name(),
+                    "to", event.getStateTransition().getToState().name()).increment();
+        });
+        return breaker;
+    }
+}
@@ -0,0 +1,265 @@
+package com.auth.config;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisNode;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RedisConfig creates Redis beans for the Auth Service.
+ *
+ * <p>This configuration reads Redis connection values from environment variables
+ * via Spring Boot properties (application.yml placeholders).
+ *
+ * <p>Why we do this:
+ * - Do not hardcode secrets in code
+ * - Make the service runnable in different environments (local, docker, k8s)
+ *
+ * <p>Supported topologies ({@code redis.mode}):
+ * - standalone: one host and port
+ * - sentinel: master name and sentinel nodes, failover is done by Sentinel
+ * - cluster: cluster nodes, topology is refreshed on MOVED/ASK and on a period
+ */
+@Configuration
+public class RedisConfig {
+
+    /**
+     * Redis topology: standalone, sentinel or cluster.
+     */
+    @Value("${redis.mode:standalone}")
+    private String mode;
+
+    /**
+     * Redis host name (example: localhost).
+     */
+    @Value("${redis.host:localhost}")
+    private String host;
+
+    /**
+     * Redis port (default: 6379).
+     */
+    @Value("${redis.port:6379}")
+    private int port;
+
+    /**
+     * Redis password (optional).
+     * If empty or blank, no password is set.
+     */
+    @Value("${redis.password:}")
+    private String password;
+
+    /**
+     * Cluster seed nodes, comma separated (example: redis-1:6379,redis-2:6379).
+     */
+    @Value("${redis.cluster.nodes:}")
+    private String clusterNodes;
+
+    /**
+     * Max MOVED/ASK redirects for one command in cluster mode.
+     */
+    @Value("${redis.cluster.max-redirects:3}")
+    private int clusterMaxRedirects;
+
+    /**
+     * Period of background topology refresh in cluster mode.
+     */
+    @Value("${redis.cluster.refresh-period:30s}")
+    private Duration clusterRefreshPeriod;
+
+    /**
+     * Sentinel master name.
+     */
+    @Value("${redis.sentinel.master:mymaster}")
+    private String sentinelMaster;
+
+    /**
+     * Sentinel nodes, comma separated (example: sentinel-1:26379,sentinel-2:26379).
+     */
+    @Value("${redis.sentinel.nodes:}")
+    private String sentinelNodes;
+
+    /**
+     * When true, read-only token checks are sent to replicas when possible.
+     * Writes always go to the master.
+     */
+    @Value("${redis.read-from-replica:false}")
+    private boolean readFromReplica;
+
+    /**
+     * Max time for one Redis command.
+     * Keep it short: token checks are on the path of every request.
+     */
+    @Value("${redis.command-timeout:250ms}")
+    private Duration commandTimeout;
+
+    /**
+     * Max time to open a Redis connection.
+     */
+    @Value("${redis.connect-timeout:500ms}")
+    private Duration connectTimeout;
+
+    /**
+     * Creates the RedisConnectionFactory for the configured topology.
+     * All writes use this factory.
+     *
+     * @return RedisConnectionFactory for Lettuce client
+     */
+    @Bean
+    @Primary
+    public RedisConnectionFactory redisConnectionFactory() {
+        return new LettuceConnectionFactory(redisConfiguration(), clientConfiguration(ReadFrom.UPSTREAM));
+    }
+
+    /**
+     * Creates a RedisConnectionFactory for read-only token checks.
+     *
+     * <p>In sentinel and cluster mode with {@code redis.read-from-replica=true}
+     * reads go to a replica and fall back to the master.
+     * Otherwise this is a normal master connection.
+     * Replica reads are not read-your-writes; {@code RedisTokenStore} checks the master
+     * again when a token is not found in the allow-list.
+     *
+     * @return RedisConnectionFactory for token reads
+     */
+    @Bean
+    public RedisConnectionFactory tokenReadConnectionFactory() {
+        ReadFrom readFrom = readFromReplica && !"standalone".equals(mode)
+                ? ReadFrom.REPLICA_PREFERRED
+                : ReadFrom.UPSTREAM;
+        return new LettuceConnectionFactory(redisConfiguration(), clientConfiguration(readFrom));
+    }
+
+    /**
+     * Creates RedisTemplate for simple String key/value usage.
+     *
+     * <p>This project uses RedisTemplate for:
+     * - allow-list keys: auth:allowlist:{&lt;user tag&gt;}:&lt;token&gt;
+     * - blacklist keys: auth:blacklist:{&lt;user tag&gt;}:&lt;token&gt;
+     * - revocation stream: auth:revocations (stream fields are strings too)
+     *
+     * @param connectionFactory redis connection factory
+     * @return RedisTemplate<String, String>
+     */
+    @Bean
+    @Primary
+    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
+        return stringTemplate(connectionFactory);
+    }
+
+    /**
+     * Creates RedisTemplate for read-only token checks.
+     *
+     * @param connectionFactory redis connection factory for reads
+     * @return RedisTemplate<String, String>
+     */
+    @Bean
+    public RedisTemplate<String, String> tokenReadRedisTemplate(
+            @Qualifier("tokenReadConnectionFactory") RedisConnectionFactory connectionFactory) {
+        return stringTemplate(connectionFactory);
+    }
+
+    private RedisTemplate<String, String> stringTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, String> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(new StringRedisSerializer());
+
+        return template;
+    }
+
+    private RedisConfiguration redisConfiguration() {
+        RedisPassword redisPassword = password != null && !password.isBlank()
+                ? RedisPassword.of(password)
+                : RedisPassword.none();
+
+        switch (mode) {
+            case "cluster" -> {
+                RedisClusterConfiguration config = new RedisClusterConfiguration(splitNodes(clusterNodes));
+                config.setMaxRedirects(clusterMaxRedirects);
+                config.setPassword(redisPassword);
+                return config;
+            }
+            case "sentinel" -> {
+                RedisSentinelConfiguration config = new RedisSentinelConfiguration();
+                config.master(sentinelMaster);
+                splitNodes(sentinelNodes).forEach(node -> config.addSentinel(RedisNode.fromString(node)));
+                config.setPassword(redisPassword);
+                return config;
+            }
+            case "standalone" -> {
+                RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
+                config.setHostName(host);
+                config.setPort(port);
+                config.setPassword(redisPassword);
+                return config;
+            }
+            default -> throw new IllegalStateException("Unknown redis.mode: " + mode);
+        }
+    }
+
+    private LettuceClientConfiguration clientConfiguration(ReadFrom readFrom) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder =
+                LettuceClientConfiguration.builder().commandTimeout(commandTimeout);
+
+        if (!"standalone".equals(mode)) {
+            builder.readFrom(readFrom);
+        }
+
+        SocketOptions socketOptions = SocketOptions.builder()
+                .connectTimeout(connectTimeout)
+                .build();
+
+        if ("cluster".equals(mode)) {
+            ClusterTopologyRefreshOptions refreshOptions = ClusterTopologyRefreshOptions.builder()
+                    .enablePeriodicRefresh(clusterRefreshPeriod)
+                    .enableAllAdaptiveRefreshTriggers()
+                    .build();
+            builder.clientOptions(ClusterClientOptions.builder()
+                    .socketOptions(socketOptions)
+                    .topologyRefreshOptions(refreshOptions)
+                    .build());
+        } else {
+            // do not queue commands while disconnected, fail fast instead
+            builder.clientOptions(ClientOptions.builder()
+                    .socketOptions(socketOptions)
+                    .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                    .build());
+        }
+
+        return builder.build();
+    }
+
+    private List<String> splitNodes(String nodes) {
+        if (nodes == null || nodes.isBlank()) {
+            throw new IllegalStateException("Redis nodes must be set for redis.mode=" + mode);
+        }
+        return Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .toList();
+    }
+}
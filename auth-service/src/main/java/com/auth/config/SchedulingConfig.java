@@ -0,0 +1,12 @@
+package com.auth.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * SchedulingConfig enables {@code @Scheduled} jobs of the Auth Service.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
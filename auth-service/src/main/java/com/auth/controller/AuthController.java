@@ -11,10 +11,13 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * This controller has auth endpoints.
@@ -75,15 +78,32 @@ public class AuthController {
 
     /**
      * This endpoint returns current user profile.
+     * The response has a strong ETag. When {@code If-None-Match} has the same ETag,
+     * the answer is 304 without body, made from the user of the token only.
      *
-     * @param user the current user from security
-     * @return profile data
+     * @param user       the current user from security
+     * @param webRequest the request, for {@code If-None-Match}
+     * @return profile data, or 304 when not changed
      */
     @Operation(summary = "Get current user", description = "Return profile of logged-in user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Profile"),
+            @ApiResponse(responseCode = "304", description = "Profile not changed (If-None-Match)"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
     @GetMapping("/me")
-    public ResponseEntity<UserProfileDto> me(@AuthenticationPrincipal User user) {
+    public ResponseEntity<UserProfileDto> me(@AuthenticationPrincipal User user, WebRequest webRequest) {
+        String etag = authService.profileEtag(user);
+        if (webRequest.checkNotModified(etag)) {
+            // status 304 and ETag header are already set
+            return null;
+        }
         UserProfileDto profile = authService.me(user);
-        return ResponseEntity.ok(profile);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.AUTHORIZATION)
+                .body(profile);
     }
 
     /**
@@ -118,6 +138,28 @@ public class AuthController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * This endpoint logs out the user on all devices.
+     * It revokes all live access tokens of the user.
+     *
+     * @param user the current user
+     * @return empty response
+     */
+    @Operation(summary = "Logout on all devices", description = "Revoke all access tokens of current user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Logout success"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal User user) {
+        if (user != null) {
+            log.info("Logout all request received for username: {}", user.getUsername());
+            authService.logoutAll(user);
+        }
+
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * This endpoint creates new access token from refresh token.
      *
@@ -0,0 +1,66 @@
+package com.auth.controller;
+
+import com.auth.service.FlightRecordingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * This controller gives diagnostic data to admins.
+ */
+@RestController
+@RequestMapping("/auth/admin")
+@RequiredArgsConstructor
+public class DiagnosticsController {
+
+    private final FlightRecordingService flightRecordingService;
+
+    /**
+     * This endpoint downloads the flight recording of the last minutes (JFR format).
+     * Open it with JDK Mission Control or {@code jfr print --events com.auth.* file.jfr}.
+     *
+     * @param maxAgeSeconds how far back, capped at {@code jfr.max-age}
+     * @return the recording file
+     */
+    @Operation(summary = "Flight recording",
+            description = "JFR recording of the last minutes, with the auth events (com.auth.*)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recording file"),
+            @ApiResponse(responseCode = "403", description = "Not admin"),
+            @ApiResponse(responseCode = "404", description = "No recording running"),
+            @ApiResponse(responseCode = "429", description = "Another dump is running")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/recording", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> recording(
+            @RequestParam(value = "maxAgeSeconds", defaultValue = "300") long maxAgeSeconds) {
+        Path file = flightRecordingService.dump(Duration.ofSeconds(Math.max(1, maxAgeSeconds)));
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        String name = "auth-service-" + Instant.now().getEpochSecond() + ".jfr";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+}
@@ -0,0 +1,29 @@
+package com.auth.controller;
+
+import com.auth.service.DependencyHealthMonitor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class EurekaHealthController {
+
+    private final DependencyHealthMonitor dependencyHealthMonitor;
+
+    public EurekaHealthController(DependencyHealthMonitor dependencyHealthMonitor) {
+        this.dependencyHealthMonitor = dependencyHealthMonitor;
+    }
+
+    @GetMapping("/health/eureka")
+    public String checkEurekaRegistration() {
+        // Last result of the background probe, Eureka is not called here
+        DependencyHealthMonitor.Snapshot snapshot =
+                dependencyHealthMonitor.snapshot(DependencyHealthMonitor.EUREKA);
+
+        // Build a simple response
+        if (snapshot.state() == DependencyHealthMonitor.State.UP) {
+            return "✅ " + snapshot.detail();
+        } else {
+            return "❌ " + snapshot.detail();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.auth.controller;
+
+import com.auth.security.JwtTokenProvider;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This controller publishes the public keys of access tokens as a JWK set (RFC 7517).
+ * Services that verify tokens locally (auth-token-client) read it; with them they can verify
+ * ES256 tokens but not make them. The set is empty when tokens are signed with HS256.
+ */
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class JwksController {
+
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    /**
+     * This endpoint returns the JWK set. It is public: the keys are public keys.
+     *
+     * @return {@code {"keys":[...]}}, current key first
+     */
+    @Operation(summary = "JWK set", description = "Public keys of ES256 access tokens")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "JWK set")
+    })
+    @GetMapping("/jwks")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(MAX_AGE).cachePublic())
+                .body(Map.of("keys", jwtTokenProvider.publicJwks()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.auth.controller;
+
+import com.auth.service.RevocationEventService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * This controller streams revocation events to downstream services.
+ */
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class RevocationController {
+
+    private final RevocationEventService revocationEventService;
+
+    /**
+     * This endpoint streams revocation events (Server-Sent Events).
+     * Each event has the stream id as SSE id. To resume, send it back in
+     * {@code Last-Event-ID} (browsers do this on reconnect) or in {@code from}.
+     *
+     * @param lastEventId the last received event id (header)
+     * @param from        the last received event id (query, for clients that can not set headers)
+     * @return event stream
+     */
+    @Operation(summary = "Revocation events",
+            description = "Stream of revoked tokens and users for services that verify JWT locally")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream"),
+            @ApiResponse(responseCode = "400", description = "Invalid event id"),
+            @ApiResponse(responseCode = "403", description = "Not admin"),
+            @ApiResponse(responseCode = "503", description = "Too many subscribers or Redis down")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/revocations", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter revocations(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                  @RequestParam(value = "from", required = false) String from) {
+        return revocationEventService.subscribe(lastEventId != null ? lastEventId : from);
+    }
+}
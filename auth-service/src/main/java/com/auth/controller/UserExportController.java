@@ -0,0 +1,75 @@
+package com.auth.controller;
+
+import com.auth.model.AuditEventType;
+import com.auth.model.User;
+import com.auth.service.AuditLogService;
+import com.auth.service.UserExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * This controller exports users for compliance and analytics jobs.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/auth/admin")
+@RequiredArgsConstructor
+public class UserExportController {
+
+    private final UserExportService userExportService;
+    private final AuditLogService auditLogService;
+
+    /**
+     * This endpoint streams all users with their roles, sorted by id.
+     * The rows are written while they are read, so the size of the export does not matter.
+     * To continue a broken export, call again with {@code afterId} = last id received.
+     *
+     * @param user       the current admin
+     * @param formatName ndjson (one JSON object per line) or csv
+     * @param afterId    only users with a greater id
+     * @param limit      maximum number of users, 0 = all
+     * @param response   the http response, written directly
+     * @throws IOException when the client goes away
+     */
+    @Operation(summary = "Export users",
+            description = "All users with roles as NDJSON or CSV, streamed from a database cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users, one per line"),
+            @ApiResponse(responseCode = "403", description = "Not admin"),
+            @ApiResponse(responseCode = "429", description = "Too many exports are running")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/users/export")
+    public void export(@AuthenticationPrincipal User user,
+                       @RequestParam(value = "format", defaultValue = "ndjson") String formatName,
+                       @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+                       @RequestParam(value = "limit", defaultValue = "0") long limit,
+                       HttpServletResponse response) throws IOException {
+        UserExportService.Format format = UserExportService.Format.of(formatName);
+        String extension = format == UserExportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType(format == UserExportService.Format.CSV
+                ? "text/csv;charset=UTF-8" : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"users-" + Instant.now().getEpochSecond() + "." + extension + "\"");
+
+        log.info("User export started by {}: format {}, after id {}, limit {}",
+                user.getUsername(), extension, afterId, limit);
+        auditLogService.success(AuditEventType.USER_EXPORT, user.getUsername());
+        long rows = userExportService.export(format, afterId, limit, response.getOutputStream());
+        log.info("User export done: {} users", rows);
+    }
+}
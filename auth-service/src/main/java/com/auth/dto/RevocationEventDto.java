@@ -0,0 +1,28 @@
+package com.auth.dto;
+
+/**
+ * This record is one revocation event.
+ * It is sent to downstream services on the revocation stream.
+ *
+ * <p>Types:
+ * - {@code token}: one access token is revoked (logout). {@code tokenId} is set.
+ * - {@code user}: all access tokens of user issued at or before {@code revokedAt} are revoked (logout-all).
+ *   {@code tokenId} is empty.
+ *
+ * @param type      token or user
+ * @param tokenId   SHA-256 of the access token, base64url without padding
+ * @param username  the owner of token
+ * @param expiresAt after this time (epoch millis) the event is not needed anymore
+ * @param revokedAt the time of revocation (epoch millis)
+ */
+public record RevocationEventDto(
+        String type,
+        String tokenId,
+        String username,
+        long expiresAt,
+        long revokedAt
+) {
+
+    public static final String TYPE_TOKEN = "token";
+    public static final String TYPE_USER = "user";
+}
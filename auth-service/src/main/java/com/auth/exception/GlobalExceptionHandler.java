@@ -20,6 +20,11 @@ import java.util.stream.Collectors;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    /** Answer to a failed login; always the same, so it is made once. */
+    private static final ResponseEntity<ErrorResponseDto> BAD_CREDENTIALS = ResponseEntity
+            .status(HttpStatus.UNAUTHORIZED)
+            .body(new ErrorResponseDto(HttpStatus.UNAUTHORIZED.value(), "Invalid username or password"));
+
     /**
      * This method handles validation errors.
      *
@@ -105,12 +110,27 @@ public class GlobalExceptionHandler {
 
         log.warn("Authentication error: {}", ex.getMessage());
 
+        return BAD_CREDENTIALS;
+    }
+
+    /**
+     * This method handles token store errors.
+     * It is used when Redis is slow or down.
+     *
+     * @param ex the token store exception
+     * @return error response
+     */
+    @ExceptionHandler(TokenStateUnavailableException.class)
+    public ResponseEntity<ErrorResponseDto> handleTokenStateUnavailableException(TokenStateUnavailableException ex) {
+
+        log.warn("Token store error: {}", ex.getMessage());
+
         ErrorResponseDto error = new ErrorResponseDto(
-                HttpStatus.UNAUTHORIZED.value(),
-                "Invalid username or password"
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                ex.getMessage()
         );
 
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
     }
 
 }
@@ -3,6 +3,7 @@ package com.auth.exception;
 /**
  * This class is the refresh token error.
  * It is used when refresh token is not valid.
+ * It has no stack trace, so a flood of bad tokens is cheap.
  */
 public class RefreshTokenException extends RuntimeException {
 
@@ -12,6 +13,7 @@ public class RefreshTokenException extends RuntimeException {
      * @param message the error text
      */
     public RefreshTokenException(String message) {
-        super(message);
+        // no stack trace: thrown for every bad token, and the message says it all
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,20 @@
+package com.auth.exception;
+
+/**
+ * This class is the token store error.
+ * It is used when Redis is slow or down and the fallback policy does not allow to continue.
+ * It has no stack trace of its own, see the cause.
+ */
+public class TokenStateUnavailableException extends RuntimeException {
+
+    /**
+     * This is the constructor with message and cause.
+     *
+     * @param message the error text
+     * @param cause   the original error
+     */
+    public TokenStateUnavailableException(String message, Throwable cause) {
+        // no stack trace of its own: thrown for every request while Redis is down; the cause has one
+        super(message, cause, false, false);
+    }
+}
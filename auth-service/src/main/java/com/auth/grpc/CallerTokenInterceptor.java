@@ -0,0 +1,62 @@
+package com.auth.grpc;
+
+import com.auth.service.TokenValidationResult;
+import com.auth.service.TokenValidationService;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * This class checks the caller of each gRPC call.
+ *
+ * <p>The caller sends its own access token in metadata {@code authorization: Bearer <token>},
+ * like a REST call. The token is checked like any other token (signature, expiry, blacklist, allow-list)
+ * and must have the caller role ({@code grpc.caller-role}), the role of service accounts.
+ * Without it the call is closed with UNAUTHENTICATED or PERMISSION_DENIED and no token is validated:
+ * the API would otherwise tell anyone which tokens are valid.
+ *
+ * <p>For a stream the caller is checked once, when the stream opens.
+ */
+class CallerTokenInterceptor implements ServerInterceptor {
+
+    static final Metadata.Key<String> AUTHORIZATION =
+            Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenValidationService tokenValidationService;
+    private final String callerRole;
+
+    CallerTokenInterceptor(TokenValidationService tokenValidationService, String callerRole) {
+        this.tokenValidationService = tokenValidationService;
+        this.callerRole = callerRole;
+    }
+
+    @Override
+    public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers,
+                                                      ServerCallHandler<Q, R> next) {
+        String header = headers.get(AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)) {
+            return close(call, Status.UNAUTHENTICATED.withDescription("Caller token required"));
+        }
+        TokenValidationResult result = tokenValidationService.validate(header.substring(BEARER.length()));
+        if (result.status() == TokenValidationResult.Status.UNAVAILABLE) {
+            return close(call, Status.UNAVAILABLE.withDescription("Token check unavailable"));
+        }
+        if (!result.isAllowed()) {
+            return close(call, Status.UNAUTHENTICATED.withDescription("Caller token not valid"));
+        }
+        if (!result.roles().contains(callerRole)) {
+            return close(call, Status.PERMISSION_DENIED.withDescription("Caller has no " + callerRole));
+        }
+        return next.startCall(call, headers);
+    }
+
+    private static <Q, R> ServerCall.Listener<Q> close(ServerCall<Q, R> call, Status status) {
+        call.close(status, new Metadata());
+        return new ServerCall.Listener<>() {
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package com.auth.grpc;
+
+import com.auth.service.TokenValidationService;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.ServerCredentials;
+import io.grpc.ServerInterceptors;
+import io.grpc.TlsServerCredentials;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class starts and stops the gRPC server of internal APIs.
+ *
+ * <p>The server uses its own port (HTTP/2), not the Tomcat port.
+ * Many calls share one connection. Calls run on virtual threads,
+ * because token checks wait for Redis.
+ *
+ * <p>The server is off unless {@code grpc.enabled} is true. It listens on {@code grpc.address}
+ * (loopback by default), so other hosts reach it only when an address is set.
+ * With {@code grpc.tls.*} files the connection uses TLS; with a client CA, callers
+ * need a certificate signed by it (mTLS). Each call also needs the token of a service account,
+ * see {@link CallerTokenInterceptor}. The port must not be published through the API gateway.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "grpc.enabled", havingValue = "true")
+public class GrpcServerLifecycle implements SmartLifecycle {
+
+    private final TokenValidationGrpcService tokenValidationGrpcService;
+    private final TokenValidationService tokenValidationService;
+
+    @Value("${grpc.address:127.0.0.1}")
+    private String address;
+
+    @Value("${grpc.port:9090}")
+    private int port;
+
+    @Value("${grpc.tls.cert-chain-file:}")
+    private String certChainFile;
+
+    @Value("${grpc.tls.private-key-file:}")
+    private String privateKeyFile;
+
+    @Value("${grpc.tls.client-ca-file:}")
+    private String clientCaFile;
+
+    @Value("${grpc.caller-token-required:true}")
+    private boolean callerTokenRequired;
+
+    @Value("${grpc.caller-role:ROLE_ADMIN}")
+    private String callerRole;
+
+    @Value("${grpc.max-concurrent-calls-per-connection:1000}")
+    private int maxConcurrentCallsPerConnection;
+
+    @Value("${grpc.max-inbound-message-size:16384}")
+    private int maxInboundMessageSize;
+
+    @Value("${grpc.permit-keep-alive-time-seconds:30}")
+    private long permitKeepAliveTimeSeconds;
+
+    @Value("${grpc.shutdown-grace-seconds:5}")
+    private long shutdownGraceSeconds;
+
+    private ExecutorService executor;
+    private volatile Server server;
+
+    public GrpcServerLifecycle(TokenValidationGrpcService tokenValidationGrpcService,
+                               TokenValidationService tokenValidationService) {
+        this.tokenValidationGrpcService = tokenValidationGrpcService;
+        this.tokenValidationService = tokenValidationService;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        ServerCredentials credentials = credentials();
+        if (credentials instanceof InsecureServerCredentials && !new InetSocketAddress(address, 0).getAddress().isLoopbackAddress()) {
+            log.warn("gRPC server on {} without TLS: tokens are sent in plain text (set grpc.tls.*)", address);
+        }
+        if (!callerTokenRequired && clientCaFile.isBlank()) {
+            log.warn("gRPC callers are not authenticated (grpc.caller-token-required=false and no grpc.tls.client-ca-file)");
+        }
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-", 0).factory());
+        Server built = NettyServerBuilder.forAddress(new InetSocketAddress(address, port), credentials)
+                .executor(executor)
+                .maxConcurrentCallsPerConnection(maxConcurrentCallsPerConnection)
+                .maxInboundMessageSize(maxInboundMessageSize)
+                .permitKeepAliveTime(permitKeepAliveTimeSeconds, TimeUnit.SECONDS)
+                .permitKeepAliveWithoutCalls(true)
+                .addService(callerTokenRequired
+                        ? ServerInterceptors.intercept(tokenValidationGrpcService,
+                                new CallerTokenInterceptor(tokenValidationService, callerRole))
+                        : tokenValidationGrpcService.bindService())
+                .build();
+        try {
+            built.start();
+        } catch (IOException ex) {
+            executor.shutdown();
+            throw new UncheckedIOException("gRPC server could not start on " + address + ":" + port, ex);
+        }
+        server = built;
+        log.info("gRPC server started on {}:{} (tls: {}, client certificate: {}, caller token: {})",
+                address, built.getPort(), !certChainFile.isBlank(), !clientCaFile.isBlank(), callerTokenRequired);
+    }
+
+    /**
+     * This method returns plain text credentials, or TLS when a certificate is set
+     * (mTLS when a client CA is set too).
+     */
+    private ServerCredentials credentials() {
+        if (certChainFile.isBlank()) {
+            if (!clientCaFile.isBlank()) {
+                throw new IllegalStateException("grpc.tls.client-ca-file needs grpc.tls.cert-chain-file");
+            }
+            return InsecureServerCredentials.create();
+        }
+        try {
+            TlsServerCredentials.Builder tls = TlsServerCredentials.newBuilder()
+                    .keyManager(new File(certChainFile), new File(privateKeyFile));
+            if (!clientCaFile.isBlank()) {
+                tls.trustManager(new File(clientCaFile))
+                        .clientAuth(TlsServerCredentials.ClientAuth.REQUIRE);
+            }
+            return tls.build();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("gRPC TLS files could not be read", ex);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        Server running = server;
+        if (running == null) {
+            return;
+        }
+        running.shutdown();
+        try {
+            if (!running.awaitTermination(shutdownGraceSeconds, TimeUnit.SECONDS)) {
+                running.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running.shutdownNow();
+        }
+        executor.shutdown();
+        server = null;
+        log.info("gRPC server stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+}
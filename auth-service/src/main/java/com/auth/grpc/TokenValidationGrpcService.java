@@ -0,0 +1,98 @@
+package com.auth.grpc;
+
+import com.auth.grpc.v1.TokenValidationGrpc;
+import com.auth.grpc.v1.ValidateTokenRequest;
+import com.auth.grpc.v1.ValidateTokenResponse;
+import com.auth.service.TokenValidationResult;
+import com.auth.service.TokenValidationService;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class is the gRPC token validation API (proto: {@code auth/v1/token_validation.proto}).
+ *
+ * <p>Checks are done by {@link TokenValidationService}, the same as in the JWT filter of the REST API.
+ * The user is not loaded from database: username and roles come from the token.
+ *
+ * <p>The time of each validation is recorded in timer {@code auth.grpc}
+ * with tags {@code method} (unary, stream) and {@code outcome}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenValidationGrpcService extends TokenValidationGrpc.TokenValidationImplBase {
+
+    private final TokenValidationService tokenValidationService;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void validateToken(ValidateTokenRequest request,
+                              StreamObserver<ValidateTokenResponse> responseObserver) {
+        if (Context.current().isCancelled()) {
+            // deadline of caller is over, the answer would not be read
+            responseObserver.onError(Status.CANCELLED.withDescription("Call cancelled").asRuntimeException());
+            return;
+        }
+        responseObserver.onNext(validate(request, "unary"));
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * This method validates tokens of one stream.
+     * gRPC calls the observer of one stream from one thread at a time,
+     * so responses are sent in request order.
+     */
+    @Override
+    public StreamObserver<ValidateTokenRequest> validateTokenStream(
+            StreamObserver<ValidateTokenResponse> responseObserver) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(ValidateTokenRequest request) {
+                responseObserver.onNext(validate(request, "stream"));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("Validation stream closed by client: {}", t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    private ValidateTokenResponse validate(ValidateTokenRequest request, String method) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TokenValidationResult result = tokenValidationService.validate(request.getToken());
+        sample.stop(meterRegistry.timer("auth.grpc", "method", method, "outcome", result.status().tag()));
+
+        ValidateTokenResponse.Builder response = ValidateTokenResponse.newBuilder()
+                .setRequestId(request.getRequestId())
+                .setStatus(toStatus(result.status()));
+        if (result.isAllowed()) {
+            response.setUsername(result.username())
+                    .addAllRoles(result.roles())
+                    .setExpiresAtMillis(result.expiresAtMillis());
+        }
+        return response.build();
+    }
+
+    private static ValidateTokenResponse.Status toStatus(TokenValidationResult.Status status) {
+        return switch (status) {
+            case ALLOWED -> ValidateTokenResponse.Status.VALID;
+            case REVOKED -> ValidateTokenResponse.Status.REVOKED;
+            case UNKNOWN -> ValidateTokenResponse.Status.UNKNOWN;
+            case EXPIRED -> ValidateTokenResponse.Status.EXPIRED;
+            case INVALID -> ValidateTokenResponse.Status.INVALID;
+            case UNAVAILABLE, ERROR -> ValidateTokenResponse.Status.UNAVAILABLE;
+        };
+    }
+}
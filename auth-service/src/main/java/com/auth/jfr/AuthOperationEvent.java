@@ -0,0 +1,35 @@
+package com.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This event is one call of login, Google login, refresh, logout or logout-all in {@code AuthService}.
+ */
+@Name("com.auth.AuthOperation")
+@Label("Auth Operation")
+@Category({"Auth", "Operation"})
+@Description("Login, Google login, refresh, logout or logout-all")
+@StackTrace(false)
+public class AuthOperationEvent extends jdk.jfr.Event {
+
+    public static final String LOGIN = "login";
+    public static final String GOOGLE_LOGIN = "google-login";
+    public static final String REFRESH = "refresh";
+    public static final String LOGOUT = "logout";
+    public static final String LOGOUT_ALL = "logout-all";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Outcome")
+    @Description("ok, or the simple name of the exception")
+    public String outcome;
+
+    @Label("User")
+    @Description("Hashed username, see UserHashes; empty when not known")
+    public String user;
+}
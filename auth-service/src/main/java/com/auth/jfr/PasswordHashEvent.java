@@ -0,0 +1,26 @@
+package com.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This event is one password hash (BCrypt encode or matches).
+ */
+@Name("com.auth.PasswordHash")
+@Label("Password Hash")
+@Category({"Auth", "Password"})
+@Description("BCrypt encode or matches")
+@StackTrace(false)
+public class PasswordHashEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    @Description("encode or matches")
+    public String operation;
+
+    @Label("Outcome")
+    @Description("ok, match or mismatch")
+    public String outcome;
+}
@@ -0,0 +1,31 @@
+package com.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This event is one access token check in {@code JwtAuthFilter}.
+ * Its duration is the whole check, including waiting for a shared check.
+ */
+@Name("com.auth.TokenCheck")
+@Label("Token Check")
+@Category({"Auth", "Token"})
+@Description("Access token check of one request")
+@StackTrace(false)
+public class TokenCheckEvent extends jdk.jfr.Event {
+
+    @Label("Outcome")
+    @Description("allowed, revoked, unknown, expired, invalid, unavailable or error")
+    public String outcome;
+
+    @Label("Verdict Source")
+    @Description("check: this request ran the check. cache: the verdict came from another request")
+    public String source;
+
+    @Label("User")
+    @Description("Hashed username, see UserHashes")
+    public String user;
+}
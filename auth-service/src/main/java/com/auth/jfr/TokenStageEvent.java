@@ -0,0 +1,36 @@
+package com.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * This event is one stage of a token check: jwt parse, blacklist, allow-list or user load.
+ * By default only stages of 1 ms or more are recorded.
+ */
+@Name("com.auth.TokenStage")
+@Label("Token Check Stage")
+@Category({"Auth", "Token"})
+@Description("One stage of an access token check")
+@StackTrace(false)
+@Threshold("1 ms")
+public class TokenStageEvent extends jdk.jfr.Event {
+
+    public static final String PARSE = "parse";
+    public static final String BLACKLIST = "blacklist";
+    public static final String ALLOW_LIST = "allowlist";
+    public static final String USER_LOAD = "user-load";
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("User")
+    @Description("Hashed username, see UserHashes")
+    public String user;
+}
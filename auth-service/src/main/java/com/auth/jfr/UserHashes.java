@@ -0,0 +1,47 @@
+package com.auth.jfr;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * This class hashes usernames for JFR events, so a recording holds no usernames.
+ *
+ * <p>The hash is SHA-256 of a random salt and the username, first 8 bytes as hex.
+ * The salt is new on each start: events of one user can be matched within one process,
+ * but a hash can not be looked up from a list of usernames.
+ * Call it only after {@code shouldCommit()}, so it costs nothing while JFR is off.
+ */
+public final class UserHashes {
+
+    private static final byte[] SALT = new byte[16];
+
+    static {
+        new SecureRandom().nextBytes(SALT);
+    }
+
+    private UserHashes() {
+    }
+
+    /**
+     * This method returns the hash of username.
+     *
+     * @param username the username, can be null
+     * @return 16 hex chars, or empty string when username is null
+     */
+    public static String of(String username) {
+        if (username == null) {
+            return "";
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(SALT);
+            byte[] hash = digest.digest(username.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.auth.model;
+
+/**
+ * This enum is the type of auth audit event.
+ */
+public enum AuditEventType {
+    LOGIN,
+    LOGIN_FAILED,
+    GOOGLE_LOGIN,
+    REFRESH,
+    LOGOUT,
+    LOGOUT_ALL,
+    USER_EXPORT
+}
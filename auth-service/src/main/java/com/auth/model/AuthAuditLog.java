@@ -0,0 +1,76 @@
+package com.auth.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * This class is one row of the auth audit trail.
+ * Rows are written in batches by {@link com.auth.service.AuditLogService},
+ * not through JPA. The entity only describes the table.
+ */
+@Entity
+@Table(name = "auth_audit_log", indexes = {
+        @Index(name = "idx_auth_audit_log_created_at", columnList = "created_at"),
+        @Index(name = "idx_auth_audit_log_username", columnList = "username")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class AuthAuditLog {
+
+    /**
+     * This is the id of audit row.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * This is the event type.
+     * Example: LOGIN, LOGOUT.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private AuditEventType eventType;
+
+    /**
+     * This is the username of event.
+     * It can be null when it is not known.
+     */
+    @Column(length = 150)
+    private String username;
+
+    /**
+     * This is true when the event was successful.
+     */
+    @Column(nullable = false)
+    private boolean success;
+
+    /**
+     * This is a short reason when the event failed.
+     */
+    @Column(length = 200)
+    private String reason;
+
+    /**
+     * This is the client IP address.
+     */
+    @Column(name = "ip_address", length = 64)
+    private String ipAddress;
+
+    /**
+     * This is the client user agent.
+     */
+    @Column(name = "user_agent", length = 255)
+    private String userAgent;
+
+    /**
+     * This is the time when event happened.
+     */
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
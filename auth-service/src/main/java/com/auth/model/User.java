@@ -11,6 +11,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.HashSet;
@@ -104,6 +105,27 @@ public class User implements UserDetails {
      */
     private LocalDateTime updatedAt;
 
+    /**
+     * This is the time of last login.
+     * It is written in batches by {@link com.auth.service.UserActivityTracker}.
+     */
+    @Column(name = "last_login_at")
+    private LocalDateTime lastLoginAt;
+
+    /**
+     * This is the time of last authenticated request.
+     * It is written in batches by {@link com.auth.service.UserActivityTracker}.
+     */
+    @Column(name = "last_seen_at")
+    private LocalDateTime lastSeenAt;
+
+    /**
+     * This is the time of the last logout on all devices.
+     * Signed refresh tokens issued at or before it are not accepted.
+     */
+    @Column(name = "sessions_revoked_at")
+    private Instant sessionsRevokedAt;
+
     /**
      * This method sets times at insert.
      */
@@ -0,0 +1,36 @@
+package com.auth.repository;
+
+import com.auth.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * This interface is the refresh token repository.
+ */
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * This method finds refresh token by string.
+     *
+     * @param token the refresh token string
+     * @return optional refresh token
+     */
+    Optional<RefreshToken> findByToken(String token);
+
+    /**
+     * This method revokes all refresh tokens of user.
+     *
+     * @param userId the user id
+     * @return number of revoked tokens
+     */
+    @Modifying
+    @Transactional
+    @Query("update RefreshToken t set t.revoked = true where t.user.id = :userId and t.revoked = false")
+    int revokeAllByUserId(@Param("userId") Long userId);
+
+}
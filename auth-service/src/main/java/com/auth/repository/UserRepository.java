@@ -2,8 +2,13 @@ package com.auth.repository;
 
 import com.auth.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 /**
@@ -28,4 +33,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByEmailAndProvider(String email, String provider);
 
+    /**
+     * This method sets the time of logout on all devices of user.
+     *
+     * @param id        the user id
+     * @param revokedAt the logout time
+     * @return number of updated rows
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.sessionsRevokedAt = :revokedAt where u.id = :id")
+    int updateSessionsRevokedAt(@Param("id") Long id, @Param("revokedAt") Instant revokedAt);
+
 }
@@ -0,0 +1,155 @@
+package com.auth.security;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class limits how many requests of one endpoint class run at the same time.
+ * The limit is learned from latency (gradient), not fixed.
+ *
+ * <p>Idea: when requests wait for a shared resource (Tomcat threads, Redis or
+ * database connections, CPU for BCrypt), latency goes up before errors start.
+ * So for each window of samples:
+ * - {@code shortRtt} is the average latency of the window
+ * - {@code longRtt} is a slow moving average, the "normal" latency
+ * - gradient = {@code tolerance * longRtt / shortRtt}, between 0.5 and 1
+ * - new limit = limit * gradient + sqrt(limit) (room to probe upwards)
+ *
+ * <p>When latency is normal the gradient is 1 and the limit grows slowly.
+ * When latency rises the limit goes down. A failed request (5xx) cuts the
+ * limit by 10 percent at once (AIMD back-off).
+ *
+ * <p>The limit grows only when at least half of it was used, so an idle
+ * endpoint does not get a huge limit that would let a burst through.
+ *
+ * <p>{@link #tryAcquire()} is lock free. Sample updates are synchronized,
+ * once per request, and cheap.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_FACTOR = 0.9;
+    private static final double LONG_RTT_WINDOWS = 20;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int windowSize;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // guarded by this
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long windowRttSumNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    /**
+     * This constructor builds a limiter.
+     *
+     * @param initialLimit start limit
+     * @param minLimit     the limit never goes below this
+     * @param maxLimit     the limit never goes above this
+     * @param tolerance    how much slower than normal is still fine, example 2.0
+     * @param smoothing    how fast the limit follows the new value, 0..1
+     * @param windowSize   samples per limit update
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing, int windowSize) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limits: min " + minLimit + ", max " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowSize = Math.max(1, windowSize);
+        this.estimatedLimit = clamp(initialLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * This method takes a slot when one is free.
+     * Each true result must be followed by one {@link #release(long, boolean)}.
+     *
+     * @return true when the request may run
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * This method frees a slot and adds the latency sample.
+     *
+     * @param rttNanos latency of the request
+     * @param dropped  true when the request failed because of overload (5xx)
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (dropped) {
+                estimatedLimit = clamp(estimatedLimit * DROP_FACTOR);
+                limit = (int) estimatedLimit;
+                resetWindow();
+                return;
+            }
+            windowRttSumNanos += rttNanos;
+            windowSamples++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, current);
+            if (windowSamples >= windowSize) {
+                update();
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void update() {
+        double shortRtt = (double) windowRttSumNanos / windowSamples;
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) / LONG_RTT_WINDOWS;
+            if (longRttNanos > shortRtt * 2) {
+                // latency went down a lot (example: after a cold start), forget the old value faster
+                longRttNanos *= 0.95;
+            }
+        }
+
+        boolean appLimited = windowMaxInFlight < estimatedLimit / 2;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        if (appLimited && newLimit > estimatedLimit) {
+            newLimit = estimatedLimit;
+        }
+        estimatedLimit = clamp(estimatedLimit * (1 - smoothing) + newLimit * smoothing);
+        limit = (int) estimatedLimit;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowRttSumNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -2,6 +2,8 @@ package com.auth.security;
 
 import com.auth.model.User;
 import com.auth.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -11,12 +13,14 @@ import org.springframework.stereotype.Service;
 /**
  * This class loads user from database.
  * It is used by Spring Security.
+ * Times are recorded in timer {@code auth.user.load} with tag {@code outcome} (found, not_found).
  */
 @Service
 @RequiredArgsConstructor
 public class JpaUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
 
     /**
      * This method finds user by username.
@@ -28,10 +32,13 @@ public class JpaUserDetailsService implements UserDetailsService {
     public UserDetails loadUserByUsername(String username)
             throws UsernameNotFoundException {
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException(
-                        "User with username " + username + " not found"));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        User user = userRepository.findByUsername(username).orElse(null);
+        sample.stop(meterRegistry.timer("auth.user.load", "outcome", user != null ? "found" : "not_found"));
 
+        if (user == null) {
+            throw new UsernameNotFoundException("User with username " + username + " not found");
+        }
         return user;
     }
 }
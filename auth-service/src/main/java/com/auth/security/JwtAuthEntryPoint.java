@@ -0,0 +1,64 @@
+package com.auth.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.auth.dto.ErrorResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * JwtAuthEntryPoint handles unauthorized access.
+ * The 401 body is always the same, so it is serialized once and written as bytes.
+ *
+ * <p>When the token could not be checked because Redis is not available
+ * ({@code redis.fallback-policy: fail-closed}), {@link JwtAuthFilter} marks the request
+ * with {@link #TOKEN_STATE_UNAVAILABLE}. Then the answer is 503 with {@code Retry-After}
+ * (the circuit breaker open time), so clients retry instead of dropping their tokens and logging in again.
+ */
+@Component
+public class JwtAuthEntryPoint implements AuthenticationEntryPoint {
+
+    /** Request attribute set when the token state could not be read. */
+    public static final String TOKEN_STATE_UNAVAILABLE = JwtAuthEntryPoint.class.getName() + ".UNAVAILABLE";
+
+    private final byte[] body;
+    private final byte[] unavailableBody;
+    private final String retryAfterSeconds;
+
+    public JwtAuthEntryPoint(@Value("${redis.circuit-breaker.wait-in-open:5s}") Duration retryAfter)
+            throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.body = objectMapper.writeValueAsBytes(
+                new ErrorResponseDto(HttpStatus.UNAUTHORIZED.value(), "Invalid token"));
+        this.unavailableBody = objectMapper.writeValueAsBytes(
+                new ErrorResponseDto(HttpStatus.SERVICE_UNAVAILABLE.value(), "Token check unavailable, try again later"));
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    public void commence(HttpServletRequest request,
+                         HttpServletResponse response,
+                         AuthenticationException authException) throws IOException {
+
+        byte[] content = body;
+        if (request.getAttribute(TOKEN_STATE_UNAVAILABLE) != null) {
+            content = unavailableBody;
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", retryAfterSeconds);
+        } else {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(content.length);
+        response.getOutputStream().write(content);
+    }
+}
@@ -0,0 +1,206 @@
+package com.auth.security;
+
+import com.auth.jfr.TokenCheckEvent;
+import com.auth.jfr.TokenStageEvent;
+import com.auth.jfr.UserHashes;
+import com.auth.model.User;
+import com.auth.service.TokenValidationResult;
+import com.auth.service.TokenValidationService;
+import com.auth.service.UserActivityTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This filter reads jwt from request.
+ * It sets authentication when token is valid and allowed.
+ * The token checks are done by {@link TokenValidationService};
+ * requests with the same token share them through {@link TokenVerdictCache}.
+ *
+ * <p>Cheap rejection for junk traffic:
+ * - public paths ({@link PublicPaths#NO_TOKEN}) are not filtered at all
+ * - a token that does not look like a jwt ({@link JwtTokenProvider#hasJwtShape(String, int)})
+ *   is dropped before the cache, parsing and Redis; the request stays anonymous
+ *
+ * <p>The time of token processing is recorded in timer {@code auth.filter}
+ * with tag {@code outcome}: allowed, revoked, unknown, expired, invalid, malformed, unavailable or error.
+ * When the outcome is unavailable (Redis down, fail-closed), the request is marked for a 503
+ * ({@link JwtAuthEntryPoint#TOKEN_STATE_UNAVAILABLE}).
+ * Each check is also a JFR event {@link TokenCheckEvent}; the user load is a {@link TokenStageEvent}.
+ */
+@Slf4j
+@Component
+public class JwtAuthFilter extends OncePerRequestFilter {
+
+    private final TokenValidationService tokenValidationService;
+    private final UserDetailsService userDetailsService;
+    private final TokenVerdictCache tokenVerdictCache;
+    private final UserActivityTracker userActivityTracker;
+    private final MeterRegistry meterRegistry;
+    private final Timer malformedTimer;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    public JwtAuthFilter(TokenValidationService tokenValidationService,
+                         @Lazy UserDetailsService userDetailsService,
+                         TokenVerdictCache tokenVerdictCache,
+                         UserActivityTracker userActivityTracker,
+                         MeterRegistry meterRegistry) {
+        this.tokenValidationService = tokenValidationService;
+        this.userDetailsService = userDetailsService;
+        this.tokenVerdictCache = tokenVerdictCache;
+        this.userActivityTracker = userActivityTracker;
+        this.meterRegistry = meterRegistry;
+        this.malformedTimer = meterRegistry.timer("auth.filter", "outcome", "malformed");
+    }
+
+    /**
+     * This method skips the filter on public paths; login, signup and refresh never read the header.
+     *
+     * @param request the http request
+     * @return true for a public path
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PublicPaths.isNoToken(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (!JwtTokenProvider.hasJwtShape(authHeader, 7)) {
+            // junk: not cached, not parsed, no event
+            malformedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String token = authHeader.substring(7);
+
+        TokenCheckEvent event = new TokenCheckEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean[] checked = {false};
+        String outcome = authenticate(token, request, checked);
+        sample.stop(meterRegistry.timer("auth.filter", "outcome", outcome));
+        event.end();
+        if (event.shouldCommit()) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            event.outcome = outcome;
+            event.source = checked[0] ? "check" : "cache";
+            event.user = UserHashes.of(authentication != null ? authentication.getName() : null);
+            event.commit();
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * This method checks the token and sets authentication when it is allowed.
+     * Requests with the same token share the check, see {@link TokenVerdictCache}.
+     *
+     * @param token   the access token string
+     * @param request the http request
+     * @param checked set to true when this request ran the check itself
+     * @return outcome tag
+     */
+    private String authenticate(String token, HttpServletRequest request, boolean[] checked) {
+        try {
+            TokenVerdictCache.Verdict verdict = tokenVerdictCache.get(token, t -> {
+                checked[0] = true;
+                return check(t);
+            });
+            TokenValidationResult result = verdict.result();
+            UserDetails userDetails = verdict.userDetails();
+            if (!result.isAllowed() || userDetails == null) {
+                // request stays anonymous
+                SecurityContextHolder.clearContext();
+                if (result.status() == TokenValidationResult.Status.UNAVAILABLE) {
+                    // protected paths answer 503 instead of 401, see JwtAuthEntryPoint
+                    request.setAttribute(JwtAuthEntryPoint.TOKEN_STATE_UNAVAILABLE, Boolean.TRUE);
+                }
+                return result.status().tag();
+            }
+
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(
+                                userDetails,
+                                null,
+                                userDetails.getAuthorities()
+                        );
+                authToken.setDetails(detailsSource.buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                // only kept in memory, written later in one batch
+                if (userDetails instanceof User user) {
+                    userActivityTracker.recordSeen(user.getId());
+                }
+            }
+            return result.status().tag();
+        } catch (Exception ex) {
+            // do not send error from this filter
+            log.warn("Token check failed: {}", ex.getMessage());
+            SecurityContextHolder.clearContext();
+            return TokenValidationResult.Status.ERROR.tag();
+        }
+    }
+
+    /**
+     * This method runs the token checks and loads the user.
+     *
+     * @param token the access token string
+     * @return the result, with the user when the token is allowed
+     */
+    private TokenVerdictCache.Verdict check(String token) {
+        TokenValidationResult result = tokenValidationService.validate(token);
+        if (!result.isAllowed()) {
+            return new TokenVerdictCache.Verdict(result, null);
+        }
+        TokenStageEvent event = new TokenStageEvent();
+        event.begin();
+        UserDetails userDetails;
+        String stageOutcome = "not-found";
+        try {
+            userDetails = userDetailsService.loadUserByUsername(result.username());
+            stageOutcome = "found";
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = TokenStageEvent.USER_LOAD;
+                event.outcome = stageOutcome;
+                event.user = UserHashes.of(result.username());
+                event.commit();
+            }
+        }
+        if (!result.username().equals(userDetails.getUsername())) {
+            return new TokenVerdictCache.Verdict(result, null);
+        }
+        return new TokenVerdictCache.Verdict(result, userDetails);
+    }
+}
@@ -0,0 +1,344 @@
+package com.auth.security;
+
+import com.auth.client.Jwks;
+import com.auth.client.RoleClaims;
+import com.auth.model.Role;
+import com.auth.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * This class creates and reads jwt tokens.
+ *
+ * <p>Profiles ({@code jwt.profile}):
+ * - standard: {@code sub}, {@code roles} (list of names), {@code iat}, {@code exp}
+ * - compact: {@code sub}, {@code r} (role bitmask over {@code jwt.compact.role-table}), {@code iat}, {@code exp}
+ *
+ * <p>Tokens of both profiles are always accepted ({@link RoleClaims}), so the profile
+ * can be changed while old tokens are still live.
+ *
+ * <p>Signature ({@code jwt.algorithm}):
+ * - HS256: HMAC with {@code jwt.secret}. Every service that verifies tokens with the secret can also make them
+ * - ES256: ECDSA P-256 with {@code jwt.ec.private-key-file}. The token header has the key id ({@code kid});
+ *   the public keys (current and {@code jwt.ec.previous-public-key-files}) are published as a JWK set
+ *   ({@code GET /auth/jwks}), so other services verify tokens without being able to make them.
+ *   HS256 tokens are still accepted while {@code jwt.accept-hmac} is true (the move from HS256)
+ *
+ * <p>The keys and the parser are built once; JJWT parsers are thread safe.
+ * {@link #hasJwtShape(String, int)} rejects junk before any parsing or crypto.
+ *
+ * <p>Times are recorded in timer {@code auth.jwt} with tags
+ * {@code op} (generate, parse) and {@code outcome} (ok, expired, invalid).
+ */
+@Component
+public class JwtTokenProvider {
+
+    /** Longest token that is parsed; real tokens are a few hundred chars. */
+    static final int MAX_TOKEN_CHARS = 8192;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.expiration}")
+    private long expirationMs;
+
+    @Value("${jwt.profile:standard}")
+    private String profile = "standard";
+
+    @Value("${jwt.compact.role-table:ROLE_USER,ROLE_ADMIN}")
+    private List<String> roleTable = RoleClaims.DEFAULT_TABLE;
+
+    @Value("${jwt.algorithm:HS256}")
+    private String algorithm = "HS256";
+
+    @Value("${jwt.ec.private-key-file:}")
+    private String privateKeyFile = "";
+
+    @Value("${jwt.ec.public-key-file:}")
+    private String publicKeyFile = "";
+
+    @Value("${jwt.ec.previous-public-key-files:}")
+    private List<String> previousPublicKeyFiles = List.of();
+
+    @Value("${jwt.accept-hmac:true}")
+    private boolean acceptHmac = true;
+
+    private Key hmacKey;
+    private PrivateKey ecPrivateKey;
+    private String keyId;
+    private Map<String, ECPublicKey> publicKeys = Map.of();
+    private JwtParser parser;
+
+    public JwtTokenProvider(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        hmacKey = Keys.hmacShaKeyFor(secret.getBytes());
+        switch (algorithm) {
+            case "HS256" -> acceptHmac = true;
+            case "ES256" -> loadEcKeys();
+            default -> throw new IllegalStateException("jwt.algorithm must be HS256 or ES256: " + algorithm);
+        }
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return verificationKey(header);
+                    }
+                })
+                .build();
+        roleTable = List.copyOf(roleTable);
+        if (roleTable.size() > 63) {
+            throw new IllegalStateException("jwt.compact.role-table can have at most 63 roles");
+        }
+    }
+
+    /**
+     * This method returns the key that checks a token, chosen by the header algorithm.
+     * An HMAC key is never used for an EC token, or the other way round.
+     */
+    private Key verificationKey(JwsHeader<?> header) {
+        String tokenAlgorithm = header.getAlgorithm();
+        if ("HS256".equals(tokenAlgorithm) && acceptHmac) {
+            return hmacKey;
+        }
+        if ("ES256".equals(tokenAlgorithm) && !publicKeys.isEmpty()) {
+            ECPublicKey key = publicKeys.get(header.getKeyId());
+            if (key == null) {
+                throw new SignatureException("Unknown key id");
+            }
+            return key;
+        }
+        throw new UnsupportedJwtException("Algorithm not accepted: " + tokenAlgorithm);
+    }
+
+    private void loadEcKeys() {
+        if (privateKeyFile.isBlank() || publicKeyFile.isBlank()) {
+            throw new IllegalStateException("jwt.algorithm ES256 needs jwt.ec.private-key-file and jwt.ec.public-key-file");
+        }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            ecPrivateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(privateKeyFile)));
+            ECPublicKey current = Jwks.requireP256(keyFactory.generatePublic(new X509EncodedKeySpec(readPem(publicKeyFile))));
+            keyId = Jwks.keyId(current);
+            Map<String, ECPublicKey> keys = new LinkedHashMap<>();
+            keys.put(keyId, current);
+            for (String file : previousPublicKeyFiles) {
+                if (!file.isBlank()) {
+                    ECPublicKey previous = Jwks.requireP256(keyFactory.generatePublic(new X509EncodedKeySpec(readPem(file))));
+                    keys.putIfAbsent(Jwks.keyId(previous), previous);
+                }
+            }
+            publicKeys = Map.copyOf(keys);
+            // sign one value, so a private key that does not match the public key fails at start
+            Jwts.parserBuilder().setSigningKey(current).build()
+                    .parseClaimsJws(Jwts.builder().setSubject("check").signWith(ecPrivateKey, SignatureAlgorithm.ES256).compact());
+        } catch (GeneralSecurityException | IllegalArgumentException | io.jsonwebtoken.JwtException ex) {
+            throw new IllegalStateException("jwt.ec keys are not a valid P-256 key pair", ex);
+        }
+    }
+
+    /**
+     * This method reads the DER bytes of a PEM file (PKCS#8 private key or X.509 public key).
+     */
+    private static byte[] readPem(String file) {
+        try {
+            String pem = Files.readString(Path.of(file));
+            String base64 = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+            return Base64.getDecoder().decode(base64);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not read key file " + file, ex);
+        }
+    }
+
+    /**
+     * This method returns the public keys as JWKs, current key first. It is empty with HS256.
+     *
+     * @return JWKs
+     */
+    public List<Map<String, Object>> publicJwks() {
+        return publicKeys.values().stream()
+                .map(Jwks::toJwk)
+                .toList();
+    }
+
+    /**
+     * This method returns the role table of compact tokens.
+     *
+     * @return role names, bit 0 first
+     */
+    public List<String> getRoleTable() {
+        return roleTable;
+    }
+
+    /**
+     * This method creates a jwt token.
+     *
+     * @param user the user
+     * @return jwt string
+     */
+    public String generateToken(User user) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Date now = new Date();
+        Date expiry = new Date(now.getTime() + expirationMs);
+
+        List<String> roles = user.getRoles().stream()
+                .map(Role::getName)
+                .collect(Collectors.toList());
+
+        JwtBuilder builder = Jwts.builder()
+                .setSubject(user.getUsername());
+        if ("compact".equals(profile)) {
+            builder.claim(RoleClaims.ROLE_MASK, RoleClaims.mask(roles, roleTable));
+            List<String> others = RoleClaims.notInTable(roles, roleTable);
+            if (!others.isEmpty()) {
+                builder.claim(RoleClaims.ROLES, others);
+            }
+        } else {
+            builder.claim(RoleClaims.ROLES, roles);
+        }
+        builder.setIssuedAt(now)
+                .setExpiration(expiry);
+        if (ecPrivateKey != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, keyId)
+                    .signWith(ecPrivateKey, SignatureAlgorithm.ES256);
+        } else {
+            builder.signWith(hmacKey, SignatureAlgorithm.HS256);
+        }
+        String token = builder.compact();
+
+        sample.stop(meterRegistry.timer("auth.jwt", "op", "generate", "outcome", "ok"));
+        return token;
+    }
+
+    /**
+     * This method returns username from token.
+     *
+     * @param token the jwt token
+     * @return username
+     */
+    public String extractUsername(String token) {
+        return parseClaims(token).getSubject();
+    }
+
+    /**
+     * This method checks if token matches user.
+     *
+     * @param token       the jwt token
+     * @param userDetails the user details
+     * @return true when token belongs to user
+     */
+    public boolean isValid(String token, UserDetails userDetails) {
+        String username = extractUsername(token);
+        return username.equals(userDetails.getUsername());
+    }
+
+    /**
+     * This method returns expiration date from token.
+     *
+     * @param token the jwt token
+     * @return expiration date
+     */
+    public Date getExpiration(String token) {
+        return parseClaims(token).getExpiration();
+    }
+
+    /**
+     * This method checks that value, from offset on, looks like a signed jwt:
+     * three base64url parts, a JSON header ({@code eyJ}) and a signature.
+     * It does not allocate and does no crypto; a true answer is no proof of anything.
+     *
+     * @param value  the string with the token
+     * @param offset where the token starts (7 for an Authorization header)
+     * @return false when value can not be a jwt of this service
+     */
+    public static boolean hasJwtShape(String value, int offset) {
+        int length = value == null ? 0 : value.length() - offset;
+        if (length < 16 || length > MAX_TOKEN_CHARS || !value.startsWith("eyJ", offset)) {
+            return false;
+        }
+        int dots = 0;
+        int lastDot = offset - 1;
+        for (int i = offset; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                // no empty part
+                if (i == lastDot + 1 || ++dots > 2) {
+                    return false;
+                }
+                lastDot = i;
+            } else if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return dots == 2 && lastDot < value.length() - 1;
+    }
+
+    /**
+     * This method returns all claims of token in one parse.
+     *
+     * @param token the jwt token
+     * @return claims of token
+     */
+    public Claims getClaims(String token) {
+        return parseClaims(token);
+    }
+
+    /**
+     * This method checks signature and expiry and returns the claims.
+     *
+     * @param token the jwt token
+     * @return claims of token
+     */
+    private Claims parseClaims(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            outcome = "ok";
+            return claims;
+        } catch (ExpiredJwtException ex) {
+            outcome = "expired";
+            throw ex;
+        } finally {
+            sample.stop(meterRegistry.timer("auth.jwt", "op", "parse", "outcome", outcome));
+        }
+    }
+}
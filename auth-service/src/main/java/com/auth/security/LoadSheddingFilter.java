@@ -0,0 +1,171 @@
+package com.auth.security;
+
+import com.auth.dto.ErrorResponseDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * This filter sheds load before a request reaches Spring Security.
+ *
+ * <p>Requests are put in endpoint classes. Each class has its own
+ * {@link AdaptiveConcurrencyLimiter}:
+ * - credentials: login, Google login, signup (BCrypt, Google call, database)
+ * - refresh: token refresh (database and Redis)
+ * - authenticated: other {@code /auth} endpoints (Redis token check, cheap)
+ *
+ * <p>When a class is at its limit, the request gets 503 with {@code Retry-After}
+ * at once, without a token check or a database call. So a burst of logins can
+ * take only a bounded part of Tomcat threads and connections, and reads stay fast.
+ *
+ * <p>The revocation stream (SSE, long lived), admin endpoints (long downloads with own limits),
+ * actuator and API docs are not limited.
+ *
+ * <p>Metrics per class: gauges {@code auth.concurrency.limit} and
+ * {@code auth.concurrency.inflight}, counter {@code auth.concurrency.rejected}.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+@ConditionalOnProperty(name = "load-shedding.enabled", havingValue = "true", matchIfMissing = true)
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    /**
+     * This enum lists the endpoint classes.
+     */
+    public enum EndpointClass {
+        CREDENTIALS("credentials"),
+        REFRESH("refresh"),
+        AUTHENTICATED("authenticated");
+
+        private final String tag;
+
+        EndpointClass(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<EndpointClass, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+    private final byte[] rejectedBody;
+    private final String retryAfterSeconds;
+
+    public LoadSheddingFilter(MeterRegistry meterRegistry,
+                              @Value("${load-shedding.credentials.initial-limit:16}") int credentialsInitial,
+                              @Value("${load-shedding.credentials.min-limit:4}") int credentialsMin,
+                              @Value("${load-shedding.credentials.max-limit:64}") int credentialsMax,
+                              @Value("${load-shedding.refresh.initial-limit:32}") int refreshInitial,
+                              @Value("${load-shedding.refresh.min-limit:8}") int refreshMin,
+                              @Value("${load-shedding.refresh.max-limit:100}") int refreshMax,
+                              @Value("${load-shedding.authenticated.initial-limit:100}") int authenticatedInitial,
+                              @Value("${load-shedding.authenticated.min-limit:20}") int authenticatedMin,
+                              @Value("${load-shedding.authenticated.max-limit:400}") int authenticatedMax,
+                              @Value("${load-shedding.tolerance:2.0}") double tolerance,
+                              @Value("${load-shedding.smoothing:0.2}") double smoothing,
+                              @Value("${load-shedding.window-size:20}") int windowSize,
+                              @Value("${load-shedding.retry-after-seconds:1}") int retryAfterSeconds) {
+        limiters.put(EndpointClass.CREDENTIALS, new AdaptiveConcurrencyLimiter(
+                credentialsInitial, credentialsMin, credentialsMax, tolerance, smoothing, windowSize));
+        limiters.put(EndpointClass.REFRESH, new AdaptiveConcurrencyLimiter(
+                refreshInitial, refreshMin, refreshMax, tolerance, smoothing, windowSize));
+        limiters.put(EndpointClass.AUTHENTICATED, new AdaptiveConcurrencyLimiter(
+                authenticatedInitial, authenticatedMin, authenticatedMax, tolerance, smoothing, windowSize));
+
+        limiters.forEach((endpointClass, limiter) -> {
+            Gauge.builder("auth.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("class", endpointClass.tag)
+                    .register(meterRegistry);
+            Gauge.builder("auth.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("class", endpointClass.tag)
+                    .register(meterRegistry);
+            rejected.put(endpointClass, meterRegistry.counter("auth.concurrency.rejected", "class", endpointClass.tag));
+        });
+
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        try {
+            // written once, so a rejected request costs almost nothing
+            this.rejectedBody = new ObjectMapper().writeValueAsBytes(new ErrorResponseDto(
+                    HttpStatus.SERVICE_UNAVAILABLE.value(), "Server is busy, try again later"));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        EndpointClass endpointClass = classify(request);
+        if (endpointClass == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimiter limiter = limiters.get(endpointClass);
+        if (!limiter.tryAcquire()) {
+            rejected.get(endpointClass).increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", retryAfterSeconds);
+            response.setContentType("application/json");
+            response.setContentLength(rejectedBody.length);
+            response.getOutputStream().write(rejectedBody);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= 500;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    /**
+     * This method returns the limiter of endpoint class, for metrics and tests.
+     *
+     * @param endpointClass the endpoint class
+     * @return the limiter
+     */
+    public AdaptiveConcurrencyLimiter getLimiter(EndpointClass endpointClass) {
+        return limiters.get(endpointClass);
+    }
+
+    private static EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (!path.startsWith("/auth/") || path.startsWith("/auth/revocations") || path.startsWith("/auth/admin/")) {
+            return null;
+        }
+        if ("POST".equals(request.getMethod())) {
+            switch (path) {
+                case "/auth/login", "/auth/google", "/auth/signup" -> {
+                    return EndpointClass.CREDENTIALS;
+                }
+                case "/auth/refresh" -> {
+                    return EndpointClass.REFRESH;
+                }
+                default -> { }
+            }
+        }
+        return EndpointClass.AUTHENTICATED;
+    }
+}
@@ -0,0 +1,65 @@
+package com.auth.security;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class lists the paths that everyone can call.
+ *
+ * <p>On {@link #NO_TOKEN} paths the JWT filter does not run: a token sent there is not read,
+ * so it costs no parsing and no Redis call. Health is open too, but it still reads the token,
+ * because admins get details ({@code show-details: when-authorized}).
+ * Prometheus is not here: it is open only on the management port, see {@link SecurityConfig}.
+ *
+ * <p>Skipping the filter can only make a request anonymous; it never gives access.
+ */
+final class PublicPaths {
+
+    /** Paths without token processing. */
+    static final String[] NO_TOKEN = {
+            "/auth/login",
+            "/auth/google",
+            "/auth/signup",
+            "/auth/refresh",
+            "/auth/jwks",
+            "/swagger-ui/**",
+            "/v3/api-docs/**"
+    };
+
+    /** Paths open to everyone (permitAll). */
+    static final String[] PERMIT_ALL = Stream.concat(Arrays.stream(NO_TOKEN), Stream.of("/actuator/health/**"))
+            .toArray(String[]::new);
+
+    private static final Set<String> EXACT = Arrays.stream(NO_TOKEN)
+            .filter(path -> !path.endsWith("/**"))
+            .collect(Collectors.toUnmodifiableSet());
+
+    private static final String[] PREFIXES = Arrays.stream(NO_TOKEN)
+            .filter(path -> path.endsWith("/**"))
+            .map(path -> path.substring(0, path.length() - 2))
+            .toArray(String[]::new);
+
+    private PublicPaths() {
+    }
+
+    /**
+     * This method checks if path is a {@link #NO_TOKEN} path.
+     *
+     * @param path request path without context path
+     * @return true when the token is not needed
+     */
+    static boolean isNoToken(String path) {
+        if (EXACT.contains(path)) {
+            return true;
+        }
+        for (String prefix : PREFIXES) {
+            // "/swagger-ui/" also matches "/swagger-ui", like the ant pattern
+            if (path.startsWith(prefix) || path.length() == prefix.length() - 1 && prefix.startsWith(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,8 @@
 package com.auth.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -14,24 +17,39 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 /**
  * SecurityConfig sets security rules for Auth Service.
+ *
+ * <p>{@code /actuator/prometheus} is open only on the management port
+ * ({@code management.server.port}, not published outside the internal network).
+ * When actuator is on the API port, it needs {@code ROLE_ADMIN}.
  */
 @Configuration
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    private static final String PROMETHEUS = "/actuator/prometheus";
+
     private final JwtAuthFilter jwtAuthFilter;
     private final UserDetailsService userDetailsService;
     private final JwtAuthEntryPoint jwtAuthEntryPoint;
+    private final RequestMatcher prometheusOnManagementPort;
 
     public SecurityConfig(JwtAuthFilter jwtAuthFilter,
                           @Lazy UserDetailsService userDetailsService,
-                          JwtAuthEntryPoint jwtAuthEntryPoint) {
+                          JwtAuthEntryPoint jwtAuthEntryPoint,
+                          @Value("${server.port:8080}") int serverPort,
+                          @Value("${management.server.port:}") Integer managementPort) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.userDetailsService = userDetailsService;
         this.jwtAuthEntryPoint = jwtAuthEntryPoint;
+        RequestMatcher prometheus = new AntPathRequestMatcher(PROMETHEUS);
+        boolean ownPort = managementPort != null && managementPort > 0 && managementPort != serverPort;
+        this.prometheusOnManagementPort = request ->
+                ownPort && request.getLocalPort() == managementPort && prometheus.matches(request);
     }
 
     @Bean
@@ -41,12 +59,12 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/auth/login",
-                                "/auth/google",
-                                "/auth/signup",
-                                "/auth/refresh",
-                                "/swagger-ui/**",
-                                "/v3/api-docs/**").permitAll()
+                        // the request was checked on the first dispatch; async (SSE) and error
+                        // dispatches have no JWT filter, so they would become 401
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                        .requestMatchers(PublicPaths.PERMIT_ALL).permitAll()
+                        .requestMatchers(prometheusOnManagementPort).permitAll()
+                        .requestMatchers(PROMETHEUS).hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthEntryPoint))
@@ -56,8 +74,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,60 @@
+package com.auth.security;
+
+import com.auth.jfr.PasswordHashEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * This class records the time of password hashing.
+ *
+ * <p>Timer {@code auth.password} with tags {@code op} (encode, matches)
+ * and {@code outcome} (ok, match, mismatch), and JFR event {@link PasswordHashEvent}.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final MeterRegistry meterRegistry;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String encoded = delegate.encode(rawPassword);
+        sample.stop(meterRegistry.timer("auth.password", "op", "encode", "outcome", "ok"));
+        commit(event, "encode", "ok");
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+        String outcome = matches ? "match" : "mismatch";
+        sample.stop(meterRegistry.timer("auth.password", "op", "matches", "outcome", outcome));
+        commit(event, "matches", outcome);
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static void commit(PasswordHashEvent event, String operation, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.auth.security;
+
+import com.auth.dto.RevocationEventDto;
+import com.auth.service.RevocationEventService;
+import com.auth.service.TokenKeys;
+import com.auth.service.TokenValidationResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * This class shares token checks between requests with the same token.
+ *
+ * <p>A single-page app sends many calls at once with one token. Without this class
+ * each call parses the token, reads Redis two times and loads the user from database.
+ * Now:
+ * - single flight: while one check of a token runs, other requests with the same token
+ *   wait for its result, they do not start their own check
+ * - short verdict cache: the result is kept for {@code token-cache.ttl-ms} (default 1 s),
+ *   never longer than the token lives
+ *
+ * <p>Invalidation:
+ * - logout and logout-all on this node remove entries at once
+ * - logouts on other nodes come from the revocation stream (about 100 ms)
+ * - a check that was running while a logout happened is shared with the requests
+ *   that already wait for it, but it is not kept
+ *
+ * <p>Results of a Redis failure (unavailable, error) are never kept.
+ * When the cache is full, expired entries are removed; if it is still full,
+ * the check runs without cache.
+ *
+ * <p>Counter {@code auth.token.cache} with tag {@code result}: hit, shared, miss, bypass.
+ */
+@Component
+public class TokenVerdictCache {
+
+    /**
+     * This record is a cached check result: the result of token checks and the loaded user.
+     *
+     * @param result      the result of token checks
+     * @param userDetails the user, null when the token was not allowed
+     */
+    public record Verdict(TokenValidationResult result, UserDetails userDetails) { }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter shared;
+    private final Counter misses;
+    private final Counter bypassed;
+
+    public TokenVerdictCache(RevocationEventService revocationEventService,
+                             MeterRegistry meterRegistry,
+                             @Value("${token-cache.enabled:true}") boolean enabled,
+                             @Value("${token-cache.ttl-ms:1000}") long ttlMs,
+                             @Value("${token-cache.max-entries:10000}") int maxEntries) {
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxEntries = maxEntries;
+        this.hits = meterRegistry.counter("auth.token.cache", "result", "hit");
+        this.shared = meterRegistry.counter("auth.token.cache", "result", "shared");
+        this.misses = meterRegistry.counter("auth.token.cache", "result", "miss");
+        this.bypassed = meterRegistry.counter("auth.token.cache", "result", "bypass");
+        meterRegistry.gaugeMapSize("auth.token.cache.size", Tags.empty(), entries);
+        revocationEventService.addListener(this::onRevocation);
+    }
+
+    /**
+     * This method returns the check result of token.
+     * The loader runs at most once for requests that come at the same time.
+     *
+     * @param token  the access token string
+     * @param loader runs the token checks and loads the user
+     * @return the result
+     */
+    public Verdict get(String token, Function<String, Verdict> loader) {
+        if (!enabled) {
+            return loader.apply(token);
+        }
+
+        long now = System.nanoTime();
+        Entry existing = entries.get(token);
+        if (existing != null && existing.isUsable(now)) {
+            return existing.await(existing.future.isDone() ? hits : shared);
+        }
+
+        if (entries.size() >= maxEntries) {
+            removeExpired(now);
+            if (entries.size() >= maxEntries) {
+                bypassed.increment();
+                return loader.apply(token);
+            }
+        }
+
+        Entry created = new Entry(invalidations.get());
+        Entry entry = entries.compute(token, (key, current) ->
+                current != null && current.isUsable(now) ? current : created);
+        if (entry != created) {
+            return entry.await(entry.future.isDone() ? hits : shared);
+        }
+
+        misses.increment();
+        try {
+            Verdict verdict = loader.apply(token);
+            created.complete(token, verdict, keepUntil(verdict, created.startedAt));
+            return verdict;
+        } catch (RuntimeException ex) {
+            entries.remove(token, created);
+            created.future.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This method removes the cached result of token (logout on this node).
+     *
+     * @param token the access token string
+     */
+    public void invalidate(String token) {
+        invalidations.incrementAndGet();
+        entries.remove(token);
+    }
+
+    /**
+     * This method removes all cached results of user (logout-all on this node).
+     *
+     * @param username the owner of tokens
+     */
+    public void invalidateUser(String username) {
+        invalidations.incrementAndGet();
+        entries.values().removeIf(entry -> username.equals(entry.username));
+    }
+
+    private void onRevocation(RevocationEventDto event) {
+        invalidations.incrementAndGet();
+        if (RevocationEventDto.TYPE_USER.equals(event.type())) {
+            entries.values().removeIf(entry -> event.username().equals(entry.username));
+        } else {
+            entries.values().removeIf(entry -> event.tokenId().equals(entry.tokenId));
+        }
+    }
+
+    private long keepUntil(Verdict verdict, long startedAt) {
+        TokenValidationResult result = verdict.result();
+        return switch (result.status()) {
+            // Redis problems are not kept, the next request tries again
+            case UNAVAILABLE, ERROR -> startedAt;
+            case ALLOWED -> {
+                long tokenLeftNanos = TimeUnit.MILLISECONDS.toNanos(
+                        result.expiresAtMillis() - System.currentTimeMillis());
+                yield startedAt + Math.min(ttlNanos, Math.max(0, tokenLeftNanos));
+            }
+            default -> startedAt + ttlNanos;
+        };
+    }
+
+    private void removeExpired(long now) {
+        entries.values().removeIf(entry -> entry.future.isDone() && entry.expiresAt <= now);
+    }
+
+    /**
+     * This class is one cache entry: a running or finished check.
+     */
+    private final class Entry {
+
+        private final CompletableFuture<Verdict> future = new CompletableFuture<>();
+        private final long invalidationsAtStart;
+        private final long startedAt = System.nanoTime();
+        private volatile long expiresAt = Long.MAX_VALUE;
+        private volatile String username;
+        private volatile String tokenId;
+
+        private Entry(long invalidationsAtStart) {
+            this.invalidationsAtStart = invalidationsAtStart;
+        }
+
+        private boolean isUsable(long now) {
+            return !future.isDone() || now < expiresAt;
+        }
+
+        private void complete(String token, Verdict verdict, long keepUntil) {
+            username = verdict.result().username();
+            // only computed on a miss, used to match revocation events of other nodes
+            tokenId = TokenKeys.tokenId(token);
+            // a logout happened while the check ran: the result may be old, do not keep it
+            expiresAt = invalidations.get() == invalidationsAtStart ? keepUntil : startedAt;
+            future.complete(verdict);
+        }
+
+        private Verdict await(Counter counter) {
+            counter.increment();
+            try {
+                return future.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+    }
+}
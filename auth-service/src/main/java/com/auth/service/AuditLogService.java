@@ -0,0 +1,256 @@
+package com.auth.service;
+
+import com.auth.model.AuditEventType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This service writes the auth audit trail.
+ *
+ * <p>The request thread only puts the event in a bounded buffer.
+ * It never waits. When the buffer is full, the event is dropped and counted.
+ * One background thread takes events from the buffer and writes them
+ * to Postgres with one batch insert per flush.
+ *
+ * <p>It depends on the entity manager factory, so the buffer is drained on shutdown
+ * before Hibernate drops the schema ({@code ddl-auto: create-drop}).
+ */
+@Slf4j
+@Service
+@DependsOn("entityManagerFactory")
+public class AuditLogService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO auth_audit_log (event_type, username, success, reason, ip_address, user_agent, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // column lengths of AuthAuditLog: a longer value would make the insert fail
+    private static final int USERNAME_MAX = 150;
+    private static final int REASON_MAX = 200;
+    private static final int USER_AGENT_MAX = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<Entry> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AuditLogService(JdbcTemplate jdbcTemplate,
+                           @Value("${audit.buffer-size:8192}") int bufferSize,
+                           @Value("${audit.batch-size:500}") int batchSize,
+                           @Value("${audit.flush-interval-ms:200}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * This record is one event in the buffer.
+     */
+    private record Entry(AuditEventType type,
+                         String username,
+                         boolean success,
+                         String reason,
+                         String ipAddress,
+                         String userAgent,
+                         Instant createdAt) { }
+
+    /**
+     * This method starts the background writer.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::runWriter, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * This method stops the writer and writes all events left in buffer.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        log.info("Audit log stopped. accepted={}, written={}, dropped={}, failed={}",
+                accepted.get(), written.get(), dropped.get(), failed.get());
+    }
+
+    /**
+     * This method records a successful event.
+     *
+     * @param type     the event type
+     * @param username the username
+     */
+    public void success(AuditEventType type, String username) {
+        record(type, username, true, null);
+    }
+
+    /**
+     * This method records a failed event.
+     *
+     * @param type     the event type
+     * @param username the username, can be null
+     * @param reason   the short failure reason
+     */
+    public void failure(AuditEventType type, String username, String reason) {
+        record(type, username, false, reason);
+    }
+
+    /**
+     * This method puts one event in the buffer.
+     * IP and user agent are read from the current request.
+     * It does not block. If the buffer is full, the event is dropped.
+     */
+    private void record(AuditEventType type, String username, boolean success, String reason) {
+        String ipAddress = null;
+        String userAgent = null;
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            ipAddress = clientIp(request);
+            userAgent = truncate(request.getHeader("User-Agent"), USER_AGENT_MAX);
+        }
+
+        Entry entry = new Entry(type, truncate(username, USERNAME_MAX), success, truncate(reason, REASON_MAX),
+                ipAddress, userAgent, Instant.now());
+        if (buffer.offer(entry)) {
+            accepted.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * This method is the loop of background writer.
+     */
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Entry first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * This method writes one batch with a single batch insert.
+     * When the batch fails, its rows are written one by one, so a bad row
+     * does not drop the other events; only rows that fail again are counted as failed.
+     */
+    private void write(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setString(1, entry.type().name());
+                ps.setString(2, entry.username());
+                ps.setBoolean(3, entry.success());
+                ps.setString(4, entry.reason());
+                ps.setString(5, entry.ipAddress());
+                ps.setString(6, entry.userAgent());
+                ps.setTimestamp(7, Timestamp.from(entry.createdAt()));
+            });
+            written.addAndGet(batch.size());
+        } catch (RuntimeException ex) {
+            log.warn("Audit log batch write failed, writing rows one by one. size={}, error={}",
+                    batch.size(), ex.getMessage());
+            batch.forEach(this::writeOne);
+        }
+    }
+
+    private void writeOne(Entry entry) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, entry.type().name(), entry.username(), entry.success(),
+                    entry.reason(), entry.ipAddress(), entry.userAgent(), Timestamp.from(entry.createdAt()));
+            written.incrementAndGet();
+        } catch (RuntimeException ex) {
+            failed.incrementAndGet();
+            log.warn("Audit log row write failed. type={}, error={}", entry.type(), ex.getMessage());
+        }
+    }
+
+    /**
+     * This method returns the client address. X-Forwarded-For is not read here: it can be set by any caller.
+     * Behind a proxy, Tomcat puts the client address in remote address, but only when the header comes
+     * from a trusted proxy ({@code server.forward-headers-strategy} and
+     * {@code server.tomcat.remoteip.internal-proxies}).
+     */
+    private String clientIp(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    private String truncate(String value, int max) {
+        if (value == null || value.length() <= max) {
+            return value;
+        }
+        return value.substring(0, max);
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+}
@@ -0,0 +1,620 @@
+package com.auth.service;
+
+import com.auth.dto.*;
+import com.auth.exception.RefreshTokenException;
+import com.auth.exception.TokenStateUnavailableException;
+import com.auth.jfr.AuthOperationEvent;
+import com.auth.jfr.UserHashes;
+import com.auth.model.AuditEventType;
+import com.auth.model.RefreshToken;
+import com.auth.model.Role;
+import com.auth.model.User;
+import com.auth.repository.RefreshTokenRepository;
+import com.auth.repository.RoleRepository;
+import com.auth.repository.UserRepository;
+import com.auth.security.JwtTokenProvider;
+import com.auth.security.TokenVerdictCache;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * This class has the auth business logic.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuthService {
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final AuthenticationManager authenticationManager;
+    private final TokenStateService tokenStateService;
+    private final GoogleAuthService googleAuthService;
+    private final AuditLogService auditLogService;
+    private final UserActivityTracker userActivityTracker;
+    private final RecentRevocationCache recentRevocationCache;
+    private final RevocationEventService revocationEventService;
+    private final TokenVerdictCache tokenVerdictCache;
+    private final SignedRefreshTokenService signedRefreshTokenService;
+    private final RefreshGraceCache refreshGraceCache;
+
+    /**
+     * opaque: random refresh token, kept in database. signed: see {@link SignedRefreshTokenService}.
+     */
+    @Value("${refresh-token.format:opaque}")
+    private String refreshTokenFormat;
+
+    /**
+     * In signed mode: accept opaque refresh tokens made before the switch.
+     */
+    @Value("${refresh-token.accept-opaque:true}")
+    private boolean acceptOpaqueRefreshTokens;
+
+    @Value("${refresh-token.ttl-days:30}")
+    private long refreshTokenTtlDays;
+
+    /**
+     * This executor runs the Redis write while the Postgres write runs on the request thread.
+     * Virtual threads: the task only waits on I/O.
+     */
+    private final ExecutorService tokenStateExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * This method stops the token state executor on shutdown. The web server takes no new
+     * requests by now; allow-list writes of logins still in flight are awaited, so they
+     * end with their token written instead of a rejected task.
+     */
+    @PreDestroy
+    void stopTokenStateExecutor() throws InterruptedException {
+        tokenStateExecutor.shutdown();
+        if (!tokenStateExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Token state writes still running after 10 s, interrupting them");
+            tokenStateExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * This method creates a new user.
+     *
+     * @param username the username
+     * @param password the password
+     * @return auth response with token
+     */
+    public AuthResponseDto signup(String username, String password, String roleName) {
+
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("Username must not be blank");
+        }
+        if (username.length() < 3 || username.length() > 100) {
+            throw new IllegalArgumentException("Username must be between 3 and 100 characters");
+        }
+
+        if (password == null || password.isBlank()) {
+            throw new IllegalArgumentException("Password must not be blank");
+        }
+        if (password.length() < 8) {
+            throw new IllegalArgumentException("Password must be at least 8 characters");
+        }
+
+        if (roleName == null || roleName.isBlank()) {
+            throw new IllegalArgumentException("Role must not be blank");
+        }
+
+        if (userRepository.existsByUsername(username)) {
+            log.warn("Signup failed. Username already used: {}", username);
+            throw new IllegalStateException("Username is already used");
+        }
+
+        Role role = roleRepository.findByName(roleName)
+                .orElseThrow(() -> new IllegalStateException(roleName + " not found"));
+
+        User user = User.builder()
+                .username(username)
+                .password(passwordEncoder.encode(password))
+                .provider("LOCAL")
+                .roles(Set.of(role))
+                .build();
+
+        user = userRepository.save(user);
+
+        AuthResponseDto response = issueTokens(user);
+
+        userActivityTracker.recordLogin(user.getId());
+        log.info("Signup success. New user created: {}", user.getUsername());
+        return response;
+    }
+
+    /**
+     * This method creates a new user from dto.
+     *
+     * @param request signup dto
+     * @return auth response with token
+     */
+    public AuthResponseDto signup(SignupRequestDto request) {
+        return signup(request.username(), request.password(), request.role());
+    }
+
+    /**
+     * This method logs in the user.
+     *
+     * @param request login dto
+     * @return auth response with token
+     */
+    public AuthResponseDto login(LoginRequestDto request) {
+        return recorded(AuthOperationEvent.LOGIN, request.username(), () -> doLogin(request));
+    }
+
+    private AuthResponseDto doLogin(LoginRequestDto request) {
+
+        Authentication authenticationToken =
+                new UsernamePasswordAuthenticationToken(
+                        request.username(),
+                        request.password()
+                );
+
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(authenticationToken);
+        } catch (AuthenticationException ex) {
+            auditLogService.failure(AuditEventType.LOGIN_FAILED, request.username(), "Bad credentials");
+            throw ex;
+        }
+
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = (User) userDetails;
+
+        AuthResponseDto response = issueTokens(user);
+
+        userActivityTracker.recordLogin(user.getId());
+        auditLogService.success(AuditEventType.LOGIN, user.getUsername());
+        log.info("Login success for user: {}", user.getUsername());
+        return response;
+    }
+
+    /**
+     * This method creates new access token from refresh token.
+     * Repeats of the same token within {@code refresh-token.grace-ms} get the same new tokens,
+     * see {@link RefreshGraceCache}.
+     *
+     * @param request refresh token request
+     * @return auth response with new tokens
+     */
+    public AuthResponseDto refreshToken(RefreshTokenRequestDto request) {
+        return recorded(AuthOperationEvent.REFRESH, null,
+                () -> refreshGraceCache.get(request.refreshToken(), () -> doRefreshToken(request)));
+    }
+
+    private AuthResponseDto doRefreshToken(RefreshTokenRequestDto request) {
+
+        String token = request.refreshToken();
+
+        if (SignedRefreshTokenService.isSigned(token)) {
+            return refreshSignedToken(token);
+        }
+        if (isSignedFormat() && !(acceptOpaqueRefreshTokens && isOpaqueShape(token))) {
+            // not a token of this service, no need to ask the database
+            throw signedRefreshTokenService.malformed();
+        }
+
+        RefreshToken refreshToken = refreshTokenRepository.findByToken(token)
+                .orElseThrow(() -> refreshFailure(null, "Refresh token not found"));
+
+        if (refreshToken.isRevoked()) {
+            throw refreshFailure(refreshToken.getUser().getUsername(), "Refresh token is revoked");
+        }
+
+        if (refreshToken.getExpiryDate().isBefore(Instant.now())) {
+            throw refreshFailure(refreshToken.getUser().getUsername(), "Refresh token is expired");
+        }
+
+        User user = refreshToken.getUser();
+
+// just one time use refresh token
+        refreshToken.setRevoked(true);
+        refreshTokenRepository.save(refreshToken);
+
+        AuthResponseDto response = issueTokens(user);
+
+        userActivityTracker.recordSeen(user.getId());
+        auditLogService.success(AuditEventType.REFRESH, user.getUsername());
+        log.info("Refresh token success for user: {}", user.getUsername());
+        return response;
+    }
+
+    /**
+     * This method makes new tokens from a signed refresh token.
+     * Bad and used tokens are rejected before the database is asked.
+     *
+     * @param token the signed refresh token
+     * @return auth response with new tokens
+     */
+    private AuthResponseDto refreshSignedToken(String token) {
+        // rejected tokens make no audit event (no database write), they are counted in auth.refresh.rejected;
+        // only the first reuse of a family is audited, later tries find the family ended
+        SignedRefreshTokenService.Claims claims = signedRefreshTokenService.rotate(token, verified ->
+                auditLogService.failure(AuditEventType.REFRESH, null,
+                        "Refresh token reused, session ended (user id " + verified.userId() + ")"));
+
+        User user = userRepository.findById(claims.userId())
+                .orElseThrow(() -> refreshFailure(null, "User of refresh token not found"));
+        // the family was alive at logout on all devices; the generation just used is never given out
+        signedRefreshTokenService.checkIssuedAfter(claims, user.getSessionsRevokedAt());
+
+        AuthResponseDto response = issueTokens(user, () -> signedRefreshTokenService.next(claims));
+
+        userActivityTracker.recordSeen(user.getId());
+        auditLogService.success(AuditEventType.REFRESH, user.getUsername());
+        log.info("Refresh token success for user: {}", user.getUsername());
+        return response;
+    }
+
+    /**
+     * This method logs out the user.
+     * It moves the access token from allow-list to blacklist in one Redis step.
+     * The token is not parsed: the blacklist TTL is the TTL left in allow-list.
+     *
+     * @param user        the current user
+     * @param accessToken the current access token
+     */
+    public void logout(User user, String accessToken) {
+        recorded(AuthOperationEvent.LOGOUT, user != null ? user.getUsername() : null, () -> {
+            doLogout(user, accessToken);
+            return null;
+        });
+    }
+
+    private void doLogout(User user, String accessToken) {
+        if (accessToken == null || accessToken.isBlank()) {
+            log.warn("Logout called with empty token for user: {}",
+                    user != null ? user.getUsername() : "unknown");
+            return;
+        }
+
+        long ttlMillis;
+        try {
+            ttlMillis = tokenStateService.revoke(user.getUsername(), accessToken);
+        } catch (TokenStateUnavailableException ex) {
+            // keep it on this node, so it is rejected here while Redis is down
+            Date expirationDate = jwtTokenProvider.getExpiration(accessToken);
+            recentRevocationCache.add(accessToken, expirationDate.getTime());
+            throw ex;
+        } finally {
+            // the next request with this token must not get a cached "allowed"
+            tokenVerdictCache.invalidate(accessToken);
+        }
+
+        if (ttlMillis <= 0) {
+            log.info("Logout called with already expired token for user: {}",
+                    user.getUsername());
+            return;
+        }
+
+        // keep it on this node too, so it is rejected when Redis is down
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        recentRevocationCache.add(accessToken, expiresAt);
+        revocationEventService.publishToken(user.getUsername(), accessToken, expiresAt);
+
+        auditLogService.success(AuditEventType.LOGOUT, user.getUsername());
+        log.info("Logout success. Access token revoked in Redis for user: {}",
+                user.getUsername());
+    }
+
+    /**
+     * This method logs out the user on all devices.
+     * It ends all refresh tokens of user first (opaque rows are revoked, signed families
+     * issued before now are rejected), then revokes all live access tokens in one Redis step.
+     *
+     * @param user the current user
+     */
+    public void logoutAll(User user) {
+        recorded(AuthOperationEvent.LOGOUT_ALL, user.getUsername(), () -> {
+            doLogoutAll(user);
+            return null;
+        });
+    }
+
+    private void doLogoutAll(User user) {
+        // refresh tokens first: when Redis fails below, no device can get new access tokens
+        userRepository.updateSessionsRevokedAt(user.getId(), Instant.now());
+        int refreshTokens = refreshTokenRepository.revokeAllByUserId(user.getId());
+
+        long count;
+        try {
+            count = tokenStateService.revokeAll(user.getUsername());
+        } finally {
+            tokenVerdictCache.invalidateUser(user.getUsername());
+            refreshGraceCache.invalidateUser(user.getUsername());
+        }
+        revocationEventService.publishUser(user.getUsername());
+
+        auditLogService.success(AuditEventType.LOGOUT_ALL, user.getUsername());
+        log.info("Logout all success. {} access tokens and {} refresh tokens revoked for user: {}",
+                count, refreshTokens, user.getUsername());
+    }
+
+    /**
+     * This method runs action as a JFR event {@link AuthOperationEvent}.
+     * The username is hashed only when the event is recorded.
+     *
+     * @param operation the operation name
+     * @param username  the user, or null when it is known only from the response
+     * @param action    the operation
+     * @return result of action
+     */
+    private <T> T recorded(String operation, String username, Supplier<T> action) {
+        AuthOperationEvent event = new AuthOperationEvent();
+        event.begin();
+        String outcome = "ok";
+        String user = username;
+        try {
+            T result = action.get();
+            if (result instanceof AuthResponseDto response) {
+                user = response.username();
+            }
+            return result;
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.outcome = outcome;
+                event.user = UserHashes.of(user);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * This method makes access and refresh token for user.
+     * The Redis allow-list write and the Postgres refresh token insert
+     * do not depend on each other, so they run at the same time.
+     *
+     * @param user the user
+     * @return auth response with tokens
+     */
+    private AuthResponseDto issueTokens(User user) {
+        return issueTokens(user, () -> createRefreshToken(user));
+    }
+
+    /**
+     * This method makes access token for user and takes the refresh token from refreshTokenMaker.
+     *
+     * @param user              the user
+     * @param refreshTokenMaker makes the refresh token, runs while the allow-list is written
+     * @return auth response with tokens
+     */
+    private AuthResponseDto issueTokens(User user, Supplier<String> refreshTokenMaker) {
+        String accessToken = jwtTokenProvider.generateToken(user);
+        String username = user.getUsername();
+
+        CompletableFuture<Void> allowListWrite = CompletableFuture.runAsync(
+                () -> tokenStateService.issue(username, accessToken), tokenStateExecutor);
+
+        String refreshToken = refreshTokenMaker.get();
+
+        try {
+            allowListWrite.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+
+        return new AuthResponseDto("Bearer", accessToken, refreshToken, username);
+    }
+
+    /**
+     * This method records a failed refresh and makes the error.
+     *
+     * @param username the username, can be null
+     * @param message  the error text
+     * @return refresh token exception
+     */
+    private RefreshTokenException refreshFailure(String username, String message) {
+        auditLogService.failure(AuditEventType.REFRESH, username, message);
+        return new RefreshTokenException(message);
+    }
+
+    /**
+     * This method creates a new refresh token for user.
+     *
+     * @param user the user
+     * @return refresh token string
+     */
+    private String createRefreshToken(User user) {
+        if (isSignedFormat()) {
+            return signedRefreshTokenService.issue(user);
+        }
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUser(user);
+        refreshToken.setToken(UUID.randomUUID().toString());
+        refreshToken.setExpiryDate(Instant.now().plus(refreshTokenTtlDays, ChronoUnit.DAYS));
+        refreshToken.setRevoked(false);
+
+        refreshToken = refreshTokenRepository.save(refreshToken);
+        return refreshToken.getToken();
+    }
+
+    private boolean isSignedFormat() {
+        return "signed".equals(refreshTokenFormat);
+    }
+
+    /**
+     * This method checks if token looks like an opaque refresh token (a UUID string).
+     */
+    private static boolean isOpaqueShape(String token) {
+        if (token == null || token.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            boolean ok = (i == 8 || i == 13 || i == 18 || i == 23)
+                    ? c == '-'
+                    : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method makes login with Google.
+     * It takes Google idToken.
+     * It checks idToken.
+     * If user not exist, it makes new Google user.
+     * It sets username = email.
+     * It makes random password and hash it.
+     * It makes access token and refresh token.
+     */
+    public AuthResponseDto loginWithGoogle(GoogleLoginRequestDto request) {
+        return recorded(AuthOperationEvent.GOOGLE_LOGIN, null, () -> doLoginWithGoogle(request));
+    }
+
+    private AuthResponseDto doLoginWithGoogle(GoogleLoginRequestDto request) {
+
+        // check Google id token
+        GoogleUserInfoDto googleUser;
+        try {
+            googleUser = googleAuthService.verifyIdToken(request.idToken());
+        } catch (IllegalStateException ex) {
+            auditLogService.failure(AuditEventType.GOOGLE_LOGIN, null, ex.getMessage());
+            throw ex;
+        }
+
+        // find user by email and provider GOOGLE
+        Optional<User> optionalUser =
+                userRepository.findByEmailAndProvider(googleUser.email(), "GOOGLE");
+
+        User user = optionalUser.orElseGet(() -> createGoogleUser(googleUser));
+
+        // make JWT tokens and add access token to allow-list
+        AuthResponseDto response = issueTokens(user);
+
+        userActivityTracker.recordLogin(user.getId());
+        auditLogService.success(AuditEventType.GOOGLE_LOGIN, user.getUsername());
+        log.info("Google login success for user: {}", user.getUsername());
+
+        return response;
+    }
+
+    /**
+     * This method makes new Google user from Google data.
+     * It sets username = email.
+     * It sets provider = GOOGLE.
+     * It makes random password (strong).
+     * It hashes password.
+     */
+    private User createGoogleUser(GoogleUserInfoDto googleUser) {
+
+        String randomPassword = generateRandomPassword();
+        String encodedPassword = passwordEncoder.encode(randomPassword);
+
+        Role userRole = roleRepository.findByName("ROLE_USER")
+                .orElseThrow(() -> new IllegalStateException("ROLE_USER not found"));
+
+        User newUser = User.builder()
+                .username(googleUser.email())
+                .email(googleUser.email())
+                .password(encodedPassword)
+                .provider("GOOGLE")
+                .providerId(googleUser.sub())
+                .roles(Set.of(userRole))
+                .build();
+
+        return userRepository.save(newUser);
+    }
+
+    /**
+     * This method makes strong random password.
+     * It uses big letters, small letters, numbers.
+     */
+    private String generateRandomPassword() {
+        int length = 16;
+        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ"
+                + "abcdefghijklmnopqrstuvwxyz"
+                + "0123456789";
+
+        SecureRandom random = new SecureRandom();
+
+        StringBuilder password = new StringBuilder();
+
+        for (int i = 0; i < length; i++) {
+            int index = random.nextInt(chars.length());
+            password.append(chars.charAt(index));
+        }
+
+        return password.toString();
+    }
+
+
+    public UserProfileDto me(User user) {
+        List<String> roles = user.getRoles().stream()
+                .map(Role::getName)
+                .toList();
+
+        return new UserProfileDto(
+                user.getId(),
+                user.getUsername(),
+                roles
+        );
+    }
+
+    /**
+     * This method returns the strong ETag of profile of user.
+     * It is made from the fields of profile and the update time, so it changes
+     * when the profile changes. It needs no database call and no JSON.
+     *
+     * @param user the current user
+     * @return quoted ETag value
+     */
+    public String profileEtag(User user) {
+        StringBuilder version = new StringBuilder()
+                .append(user.getId()).append('|')
+                .append(user.getUsername()).append('|')
+                .append(user.getUpdatedAt());
+        user.getRoles().stream()
+                .map(Role::getName)
+                .sorted()
+                .forEach(role -> version.append('|').append(role));
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(version.toString().getBytes(StandardCharsets.UTF_8));
+            // 16 bytes are enough to see a change
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
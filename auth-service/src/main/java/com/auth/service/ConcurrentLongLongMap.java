@@ -0,0 +1,247 @@
+package com.auth.service;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * This class is a concurrent hash map from {@code long} to {@code long}, without boxing.
+ *
+ * <p>The map is split in stripes. Each stripe is an open addressing table
+ * (two {@code long[]}, linear probing) with its own {@link StampedLock}:
+ * - reads are optimistic, they take no lock unless a write happened at the same time
+ * - writes lock one stripe only
+ * - removal shifts the next entries back, so there are no tombstones
+ *
+ * <p>One entry costs 16 bytes per slot; tables grow at 60% load, so memory is
+ * about 27 to 53 bytes per entry.
+ *
+ * <p>Key {@code 0} and value {@code 0} are reserved: 0 means "no entry".
+ */
+final class ConcurrentLongLongMap {
+
+    private static final long EMPTY = 0L;
+    private static final double MAX_LOAD = 0.6;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    /**
+     * This constructor builds a map.
+     *
+     * @param stripes         number of stripes, rounded up to a power of two
+     * @param initialCapacity start capacity of each stripe, rounded up to a power of two
+     */
+    ConcurrentLongLongMap(int stripes, int initialCapacity) {
+        int count = powerOfTwo(Math.max(1, stripes));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(powerOfTwo(Math.max(8, initialCapacity)));
+        }
+        // stripe is chosen by the high bits, slot by the low bits of key
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * This method returns the value of key.
+     *
+     * @param key the key, not 0
+     * @return the value, or 0 when there is no entry
+     */
+    long get(long key) {
+        return stripe(key).get(key);
+    }
+
+    /**
+     * This method sets the value of key.
+     *
+     * @param key   the key, not 0
+     * @param value the value, not 0
+     */
+    void put(long key, long value) {
+        stripe(key).compute(key, current -> value);
+    }
+
+    /**
+     * This method changes the value of key in one atomic step.
+     *
+     * @param key      the key, not 0
+     * @param function gets the current value (0 when there is no entry),
+     *                 returns the new value (0 removes the entry)
+     * @return the new value
+     */
+    long compute(long key, LongUnaryOperator function) {
+        return stripe(key).compute(key, function);
+    }
+
+    /**
+     * This method returns the number of entries.
+     *
+     * @return entries in all stripes
+     */
+    long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    /**
+     * This method returns the number of slots, for memory estimates.
+     *
+     * @return slots in all stripes
+     */
+    long capacity() {
+        long capacity = 0;
+        for (Stripe stripe : stripes) {
+            capacity += stripe.table.keys.length;
+        }
+        return capacity;
+    }
+
+    private Stripe stripe(long key) {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (key >>> stripeShift)];
+    }
+
+    private static int powerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * This record is the table of one stripe. It is replaced as a whole when the stripe grows,
+     * so a reader never sees keys and values of different sizes.
+     */
+    private record Table(long[] keys, long[] values, int mask) {
+
+        Table(int capacity) {
+            this(new long[capacity], new long[capacity], capacity - 1);
+        }
+    }
+
+    private static final class Stripe {
+
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table;
+        private volatile int size;
+
+        private Stripe(int capacity) {
+            this.table = new Table(capacity);
+        }
+
+        private long get(long key) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                long value = find(table, key);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(table, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private long compute(long key, LongUnaryOperator function) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int index = (int) key & current.mask;
+                while (true) {
+                    long found = current.keys[index];
+                    if (found == key) {
+                        long value = function.applyAsLong(current.values[index]);
+                        if (value == EMPTY) {
+                            delete(current, index);
+                            size = size - 1;
+                        } else {
+                            current.values[index] = value;
+                        }
+                        return value;
+                    }
+                    if (found == EMPTY) {
+                        long value = function.applyAsLong(EMPTY);
+                        if (value != EMPTY) {
+                            current.keys[index] = key;
+                            current.values[index] = value;
+                            size = size + 1;
+                            if (size > current.keys.length * MAX_LOAD) {
+                                table = grow(current);
+                            }
+                        }
+                        return value;
+                    }
+                    index = (index + 1) & current.mask;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private static long find(Table table, long key) {
+            long[] keys = table.keys;
+            int mask = table.mask;
+            int index = (int) key & mask;
+            // bounded loop: under an optimistic read the table can change, validate() catches it
+            for (int probes = 0; probes <= mask; probes++) {
+                long found = keys[index];
+                if (found == key) {
+                    return table.values[index];
+                }
+                if (found == EMPTY) {
+                    return EMPTY;
+                }
+                index = (index + 1) & mask;
+            }
+            return EMPTY;
+        }
+
+        /**
+         * This method removes the entry at index and moves back the next entries
+         * of the same probe run, so lookups do not need tombstones.
+         */
+        private static void delete(Table table, int index) {
+            long[] keys = table.keys;
+            long[] values = table.values;
+            int mask = table.mask;
+            int hole = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                long key = keys[next];
+                if (key == EMPTY) {
+                    break;
+                }
+                int home = (int) key & mask;
+                boolean stays = hole <= next
+                        ? hole < home && home <= next
+                        : hole < home || home <= next;
+                if (!stays) {
+                    keys[hole] = key;
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = EMPTY;
+            values[hole] = EMPTY;
+        }
+
+        private static Table grow(Table old) {
+            Table bigger = new Table(old.keys.length * 2);
+            for (int i = 0; i < old.keys.length; i++) {
+                long key = old.keys[i];
+                if (key != EMPTY) {
+                    int index = (int) key & bigger.mask;
+                    while (bigger.keys[index] != EMPTY) {
+                        index = (index + 1) & bigger.mask;
+                    }
+                    bigger.keys[index] = key;
+                    bigger.values[index] = old.values[i];
+                }
+            }
+            return bigger;
+        }
+    }
+}
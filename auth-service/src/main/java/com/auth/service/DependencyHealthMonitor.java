@@ -0,0 +1,266 @@
+package com.auth.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * This service checks the dependencies of Auth Service in the background:
+ * - redis: {@code PING}
+ * - db: {@code SELECT 1}
+ * - eureka: list of registered services (from the local Eureka client cache)
+ *
+ * <p>Health endpoints read the last result, so a health check never calls a
+ * dependency and never waits for it. Probes are started by an own scheduler thread, not by the
+ * shared {@code @Scheduled} thread: a slow job there (user activity flush) would delay the probes
+ * and make healthy dependencies look stale. Each dependency gets at most one running probe:
+ * when a probe hangs, the next ones are skipped and the result becomes DOWN
+ * after {@code health.probe.timeout-ms}.
+ *
+ * <p>With {@code token-store.type: memory} Redis is not used, so it is not probed.
+ *
+ * <p>Probe times are recorded in timer {@code auth.health.probe} with tags
+ * {@code dependency} and {@code outcome} (up, down). The last
+ * {@code health.probe.history-size} times of each dependency are kept for the
+ * health details (p50, p99, max).
+ */
+@Slf4j
+@Service
+public class DependencyHealthMonitor {
+
+    public static final String REDIS = "redis";
+    public static final String DATABASE = "db";
+    public static final String EUREKA = "eureka";
+
+    /**
+     * This enum lists the results of a probe.
+     */
+    public enum State {
+        UP,
+        DOWN,
+        EMPTY,
+        UNKNOWN
+    }
+
+    /**
+     * This record is the last known health of one dependency.
+     *
+     * @param state               result of the last probe
+     * @param detail              answer or error of the last probe
+     * @param checkedAt           end of the last probe, null before the first one
+     * @param lastLatencyMs       time of the last probe
+     * @param p50LatencyMs        median of recent probe times
+     * @param p99LatencyMs        99th percentile of recent probe times
+     * @param maxLatencyMs        max of recent probe times
+     * @param consecutiveFailures failed probes in a row
+     */
+    public record Snapshot(State state,
+                           String detail,
+                           Instant checkedAt,
+                           double lastLatencyMs,
+                           double p50LatencyMs,
+                           double p99LatencyMs,
+                           double maxLatencyMs,
+                           int consecutiveFailures) {
+    }
+
+    private final Map<String, Probe> probes = new LinkedHashMap<>();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("health-probe-", 0).factory());
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("health-probe-scheduler").daemon().factory());
+    private final MeterRegistry meterRegistry;
+    private final long intervalMs;
+    private final long timeoutMs;
+    private final long staleAfterMs;
+    private final String unusedDetail;
+
+    public DependencyHealthMonitor(RedisTemplate<String, String> redisTemplate,
+                                   DataSource dataSource,
+                                   DiscoveryClient discoveryClient,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${token-store.type:redis}") String tokenStoreType,
+                                   @Value("${health.probe.interval-ms:5000}") long intervalMs,
+                                   @Value("${health.probe.timeout-ms:2000}") long timeoutMs,
+                                   @Value("${health.probe.history-size:120}") int historySize) {
+        this.meterRegistry = meterRegistry;
+        this.intervalMs = intervalMs;
+        this.timeoutMs = timeoutMs;
+        this.staleAfterMs = intervalMs * 3 + timeoutMs;
+
+        // own template: a probe must not wait longer than the timeout for the query
+        JdbcTemplate probeJdbcTemplate = new JdbcTemplate(dataSource);
+        probeJdbcTemplate.setQueryTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs)));
+
+        if ("redis".equals(tokenStoreType)) {
+            probes.put(REDIS, new Probe(historySize, () -> {
+                String answer = redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+                return new Result(State.UP, "PING " + answer);
+            }));
+        }
+        this.unusedDetail = "Not used (token-store.type=" + tokenStoreType + ")";
+        probes.put(DATABASE, new Probe(historySize, () -> {
+            probeJdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return new Result(State.UP, "SELECT 1");
+        }));
+        probes.put(EUREKA, new Probe(historySize, () -> {
+            var services = discoveryClient.getServices();
+            return services.isEmpty()
+                    ? new Result(State.EMPTY, "No services registered")
+                    : new Result(State.UP, "Registered services: " + String.join(", ", services));
+        }));
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::probeAll, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This method starts one probe per dependency.
+     * A dependency whose last probe still runs is skipped.
+     */
+    public void probeAll() {
+        probes.forEach((name, probe) -> {
+            if (probe.running.compareAndSet(false, true)) {
+                probe.startedAt = System.currentTimeMillis();
+                executor.execute(() -> run(name, probe));
+            }
+        });
+    }
+
+    /**
+     * This method returns the last known health of dependency. It does no I/O.
+     * A dependency that is not used in this mode is UNKNOWN.
+     *
+     * @param dependency {@link #REDIS}, {@link #DATABASE} or {@link #EUREKA}
+     * @return the snapshot
+     */
+    public Snapshot snapshot(String dependency) {
+        Probe probe = probes.get(dependency);
+        if (probe == null) {
+            if (!REDIS.equals(dependency)) {
+                throw new IllegalArgumentException("Unknown dependency: " + dependency);
+            }
+            return new Snapshot(State.UNKNOWN, unusedDetail, null, 0, 0, 0, 0, 0);
+        }
+        return probe.snapshot(System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void run(String name, Probe probe) {
+        long start = System.nanoTime();
+        Result result;
+        try {
+            result = probe.check.get();
+        } catch (Exception ex) {
+            result = new Result(State.DOWN, ex.getClass().getSimpleName() + ": " + ex.getMessage());
+        }
+        long nanos = System.nanoTime() - start;
+        Timer.builder("auth.health.probe")
+                .tag("dependency", name)
+                .tag("outcome", result.state() == State.DOWN ? "down" : "up")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (result.state() == State.DOWN) {
+            log.warn("Health probe {} failed: {}", name, result.detail());
+        }
+        probe.record(result, nanos / 1_000_000.0);
+    }
+
+    private record Result(State state, String detail) {
+    }
+
+    /**
+     * This class keeps the state of one dependency.
+     */
+    private final class Probe {
+
+        private final Supplier<Result> check;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final double[] history;
+        private volatile long startedAt;
+
+        // guarded by this
+        private int historyCount;
+        private int historyNext;
+        private Result last;
+        private Instant checkedAt;
+        private long checkedAtMillis;
+        private double lastLatencyMs;
+        private int consecutiveFailures;
+
+        private Probe(int historySize, Supplier<Result> check) {
+            this.check = check;
+            this.history = new double[Math.max(1, historySize)];
+        }
+
+        private synchronized void record(Result result, double latencyMs) {
+            last = result;
+            checkedAtMillis = System.currentTimeMillis();
+            checkedAt = Instant.ofEpochMilli(checkedAtMillis);
+            lastLatencyMs = latencyMs;
+            consecutiveFailures = result.state() == State.DOWN ? consecutiveFailures + 1 : 0;
+            history[historyNext] = latencyMs;
+            historyNext = (historyNext + 1) % history.length;
+            historyCount = Math.min(historyCount + 1, history.length);
+            running.set(false);
+        }
+
+        private synchronized Snapshot snapshot(long now) {
+            double[] recent = Arrays.copyOf(history, historyCount);
+            Arrays.sort(recent);
+            double p50 = percentile(recent, 0.50);
+            double p99 = percentile(recent, 0.99);
+            double max = recent.length == 0 ? 0 : recent[recent.length - 1];
+
+            if (running.get() && now - startedAt > timeoutMs) {
+                return new Snapshot(State.DOWN, "No answer for " + (now - startedAt) + " ms",
+                        checkedAt, lastLatencyMs, p50, p99, max, consecutiveFailures + 1);
+            }
+            if (last == null) {
+                return new Snapshot(State.UNKNOWN, "Not checked yet", null, 0, 0, 0, 0, 0);
+            }
+            if (now - checkedAtMillis > staleAfterMs) {
+                return new Snapshot(State.DOWN, "Last check is too old", checkedAt,
+                        lastLatencyMs, p50, p99, max, consecutiveFailures);
+            }
+            return new Snapshot(last.state(), last.detail(), checkedAt,
+                    lastLatencyMs, p50, p99, max, consecutiveFailures);
+        }
+
+        private static double percentile(double[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.auth.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This service keeps a JDK Flight Recorder recording and dumps it on demand.
+ *
+ * <p>At start it runs a continuous recording with the JDK "default" settings
+ * (made for production, about 1% overhead) plus the auth events of package {@code com.auth.jfr}.
+ * It is bounded by {@code jfr.max-age} and {@code jfr.max-size-mb}. When a recording
+ * is already running (JVM flag {@code -XX:StartFlightRecording}), no second one is started.
+ *
+ * <p>{@link #dump(Duration)} writes a snapshot of all running recordings, limited to the
+ * last {@code maxAge}, to a temporary file. Only one dump runs at a time.
+ *
+ * <p>Some JDK events copy secrets into the recording: environment variables (JWT_SECRET,
+ * passwords), system properties, the JVM and program arguments ({@code --jwt.secret=...})
+ * and the command lines of other processes. They are off in the own recording, and a dump
+ * never contains them, also when it comes from a recording started with {@code -XX:StartFlightRecording}.
+ */
+@Slf4j
+@Service
+public class FlightRecordingService {
+
+    /** Events that can hold secrets, see the class comment. */
+    static final Set<String> SENSITIVE_EVENTS = Set.of(
+            "jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty",
+            "jdk.JVMInformation",
+            "jdk.SystemProcess");
+
+    private final AtomicBoolean dumping = new AtomicBoolean();
+
+    @Value("${jfr.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jfr.max-age:10m}")
+    private Duration maxAge;
+
+    @Value("${jfr.max-size-mb:64}")
+    private long maxSizeMb;
+
+    private Recording recording;
+
+    @PostConstruct
+    void start() {
+        if (!enabled || !FlightRecorder.isAvailable()) {
+            return;
+        }
+        if (isRecording()) {
+            log.info("Flight recording already running, the auth events are added to it");
+            return;
+        }
+        try {
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            SENSITIVE_EVENTS.forEach(event -> settings.put(event + "#enabled", "false"));
+            recording = new Recording(settings);
+        } catch (IOException | ParseException ex) {
+            log.warn("Flight recording not started: {}", ex.getMessage());
+            return;
+        }
+        recording.setName("auth-service");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeMb * 1024 * 1024);
+        recording.start();
+        log.info("Flight recording started (max age {}, max size {} MB)", maxAge, maxSizeMb);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * This method writes the recorded data of the last maxAge to a temporary file,
+     * without the {@link #SENSITIVE_EVENTS}. The caller must delete the file.
+     *
+     * @param requestedMaxAge how far back, capped at {@code jfr.max-age}
+     * @return the file (JFR format)
+     */
+    public Path dump(Duration requestedMaxAge) {
+        if (!FlightRecorder.isAvailable() || !isRecording()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No flight recording is running");
+        }
+        if (!dumping.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "A recording dump is already running");
+        }
+        Path raw = null;
+        try (Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+            Duration age = requestedMaxAge.compareTo(maxAge) < 0 ? requestedMaxAge : maxAge;
+            snapshot.setMaxAge(age);
+            snapshot.setMaxSize(maxSizeMb * 1024 * 1024);
+            raw = Files.createTempFile("auth-service-raw-", ".jfr");
+            snapshot.dump(raw);
+            // a recording started with -XX:StartFlightRecording may have recorded them
+            Path file = Files.createTempFile("auth-service-", ".jfr");
+            try (RecordingFile recordingFile = new RecordingFile(raw)) {
+                recordingFile.write(file, event -> !SENSITIVE_EVENTS.contains(event.getEventType().getName()));
+            } catch (IOException | RuntimeException ex) {
+                Files.deleteIfExists(file);
+                throw ex;
+            }
+            log.info("Flight recording dumped: last {}, {} bytes", age, Files.size(file));
+            return file;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Flight recording dump failed", ex);
+        } finally {
+            deleteQuietly(raw);
+            dumping.set(false);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Temporary recording {} not deleted: {}", file, ex.getMessage());
+        }
+    }
+
+    private static boolean isRecording() {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .anyMatch(r -> r.getState() == RecordingState.RUNNING);
+    }
+}
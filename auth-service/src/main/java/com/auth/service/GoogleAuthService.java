@@ -1,6 +1,8 @@
 package com.auth.service;
 
 import com.auth.dto.GoogleUserInfoDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
@@ -10,17 +12,45 @@ import org.springframework.web.client.RestTemplate;
 
 import java.util.Map;
 
+/**
+ * This service checks Google id tokens with the Google tokeninfo endpoint.
+ * Times are recorded in timer {@code auth.google.verify} with tag {@code outcome} (ok, invalid, error).
+ */
 @Service
 @RequiredArgsConstructor
 public class GoogleAuthService {
 
     private final RestTemplate restTemplate = new RestTemplate();
+    private final MeterRegistry meterRegistry;
 
     @Value("${google.client-id}")
     private String clientId;
 
+    /**
+     * Google tokeninfo endpoint. It can be changed for tests.
+     */
+    @Value("${google.tokeninfo-url:https://oauth2.googleapis.com/tokeninfo}")
+    private String tokenInfoUrl;
+
     public GoogleUserInfoDto verifyIdToken(String idToken) {
-        String url = "https://oauth2.googleapis.com/tokeninfo?id_token=" + idToken;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
+        try {
+            GoogleUserInfoDto userInfo = callTokenInfo(idToken);
+            outcome = "ok";
+            return userInfo;
+        } catch (IllegalStateException ex) {
+            if (ex.getCause() instanceof RestClientException) {
+                outcome = "error";
+            }
+            throw ex;
+        } finally {
+            sample.stop(meterRegistry.timer("auth.google.verify", "outcome", outcome));
+        }
+    }
+
+    private GoogleUserInfoDto callTokenInfo(String idToken) {
+        String url = tokenInfoUrl + "?id_token=" + idToken;
 
         try {
             @SuppressWarnings("unchecked")
@@ -0,0 +1,189 @@
+package com.auth.service;
+
+import java.util.Arrays;
+
+/**
+ * This class finds expired entries without a timer per entry and without scanning all entries.
+ *
+ * <p>Time is cut in ticks ({@code tickMillis}). The wheel has {@code wheelSize} buckets;
+ * an entry that expires in tick {@code t} goes to bucket {@code t % wheelSize}.
+ * Each tick only one bucket is read: expired entries are given to the handler, entries
+ * for a later round (TTL longer than one turn of the wheel) stay in the bucket.
+ *
+ * <p>A bucket is four arrays (key, value, expiry, owner), so one entry costs about 32 bytes.
+ * Adding takes the lock of one bucket only.
+ *
+ * <p>{@link #advance(long)} must be called by one thread only.
+ */
+final class HashedTimingWheel {
+
+    /**
+     * This interface gets the expired entries.
+     */
+    interface ExpiryHandler {
+
+        void expire(long key, long value, Object owner);
+    }
+
+    private final long tickMillis;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final ExpiryHandler handler;
+
+    // only used by the thread that calls advance()
+    private long currentTick;
+
+    /**
+     * This constructor builds a wheel.
+     *
+     * @param tickMillis length of one tick
+     * @param wheelSize  number of buckets, rounded up to a power of two
+     * @param nowMillis  the current time
+     * @param handler    gets the expired entries
+     */
+    HashedTimingWheel(long tickMillis, int wheelSize, long nowMillis, ExpiryHandler handler) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.handler = handler;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * This method adds an entry.
+     *
+     * @param key             the key of entry
+     * @param value           the value, given back to the handler
+     * @param expiresAtMillis the time when the entry expires
+     * @param owner           any object, given back to the handler
+     */
+    void schedule(long key, long value, long expiresAtMillis, Object owner) {
+        // round up, so the entry is not read before it expires
+        long tick = (expiresAtMillis + tickMillis - 1) / tickMillis;
+        buckets[(int) (tick & mask)].add(key, value, expiresAtMillis, owner);
+    }
+
+    /**
+     * This method reads the buckets of all ticks up to now.
+     *
+     * @param nowMillis the current time
+     * @return number of expired entries
+     */
+    int advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        int expired = 0;
+        if (targetTick - currentTick >= buckets.length) {
+            // more than one turn was missed (example: long GC pause), read every bucket once
+            for (Bucket bucket : buckets) {
+                expired += bucket.expire(nowMillis, handler);
+            }
+            currentTick = targetTick;
+            return expired;
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            expired += buckets[(int) (currentTick & mask)].expire(nowMillis, handler);
+        }
+        return expired;
+    }
+
+    /**
+     * This method returns the number of entries in the wheel.
+     *
+     * @return entries in all buckets
+     */
+    long size() {
+        long size = 0;
+        for (Bucket bucket : buckets) {
+            size += bucket.size;
+        }
+        return size;
+    }
+
+    private static final class Bucket {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private long[] expiries = new long[INITIAL_CAPACITY];
+        private Object[] owners = new Object[INITIAL_CAPACITY];
+        private volatile int size;
+
+        private synchronized void add(long key, long value, long expiresAt, Object owner) {
+            int index = size;
+            if (index == keys.length) {
+                int capacity = keys.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+                expiries = Arrays.copyOf(expiries, capacity);
+                owners = Arrays.copyOf(owners, capacity);
+            }
+            keys[index] = key;
+            values[index] = value;
+            expiries[index] = expiresAt;
+            owners[index] = owner;
+            size = index + 1;
+        }
+
+        /**
+         * This method gives expired entries to the handler and keeps the others.
+         * The handler runs outside the lock of bucket. Nothing is allocated when
+         * no entry expired (the usual tick: entries of later rounds only).
+         */
+        private int expire(long nowMillis, ExpiryHandler handler) {
+            long[] expiredKeys;
+            long[] expiredValues;
+            Object[] expiredOwners;
+            int count = 0;
+            synchronized (this) {
+                int total = size;
+                for (int i = 0; i < total; i++) {
+                    if (expiries[i] <= nowMillis) {
+                        count++;
+                    }
+                }
+                if (count == 0) {
+                    return 0;
+                }
+                expiredKeys = new long[count];
+                expiredValues = new long[count];
+                expiredOwners = new Object[count];
+                count = 0;
+                int kept = 0;
+                for (int i = 0; i < total; i++) {
+                    if (expiries[i] <= nowMillis) {
+                        expiredKeys[count] = keys[i];
+                        expiredValues[count] = values[i];
+                        expiredOwners[count] = owners[i];
+                        count++;
+                    } else {
+                        // later round, move it to the front
+                        keys[kept] = keys[i];
+                        values[kept] = values[i];
+                        expiries[kept] = expiries[i];
+                        owners[kept] = owners[i];
+                        kept++;
+                    }
+                }
+                Arrays.fill(owners, kept, total, null);
+                size = kept;
+                if (kept == 0 && keys.length > INITIAL_CAPACITY * 64) {
+                    // give memory back after a peak
+                    keys = new long[INITIAL_CAPACITY];
+                    values = new long[INITIAL_CAPACITY];
+                    expiries = new long[INITIAL_CAPACITY];
+                    owners = new Object[INITIAL_CAPACITY];
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                handler.expire(expiredKeys[i], expiredValues[i], expiredOwners[i]);
+            }
+            return count;
+        }
+    }
+}
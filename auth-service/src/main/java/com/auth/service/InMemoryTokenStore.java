@@ -0,0 +1,350 @@
+package com.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps token state in this process, without Redis.
+ * It is for single-node installs and test environments ({@code token-store.type: memory}).
+ * The state is lost on restart, so all users must log in again.
+ *
+ * <p>Layout:
+ * - tokens: {@link ConcurrentLongLongMap}, key = 64-bit hash of token,
+ *   value = 28-bit second hash | revoked flag | expiry (epoch seconds).
+ *   The second hash is checked on every read: when two tokens get the same key,
+ *   the older one is lost and becomes "unknown" (rejected), never allowed by mistake.
+ * - token index of user: small arrays per user, for logout-all
+ * - refresh token families: second {@link ConcurrentLongLongMap}, key = family id,
+ *   value = generation | expiry (epoch seconds)
+ * - expiry: {@link HashedTimingWheel}, one bucket per tick; no timer per token and no full scan
+ *
+ * <p>A check is one hash of the token and one lock-free map read.
+ * Memory is about 100 bytes per live token.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "token-store.type", havingValue = "memory")
+public class InMemoryTokenStore implements TokenStore {
+
+    private static final long EXPIRY_MASK = (1L << 34) - 1;
+    private static final long REVOKED_BIT = 1L << 34;
+    private static final int FINGERPRINT_SHIFT = 35;
+    private static final int GENERATION_SHIFT = 34;
+    // owner of the wheel entries of refresh token families
+    private static final Object FAMILY = new Object();
+
+    private final ConcurrentLongLongMap tokens;
+    private final ConcurrentLongLongMap families;
+    private final Map<String, UserTokens> users = new ConcurrentHashMap<>();
+    private final HashedTimingWheel wheel;
+    private final long tickMillis;
+    private final Counter expired;
+
+    private volatile boolean running;
+    private Thread expiryThread;
+
+    public InMemoryTokenStore(MeterRegistry meterRegistry,
+                              @Value("${token-store.memory.stripes:64}") int stripes,
+                              @Value("${token-store.memory.initial-capacity:1024}") int initialCapacity,
+                              @Value("${token-store.memory.tick-ms:1000}") long tickMillis,
+                              @Value("${token-store.memory.wheel-size:4096}") int wheelSize) {
+        this.tokens = new ConcurrentLongLongMap(stripes, initialCapacity);
+        this.families = new ConcurrentLongLongMap(stripes, initialCapacity);
+        this.tickMillis = tickMillis;
+        this.wheel = new HashedTimingWheel(tickMillis, wheelSize, System.currentTimeMillis(), this::expire);
+        this.expired = meterRegistry.counter("auth.token.store.expired");
+        Gauge.builder("auth.token.store.entries", tokens, ConcurrentLongLongMap::size).register(meterRegistry);
+        Gauge.builder("auth.token.store.refresh.families", families, ConcurrentLongLongMap::size).register(meterRegistry);
+        Gauge.builder("auth.token.store.slots", tokens, ConcurrentLongLongMap::capacity).register(meterRegistry);
+        meterRegistry.gaugeMapSize("auth.token.store.users", Tags.empty(), users);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        expiryThread = Thread.ofVirtual().name("token-store-expiry").start(this::expiryLoop);
+        log.info("Token state is kept in memory (token-store.type=memory)");
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (expiryThread != null) {
+            expiryThread.interrupt();
+        }
+    }
+
+    @Override
+    public void issue(String username, String token, long ttlMillis) {
+        long expiresAtSeconds = (System.currentTimeMillis() + ttlMillis + 999) / 1000;
+        TokenHash hash = hash(token);
+        long key = hash.key();
+        long value = (hash.fingerprint() << FINGERPRINT_SHIFT) | expiresAtSeconds;
+
+        tokens.put(key, value);
+        UserTokens owner = userTokens(username, key, value);
+        wheel.schedule(key, value, expiresAtSeconds * 1000, owner);
+    }
+
+    @Override
+    public long revoke(String username, String token) {
+        long now = System.currentTimeMillis();
+        TokenHash hash = hash(token);
+        long key = hash.key();
+        long fingerprint = hash.fingerprint();
+        long[] ttl = {0};
+        tokens.compute(key, value -> {
+            if (isLive(value, fingerprint, now) && (value & REVOKED_BIT) == 0) {
+                ttl[0] = expiresAtMillis(value) - now;
+                return value | REVOKED_BIT;
+            }
+            return value;
+        });
+        if (ttl[0] > 0) {
+            UserTokens owner = users.get(username);
+            if (owner != null) {
+                owner.remove(key);
+            }
+        }
+        return ttl[0];
+    }
+
+    @Override
+    public long revokeAll(String username) {
+        UserTokens owner = users.remove(username);
+        if (owner == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        long[][] entries = owner.drain();
+        long[] keys = entries[0];
+        long[] values = entries[1];
+        long count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long issued = values[i];
+            long result = tokens.compute(keys[i], value ->
+                    value == issued && expiresAtMillis(value) > now ? value | REVOKED_BIT : value);
+            if (result == (issued | REVOKED_BIT) && expiresAtMillis(issued) > now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isAllowed(String username, String token) {
+        TokenHash hash = hash(token);
+        long value = tokens.get(hash.key());
+        return isLive(value, hash.fingerprint(), System.currentTimeMillis()) && (value & REVOKED_BIT) == 0;
+    }
+
+    @Override
+    public boolean isBlacklisted(String username, String token) {
+        TokenHash hash = hash(token);
+        long value = tokens.get(hash.key());
+        return isLive(value, hash.fingerprint(), System.currentTimeMillis()) && (value & REVOKED_BIT) != 0;
+    }
+
+    @Override
+    public void startRefreshFamily(long familyId, long ttlMillis) {
+        long expiresAtSeconds = (System.currentTimeMillis() + ttlMillis + 999) / 1000;
+        families.put(familyId, expiresAtSeconds);
+        wheel.schedule(familyId, expiresAtSeconds, expiresAtSeconds * 1000, FAMILY);
+    }
+
+    @Override
+    public Rotation rotateRefreshFamily(long familyId, int generation, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        long next = ((generation + 1L) << GENERATION_SHIFT) | (now + ttlMillis + 999) / 1000;
+        Rotation[] result = {Rotation.UNKNOWN};
+        families.compute(familyId, value -> {
+            if (value == 0 || expiresAtMillis(value) <= now) {
+                return 0;
+            }
+            if ((value >>> GENERATION_SHIFT) != generation) {
+                result[0] = Rotation.REUSED;
+                return 0;
+            }
+            result[0] = Rotation.ROTATED;
+            return next;
+        });
+        if (result[0] == Rotation.ROTATED) {
+            wheel.schedule(familyId, next, expiresAtMillis(next), FAMILY);
+        }
+        return result[0];
+    }
+
+    private void expiryLoop() {
+        while (running) {
+            try {
+                Thread.sleep(tickMillis);
+                int count = wheel.advance(System.currentTimeMillis());
+                if (count > 0) {
+                    expired.increment(count);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("Token expiry failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This method removes an expired token, unless the key was reused by a newer token.
+     */
+    private void expire(long key, long issued, Object owner) {
+        if (owner == FAMILY) {
+            // a rotation puts a new value, then this entry is old and does nothing
+            families.compute(key, value -> value == issued ? 0 : value);
+            return;
+        }
+        long issuedWithoutFlag = issued & ~REVOKED_BIT;
+        tokens.compute(key, value -> (value & ~REVOKED_BIT) == issuedWithoutFlag ? 0 : value);
+        if (owner instanceof UserTokens userTokens && userTokens.removeAndCheckEmpty(key, issued)) {
+            users.remove(userTokens.username, userTokens);
+        }
+    }
+
+    private UserTokens userTokens(String username, long key, long value) {
+        while (true) {
+            UserTokens owner = users.computeIfAbsent(username, UserTokens::new);
+            if (owner.add(key, value)) {
+                return owner;
+            }
+            // it became empty and was closed at the same time, take a new one
+            users.remove(username, owner);
+        }
+    }
+
+    private static boolean isLive(long value, long fingerprint, long now) {
+        return value != 0
+                && (value >>> FINGERPRINT_SHIFT) == fingerprint
+                && expiresAtMillis(value) > now;
+    }
+
+    private static long expiresAtMillis(long value) {
+        return (value & EXPIRY_MASK) * 1000;
+    }
+
+    /**
+     * This method hashes token in one pass, four chars per step, with two independent lanes:
+     * one gives the 64-bit map key, the other the 28-bit fingerprint.
+     */
+    static TokenHash hash(String token) {
+        long first = 0xcbf29ce484222325L;
+        long second = 0x84222325cbf29ce4L;
+        int length = token.length();
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long word = token.charAt(i)
+                    | (long) token.charAt(i + 1) << 16
+                    | (long) token.charAt(i + 2) << 32
+                    | (long) token.charAt(i + 3) << 48;
+            first = Long.rotateLeft((first ^ word) * 0x100000001b3L, 29);
+            second = Long.rotateLeft((second ^ word) * 0x9e3779b97f4a7c15L, 31);
+        }
+        for (; i < length; i++) {
+            first = (first ^ token.charAt(i)) * 0x100000001b3L;
+            second = (second ^ token.charAt(i)) * 0x9e3779b97f4a7c15L;
+        }
+        long key = mix(first ^ length);
+        return new TokenHash(key == 0 ? 1 : key, mix(second) >>> 36);
+    }
+
+    private static long mix(long hash) {
+        // finalizer of SplitMix64
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    record TokenHash(long key, long fingerprint) {
+    }
+
+    /**
+     * This class is the token index of one user.
+     * When it gets empty it is closed and removed; a closed index takes no new tokens.
+     */
+    private static final class UserTokens {
+
+        private final String username;
+        private long[] keys = new long[4];
+        private long[] values = new long[4];
+        private int size;
+        private boolean closed;
+
+        private UserTokens(String username) {
+            this.username = username;
+        }
+
+        private synchronized boolean add(long key, long value) {
+            if (closed) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return true;
+                }
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            return true;
+        }
+
+        private synchronized void remove(long key) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) {
+                    removeAt(i);
+                    return;
+                }
+            }
+        }
+
+        private synchronized boolean removeAndCheckEmpty(long key, long value) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key && values[i] == value) {
+                    removeAt(i);
+                    break;
+                }
+            }
+            if (size == 0 && !closed) {
+                closed = true;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized long[][] drain() {
+            closed = true;
+            long[][] entries = {Arrays.copyOf(keys, size), Arrays.copyOf(values, size)};
+            size = 0;
+            return entries;
+        }
+
+        private void removeAt(int index) {
+            size--;
+            keys[index] = keys[size];
+            values[index] = values[size];
+        }
+    }
+}
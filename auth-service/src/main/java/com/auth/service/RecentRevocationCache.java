@@ -0,0 +1,139 @@
+package com.auth.service;
+
+import com.auth.client.MappedRevocationSet;
+import com.auth.dto.RevocationEventDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps tokens revoked on this node in memory until they expire.
+ *
+ * <p>It is used when Redis is not available. Then a token revoked on this node
+ * is still rejected. The size is bounded: when it is full, expired entries are
+ * removed first, and if it is still full the new entry is not kept.
+ *
+ * <p>With {@code revocation-file.path} the revocations of all nodes (from the revocation stream)
+ * are also kept in a memory-mapped {@link MappedRevocationSet}, with the id of the last event.
+ * After a restart the file is mapped again, so the deny list is complete at once, and the
+ * stream reader starts after that id. Logout-all events are kept in the file for other
+ * processes on the host ({@code auth.client.revocation-file}); the checks here are per token.
+ */
+@Slf4j
+@Component
+public class RecentRevocationCache {
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final MappedRevocationSet persisted;
+
+    // only used by the stream reader thread
+    private boolean checkpointHeld;
+
+    public RecentRevocationCache(RevocationEventService revocationEventService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${redis.fallback.recent-revocations-max:100000}") int maxEntries,
+                                 @Value("${revocation-file.path:}") String file,
+                                 @Value("${revocation-file.max-entries:200000}") int fileMaxEntries) {
+        this.maxEntries = maxEntries;
+        if (file == null || file.isBlank()) {
+            this.persisted = null;
+            return;
+        }
+        long start = System.nanoTime();
+        this.persisted = MappedRevocationSet.open(Path.of(file), fileMaxEntries);
+        log.info("Revocation file {} mapped in {} us: {} slots used, last event {}, writable={}",
+                file, (System.nanoTime() - start) / 1000, persisted.usedSlots(),
+                persisted.getLastEventId(), persisted.isWritable());
+        Gauge.builder("auth.revocation.file.used", persisted, MappedRevocationSet::usedSlots)
+                .description("Used slots of the revocation file, expired entries included")
+                .register(meterRegistry);
+        if (persisted.isWritable()) {
+            revocationEventService.follow(this::onRevocation, persisted.getLastEventId());
+        }
+    }
+
+    /**
+     * This method saves a revoked token.
+     *
+     * @param token           the access token string
+     * @param expiresAtMillis the time when token expires (epoch millis)
+     */
+    public void add(String token, long expiresAtMillis) {
+        if (persisted != null) {
+            persisted.addToken(TokenKeys.tokenId(token), expiresAtMillis);
+        }
+        if (revoked.size() >= maxEntries) {
+            removeExpired();
+            if (revoked.size() >= maxEntries) {
+                return;
+            }
+        }
+        revoked.put(token, expiresAtMillis);
+    }
+
+    /**
+     * This method checks if token was revoked on this node,
+     * or on any node when the revocation file is used.
+     *
+     * @param token the access token string
+     * @return true when token is revoked and not expired
+     */
+    public boolean contains(String token) {
+        Long expiresAt = revoked.get(token);
+        if (expiresAt != null) {
+            if (expiresAt > System.currentTimeMillis()) {
+                return true;
+            }
+            revoked.remove(token, expiresAt);
+        }
+        return persisted != null && persisted.containsToken(TokenKeys.tokenId(token));
+    }
+
+    /**
+     * This method writes the revocation file to disk.
+     */
+    @PreDestroy
+    public void close() {
+        if (persisted != null) {
+            persisted.close();
+        }
+    }
+
+    /**
+     * This method writes a stream event to the file and moves the saved event id after it.
+     * When an event that is still needed can not be written (file full), the id is not moved
+     * anymore until the next start: the start replays from the last saved id, so the event
+     * is read again instead of being lost.
+     */
+    private void onRevocation(String id, RevocationEventDto event) {
+        boolean stored;
+        if (RevocationEventDto.TYPE_USER.equals(event.type())) {
+            stored = persisted.addUser(event.username(), event.revokedAt(), event.expiresAt());
+        } else if (event.tokenId() != null && !event.tokenId().isEmpty()) {
+            stored = persisted.addToken(event.tokenId(), event.expiresAt());
+        } else {
+            stored = true;
+        }
+        if (!stored && event.expiresAt() > System.currentTimeMillis() && !checkpointHeld) {
+            checkpointHeld = true;
+            log.warn("Revocation event {} not written to the revocation file (full?), its last event id stays {}",
+                    id, persisted.getLastEventId());
+        }
+        if (!checkpointHeld) {
+            persisted.setLastEventId(id);
+        }
+    }
+
+    private void removeExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+}
@@ -0,0 +1,61 @@
+package com.auth.service;
+
+import com.auth.exception.TokenStateUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class decides what token checks return when Redis is not available.
+ *
+ * <p>Policies ({@code redis.fallback-policy}):
+ * - fail-closed: checks throw {@link TokenStateUnavailableException}, the request is anonymous
+ *   and a protected path answers 503 with {@code Retry-After}
+ * - trust-signature: a token with a valid signature is allowed,
+ *   unless it was revoked on this node ({@link RecentRevocationCache})
+ */
+@Slf4j
+@Component
+public class RedisFallbackPolicy {
+
+    private final RecentRevocationCache recentRevocationCache;
+    private final boolean trustSignature;
+
+    public RedisFallbackPolicy(RecentRevocationCache recentRevocationCache,
+                               @Value("${redis.fallback-policy:fail-closed}") String policy) {
+        this.recentRevocationCache = recentRevocationCache;
+        this.trustSignature = switch (policy) {
+            case "trust-signature" -> true;
+            case "fail-closed" -> false;
+            default -> throw new IllegalStateException("Unknown redis.fallback-policy: " + policy);
+        };
+    }
+
+    /**
+     * This method is the blacklist answer when Redis is not available.
+     *
+     * @param token the access token string
+     * @param cause the Redis error
+     * @return true when token is revoked
+     */
+    public boolean isBlacklisted(String token, RuntimeException cause) {
+        if (!trustSignature) {
+            throw new TokenStateUnavailableException("Token store unavailable", cause);
+        }
+        return recentRevocationCache.contains(token);
+    }
+
+    /**
+     * This method is the allow-list answer when Redis is not available.
+     *
+     * @param token the access token string
+     * @param cause the Redis error
+     * @return true when token is allowed
+     */
+    public boolean isAllowed(String token, RuntimeException cause) {
+        if (!trustSignature) {
+            throw new TokenStateUnavailableException("Token store unavailable", cause);
+        }
+        return !recentRevocationCache.contains(token);
+    }
+}
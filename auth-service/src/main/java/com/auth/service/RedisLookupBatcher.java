@@ -0,0 +1,265 @@
+package com.auth.service;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisKeyAsyncCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceExceptionConverter;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class sends the allow-list and blacklist checks of concurrent requests to Redis
+ * as pipelined batches.
+ *
+ * <p>Without it each check is one command with its own write and flush on the socket.
+ * Here request threads only put the key in a queue and wait. One background thread takes
+ * all keys that are waiting (up to {@code redis.lookup-batch.max-size}), writes one
+ * {@code EXISTS} per key and flushes them together. Replies complete the waiting requests;
+ * the thread does not wait for them, so the next batch can be sent at once.
+ *
+ * <p>With {@code redis.lookup-batch.window-us} greater than 0 the thread also waits up to
+ * that time for more keys before it sends a batch. With 0 a batch is what came in while
+ * the last one was sent, so a single request never waits.
+ *
+ * <p>The batches use their own Lettuce connection (not shared with RedisTemplate),
+ * because flushing by hand is a setting of the whole connection. It is made from the
+ * read connection factory, so it has the same topology, password and timeouts.
+ * In sentinel mode the checks go to the master.
+ *
+ * <p>Errors are thrown as {@link DataAccessException}, like RedisTemplate does, so
+ * {@link RedisTokenStore} keeps its circuit breaker and fallback.
+ * Summary {@code auth.redis.batch.size} has the keys per batch.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${redis.lookup-batch.enabled:false} and '${token-store.type:redis}' == 'redis'")
+public class RedisLookupBatcher {
+
+    private static final long CONNECT_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final BlockingQueue<Lookup> queue;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final long timeoutNanos;
+    private final DistributionSummary batchSizes;
+    private final LettuceExceptionConverter exceptionConverter = new LettuceExceptionConverter();
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    // used by the dispatcher thread only
+    private StatefulConnection<String, String> connection;
+    private RedisKeyAsyncCommands<String, String> commands;
+    private long nextConnectAt;
+
+    public RedisLookupBatcher(@Qualifier("tokenReadConnectionFactory") RedisConnectionFactory connectionFactory,
+                              MeterRegistry meterRegistry,
+                              @Value("${redis.lookup-batch.max-size:128}") int maxBatchSize,
+                              @Value("${redis.lookup-batch.window-us:0}") long windowMicros,
+                              @Value("${redis.lookup-batch.queue-size:4096}") int queueSize,
+                              @Value("${redis.command-timeout:250ms}") Duration commandTimeout) {
+        if (!(connectionFactory instanceof LettuceConnectionFactory lettuce)) {
+            throw new IllegalStateException("redis.lookup-batch needs a Lettuce connection factory");
+        }
+        this.connectionFactory = lettuce;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.timeoutNanos = commandTimeout.toNanos();
+        this.batchSizes = DistributionSummary.builder("auth.redis.batch.size")
+                .description("Token checks sent in one pipelined batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * This record is one check waiting for its batch.
+     */
+    private record Lookup(String key, CompletableFuture<Boolean> result) { }
+
+    /**
+     * This method starts the dispatcher thread. The connection is opened by the first batch,
+     * so the service starts when Redis is down.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::runDispatcher, "redis-lookup-batcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * This method stops the dispatcher, fails the checks left in queue and closes the connection.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        List<Lookup> left = new ArrayList<>();
+        queue.drainTo(left);
+        fail(left, new RedisSystemException("Redis lookup batcher stopped", null));
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * This method checks if key exists. It waits for the batch of the key,
+     * at most {@code redis.command-timeout}.
+     *
+     * @param key the redis key
+     * @return true when key exists
+     * @throws DataAccessException when Redis does not answer in time or fails
+     */
+    public boolean exists(String key) {
+        Lookup lookup = new Lookup(key, new CompletableFuture<>());
+        if (!running || !queue.offer(lookup)) {
+            throw new QueryTimeoutException("Redis lookup queue is full");
+        }
+        try {
+            return lookup.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw new QueryTimeoutException("Redis lookup timed out", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Interrupted while waiting for Redis", ex);
+        } catch (ExecutionException ex) {
+            throw toDataAccessException(ex.getCause());
+        }
+    }
+
+    private void runDispatcher() {
+        List<Lookup> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                collect(batch);
+                send(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(batch, new RedisSystemException("Redis lookup batcher stopped", ex));
+                return;
+            } catch (RuntimeException ex) {
+                fail(batch, ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * This method adds the keys that are waiting, and with a window the keys that come
+     * within it, up to the max batch size.
+     */
+    private void collect(List<Lookup> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        if (windowNanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long left = deadline - System.nanoTime();
+            Lookup next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void send(List<Lookup> batch) {
+        RedisKeyAsyncCommands<String, String> keyCommands = connect();
+        for (Lookup lookup : batch) {
+            RedisFuture<Long> reply = keyCommands.exists(lookup.key());
+            reply.whenComplete((count, error) -> {
+                if (error != null) {
+                    lookup.result().completeExceptionally(error);
+                } else {
+                    lookup.result().complete(count != null && count > 0);
+                }
+            });
+        }
+        connection.flushCommands();
+        batchSizes.record(batch.size());
+    }
+
+    /**
+     * This method returns the batch connection and opens it when needed.
+     * After a failed connect the next try is one second later; until then batches fail at once.
+     */
+    private RedisKeyAsyncCommands<String, String> connect() {
+        if (commands != null) {
+            return commands;
+        }
+        long now = System.nanoTime();
+        if (now - nextConnectAt < 0) {
+            throw new RedisSystemException("Redis lookup connection is not open", null);
+        }
+        nextConnectAt = now + CONNECT_RETRY_NANOS;
+        AbstractRedisClient client = connectionFactory.getRequiredNativeClient();
+        if (client instanceof RedisClusterClient clusterClient) {
+            StatefulRedisClusterConnection<String, String> cluster = clusterClient.connect(StringCodec.UTF8);
+            ReadFrom readFrom = connectionFactory.getClientConfiguration().getReadFrom().orElse(null);
+            if (readFrom != null) {
+                cluster.setReadFrom(readFrom);
+            }
+            cluster.setAutoFlushCommands(false);
+            connection = cluster;
+            commands = cluster.async();
+        } else {
+            StatefulRedisConnection<String, String> standalone = ((RedisClient) client).connect(StringCodec.UTF8);
+            standalone.setAutoFlushCommands(false);
+            connection = standalone;
+            commands = standalone.async();
+        }
+        log.info("Redis lookup batching connected");
+        return commands;
+    }
+
+    private void fail(List<Lookup> batch, Throwable error) {
+        for (Lookup lookup : batch) {
+            lookup.result().completeExceptionally(error);
+        }
+    }
+
+    private DataAccessException toDataAccessException(Throwable cause) {
+        if (cause instanceof DataAccessException dataAccessException) {
+            return dataAccessException;
+        }
+        DataAccessException converted = cause instanceof Exception ex ? exceptionConverter.convert(ex) : null;
+        return converted != null ? converted : new RedisSystemException("Redis lookup failed", cause);
+    }
+}
@@ -0,0 +1,232 @@
+package com.auth.service;
+
+import com.auth.exception.TokenStateUnavailableException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * This class keeps token state in Redis.
+ *
+ * <p>Each change is one Lua script, so it is one round trip and Redis runs it
+ * as one atomic step. A crash can not leave a token half revoked.
+ * Scripts are in {@code resources/redis}.
+ *
+ * <p>Checks use the read template, which can be served by a replica.
+ * A replica gets writes a little later than the master, so a token issued just now may be missing
+ * there: with replica reads, an allow-list miss is checked once more on the master before the token
+ * is rejected (only unknown tokens pay the second call). Blacklist checks are not repeated:
+ * a logout can take the replication delay (usually below a millisecond) to be seen.
+ * With {@code redis.lookup-batch.enabled=true} they go through {@link RedisLookupBatcher}
+ * instead, which pipelines the checks of concurrent requests.
+ * All calls go through the Redis circuit breaker. When Redis is not available,
+ * changes throw {@link TokenStateUnavailableException} and checks follow
+ * {@link RedisFallbackPolicy}.
+ *
+ * <p>With {@code redis.legacy-keys=true} a token that is not in the allow-list is also looked up
+ * with the old key without user ({@code auth:allowlist:<token>}), and logout of such a token moves it
+ * to the new blacklist. This keeps sessions from before the key change valid until they expire.
+ * Logout-all does not reach them: they are not in the token index of user.
+ */
+@Component
+@ConditionalOnProperty(name = "token-store.type", havingValue = "redis", matchIfMissing = true)
+public class RedisTokenStore implements TokenStore {
+
+    private static final RedisScript<Long> ISSUE_SCRIPT = script("redis/issue-token.lua");
+    private static final RedisScript<Long> REVOKE_SCRIPT = script("redis/revoke-token.lua");
+    private static final RedisScript<Long> REVOKE_ALL_SCRIPT = script("redis/revoke-all-tokens.lua");
+    private static final RedisScript<Long> ROTATE_REFRESH_SCRIPT = script("redis/rotate-refresh-family.lua");
+
+    /** Tokens per logout-all script, so one script does not block Redis for long. */
+    private static final int REVOKE_ALL_BATCH = 500;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisTemplate<String, String> tokenReadRedisTemplate;
+    private final CircuitBreaker redisCircuitBreaker;
+    private final RedisFallbackPolicy fallbackPolicy;
+    private final MeterRegistry meterRegistry;
+    private final RedisLookupBatcher lookupBatcher;
+    private final boolean legacyKeys;
+    private final boolean replicaReads;
+
+    public RedisTokenStore(RedisTemplate<String, String> redisTemplate,
+                           @Qualifier("tokenReadRedisTemplate")
+                           RedisTemplate<String, String> tokenReadRedisTemplate,
+                           CircuitBreaker redisCircuitBreaker,
+                           RedisFallbackPolicy fallbackPolicy,
+                           MeterRegistry meterRegistry,
+                           ObjectProvider<RedisLookupBatcher> lookupBatcher,
+                           @Value("${redis.legacy-keys:false}") boolean legacyKeys,
+                           @Value("${redis.mode:standalone}") String mode,
+                           @Value("${redis.read-from-replica:false}") boolean readFromReplica) {
+        this.redisTemplate = redisTemplate;
+        this.tokenReadRedisTemplate = tokenReadRedisTemplate;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+        this.fallbackPolicy = fallbackPolicy;
+        this.meterRegistry = meterRegistry;
+        this.lookupBatcher = lookupBatcher.getIfAvailable();
+        this.legacyKeys = legacyKeys;
+        this.replicaReads = readFromReplica && !"standalone".equals(mode);
+    }
+
+    @Override
+    public void issue(String username, String token, long ttlMillis) {
+        call("issue", () -> redisTemplate.execute(ISSUE_SCRIPT,
+                List.of(TokenKeys.allowList(username, token), TokenKeys.userTokens(username)),
+                token, username, String.valueOf(ttlMillis), String.valueOf(System.currentTimeMillis())));
+    }
+
+    @Override
+    public long revoke(String username, String token) {
+        Long ttl = call("revoke", () -> redisTemplate.execute(REVOKE_SCRIPT,
+                List.of(TokenKeys.allowList(username, token),
+                        TokenKeys.blacklist(username, token),
+                        TokenKeys.userTokens(username)),
+                token));
+        if ((ttl == null || ttl == 0) && legacyKeys) {
+            ttl = call("revoke.legacy", () -> revokeLegacy(username, token));
+        }
+        return ttl == null ? 0 : ttl;
+    }
+
+    /**
+     * This method reads the token index of user, then revokes the tokens in scripts of
+     * {@link #REVOKE_ALL_BATCH} tokens. Each script gets the keys of its tokens in KEYS.
+     */
+    @Override
+    public long revokeAll(String username) {
+        Long count = call("revoke-all", () -> {
+            String index = TokenKeys.userTokens(username);
+            long now = System.currentTimeMillis();
+            Set<String> live = redisTemplate.opsForZSet().rangeByScore(index, now, Double.POSITIVE_INFINITY);
+            List<String> tokens = live == null ? List.of() : List.copyOf(live);
+            long revoked = 0;
+            for (int from = 0; from < tokens.size() || from == 0; from += REVOKE_ALL_BATCH) {
+                List<String> batch = tokens.subList(from, Math.min(tokens.size(), from + REVOKE_ALL_BATCH));
+                List<String> keys = new ArrayList<>(1 + 2 * batch.size());
+                List<String> args = new ArrayList<>(1 + batch.size());
+                keys.add(index);
+                args.add(String.valueOf(now));
+                for (String token : batch) {
+                    keys.add(TokenKeys.allowList(username, token));
+                    keys.add(TokenKeys.blacklist(username, token));
+                    args.add(token);
+                }
+                Long result = redisTemplate.execute(REVOKE_ALL_SCRIPT, keys, args.toArray());
+                revoked += result == null ? 0 : result;
+            }
+            return revoked;
+        });
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public boolean isAllowed(String username, String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            String key = TokenKeys.allowList(username, token);
+            boolean found = redisCircuitBreaker.executeSupplier(() -> exists(key)
+                    || replicaReads && existsOnMaster(key)
+                    || legacyKeys && exists(TokenKeys.legacyAllowList(token)));
+            sample.stop(meterRegistry.timer("auth.redis", "command", "allowlist.exists", "outcome", found ? "hit" : "miss"));
+            return found;
+        } catch (CallNotPermittedException | DataAccessException ex) {
+            sample.stop(meterRegistry.timer("auth.redis", "command", "allowlist.exists", "outcome", "fallback"));
+            return fallbackPolicy.isAllowed(token, ex);
+        }
+    }
+
+    @Override
+    public boolean isBlacklisted(String username, String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            boolean found = redisCircuitBreaker.executeSupplier(() -> exists(TokenKeys.blacklist(username, token)));
+            sample.stop(meterRegistry.timer("auth.redis", "command", "blacklist.exists", "outcome", found ? "hit" : "miss"));
+            return found;
+        } catch (CallNotPermittedException | DataAccessException ex) {
+            sample.stop(meterRegistry.timer("auth.redis", "command", "blacklist.exists", "outcome", "fallback"));
+            return fallbackPolicy.isBlacklisted(token, ex);
+        }
+    }
+
+    @Override
+    public void startRefreshFamily(long familyId, long ttlMillis) {
+        call("refresh-family.start", () -> {
+            redisTemplate.opsForValue().set(TokenKeys.refreshFamily(familyId), "0", Duration.ofMillis(ttlMillis));
+            return null;
+        });
+    }
+
+    @Override
+    public Rotation rotateRefreshFamily(long familyId, int generation, long ttlMillis) {
+        Long result = call("refresh-family.rotate", () -> redisTemplate.execute(ROTATE_REFRESH_SCRIPT,
+                List.of(TokenKeys.refreshFamily(familyId)),
+                String.valueOf(generation), String.valueOf(ttlMillis)));
+        if (result == null || result < 0) {
+            return Rotation.UNKNOWN;
+        }
+        return result == 1 ? Rotation.ROTATED : Rotation.REUSED;
+    }
+
+    /**
+     * This method moves a token of the old key layout to the new blacklist.
+     * The blacklist key is set first, so the token is never valid again even when the delete fails.
+     */
+    private Long revokeLegacy(String username, String token) {
+        String legacyKey = TokenKeys.legacyAllowList(token);
+        Long ttl = redisTemplate.getExpire(legacyKey, TimeUnit.MILLISECONDS);
+        if (ttl == null || ttl <= 0) {
+            return 0L;
+        }
+        redisTemplate.opsForValue().set(TokenKeys.blacklist(username, token), "revoked", Duration.ofMillis(ttl));
+        redisTemplate.delete(legacyKey);
+        return ttl;
+    }
+
+    private boolean exists(String key) {
+        if (lookupBatcher != null) {
+            return lookupBatcher.exists(key);
+        }
+        return Boolean.TRUE.equals(tokenReadRedisTemplate.hasKey(key));
+    }
+
+    /**
+     * This method reads a key from the master, for keys that may not be on the replica yet.
+     */
+    private boolean existsOnMaster(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    }
+
+    private <T> T call(String name, Supplier<T> command) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            T result = redisCircuitBreaker.executeSupplier(command);
+            sample.stop(meterRegistry.timer("auth.redis", "command", name, "outcome", "ok"));
+            return result;
+        } catch (CallNotPermittedException | DataAccessException ex) {
+            sample.stop(meterRegistry.timer("auth.redis", "command", name, "outcome", "unavailable"));
+            throw new TokenStateUnavailableException("Token store unavailable", ex);
+        }
+    }
+
+    private static RedisScript<Long> script(String path) {
+        return RedisScript.of(new ClassPathResource(path), Long.class);
+    }
+}
@@ -0,0 +1,159 @@
+package com.auth.service;
+
+import com.auth.dto.AuthResponseDto;
+import com.auth.dto.RevocationEventDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * This class makes a refresh idempotent for a short time.
+ *
+ * <p>Browser tabs and mobile retries often send the same refresh token two or three times
+ * within milliseconds. The first call rotates the token; without this class the others fail
+ * and the client must log in again (BCrypt). Now:
+ * - single flight: calls with the same token while the first one runs wait for its result
+ * - grace window: for {@code refresh-token.grace-ms} after success, the same token gets
+ *   the same new token pair again; nothing new is issued and nothing is written
+ *
+ * <p>After the window the token is used up as before: opaque tokens are revoked,
+ * and a signed token ends its family (reuse detection). Failures are never kept.
+ * Logout-all of the user (on this node or from the revocation stream) removes the entries.
+ *
+ * <p>The cache is per node. A repeat that goes to another node is handled as a reuse.
+ *
+ * <p>Counter {@code auth.refresh.grace} with tag {@code result}: hit, shared, miss, bypass.
+ */
+@Component
+public class RefreshGraceCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long graceNanos;
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter shared;
+    private final Counter misses;
+    private final Counter bypassed;
+
+    public RefreshGraceCache(RevocationEventService revocationEventService,
+                             MeterRegistry meterRegistry,
+                             @Value("${refresh-token.grace-ms:1500}") long graceMs,
+                             @Value("${refresh-token.grace-max-entries:10000}") int maxEntries) {
+        this.graceNanos = TimeUnit.MILLISECONDS.toNanos(graceMs);
+        this.maxEntries = maxEntries;
+        this.hits = meterRegistry.counter("auth.refresh.grace", "result", "hit");
+        this.shared = meterRegistry.counter("auth.refresh.grace", "result", "shared");
+        this.misses = meterRegistry.counter("auth.refresh.grace", "result", "miss");
+        this.bypassed = meterRegistry.counter("auth.refresh.grace", "result", "bypass");
+        meterRegistry.gaugeMapSize("auth.refresh.grace.size", Tags.empty(), entries);
+        revocationEventService.addListener(this::onRevocation);
+    }
+
+    /**
+     * This method returns the tokens for a refresh token.
+     * The refresh runs at most once for the same token within the grace window.
+     *
+     * @param refreshToken the refresh token string of the request
+     * @param refresh      rotates the token and issues new tokens
+     * @return the new tokens, the same for all calls in the window
+     */
+    public AuthResponseDto get(String refreshToken, Supplier<AuthResponseDto> refresh) {
+        if (graceNanos <= 0 || refreshToken == null) {
+            return refresh.get();
+        }
+
+        long now = System.nanoTime();
+        Entry existing = entries.get(refreshToken);
+        if (existing != null && existing.isUsable(now)) {
+            return existing.await(existing.future.isDone() ? hits : shared);
+        }
+
+        if (entries.size() >= maxEntries) {
+            removeExpired(now);
+            if (entries.size() >= maxEntries) {
+                bypassed.increment();
+                return refresh.get();
+            }
+        }
+
+        Entry created = new Entry();
+        Entry entry = entries.compute(refreshToken, (key, current) ->
+                current != null && current.isUsable(now) ? current : created);
+        if (entry != created) {
+            return entry.await(entry.future.isDone() ? hits : shared);
+        }
+
+        misses.increment();
+        try {
+            AuthResponseDto response = refresh.get();
+            created.complete(response, System.nanoTime() + graceNanos);
+            return response;
+        } catch (RuntimeException ex) {
+            // a failed refresh is not kept: the next call checks the token again
+            entries.remove(refreshToken, created);
+            created.future.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This method removes the entries of user (logout-all on this node).
+     *
+     * @param username the owner of tokens
+     */
+    public void invalidateUser(String username) {
+        entries.values().removeIf(entry -> username.equals(entry.username));
+    }
+
+    private void onRevocation(RevocationEventDto event) {
+        if (RevocationEventDto.TYPE_USER.equals(event.type())) {
+            invalidateUser(event.username());
+        }
+    }
+
+    private void removeExpired(long now) {
+        entries.values().removeIf(entry -> entry.future.isDone() && entry.expiresAt <= now);
+    }
+
+    /**
+     * This class is one cache entry: a running or finished refresh.
+     */
+    private static final class Entry {
+
+        private final CompletableFuture<AuthResponseDto> future = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+        private volatile String username;
+
+        private boolean isUsable(long now) {
+            return !future.isDone() || now < expiresAt;
+        }
+
+        private void complete(AuthResponseDto response, long keepUntil) {
+            username = response.username();
+            expiresAt = keepUntil;
+            future.complete(response);
+        }
+
+        private AuthResponseDto await(Counter counter) {
+            counter.increment();
+            try {
+                return future.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+    }
+}
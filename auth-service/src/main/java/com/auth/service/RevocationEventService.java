@@ -0,0 +1,493 @@
+package com.auth.service;
+
+import com.auth.dto.RevocationEventDto;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * This service publishes revocation events for downstream services.
+ *
+ * <p>Every logout adds one entry to the Redis stream {@code auth:revocations}.
+ * Downstream services can read the stream themselves (XREAD with their own offset),
+ * or subscribe to the SSE endpoint of this service.
+ *
+ * <p>For SSE, one reader thread per node reads new entries, calls the local listeners
+ * (example: the token verdict cache of this node) and puts the entries in the queue of each subscriber.
+ * The SSE event id is the stream id, so a client that reconnects with
+ * {@code Last-Event-ID} gets the missed events first (from the stream), then live events.
+ *
+ * <p>The reader never waits for a client. Each subscriber has a bounded queue
+ * ({@code revocation-stream.subscriber-queue-size}) and its own virtual thread, which sends the replay
+ * and then the queue. When the queue is full the client is too slow: it is disconnected
+ * (counter {@code auth.revocation.subscribers.dropped}) and resumes with {@code Last-Event-ID}.
+ *
+ * <p>The reader starts when the context is refreshed. It starts at the newest entry, or after
+ * the oldest id given to {@link #follow(BiConsumer, String)}, so a node with a saved position
+ * gets the events it missed while it was down.
+ */
+@Slf4j
+@Service
+public class RevocationEventService {
+
+    private static final RedisScript<String> PUBLISH_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/publish-revocation.lua"), String.class);
+
+    private static final Pattern STREAM_ID = Pattern.compile("\\d+-\\d+");
+    private static final int READ_COUNT = 500;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final CircuitBreaker redisCircuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final List<BiConsumer<String, RevocationEventDto>> listeners = new CopyOnWriteArrayList<>();
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationMs;
+
+    @Value("${revocation-stream.enabled:true}")
+    private boolean enabled;
+
+    @Value("${token-store.type:redis}")
+    private String tokenStoreType;
+
+    @Value("${revocation-stream.max-length:100000}")
+    private long maxLength;
+
+    @Value("${revocation-stream.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${revocation-stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${revocation-stream.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${revocation-stream.max-subscribers:100}")
+    private int maxSubscribers;
+
+    @Value("${revocation-stream.subscriber-queue-size:1000}")
+    private int subscriberQueueSize;
+
+    private volatile boolean running;
+    private volatile String resumeAfter;
+    private Thread reader;
+
+    public RevocationEventService(RedisTemplate<String, String> redisTemplate,
+                                  CircuitBreaker redisCircuitBreaker,
+                                  MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gaugeCollectionSize("auth.revocation.subscribers", Tags.empty(), subscribers);
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled && !"redis".equals(tokenStoreType)) {
+            // the stream is kept in Redis
+            log.info("Revocation stream is disabled: token-store.type is {}", tokenStoreType);
+            enabled = false;
+        }
+    }
+
+    /**
+     * This method starts the reader after all beans are made, so it knows where to start.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    synchronized void startReader() {
+        if (!enabled || reader != null) {
+            return;
+        }
+        running = true;
+        reader = Thread.ofVirtual().name("revocation-stream-reader").start(this::readLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (reader != null) {
+            reader.interrupt();
+        }
+        subscribers.forEach(Subscriber::close);
+        subscribers.clear();
+    }
+
+    /**
+     * This method adds a listener for revocation events of all nodes.
+     * It is called from the reader thread, so it must be fast.
+     * Listeners get no events when the stream is disabled.
+     *
+     * @param listener the listener
+     */
+    public void addListener(Consumer<RevocationEventDto> listener) {
+        listeners.add((id, event) -> listener.accept(event));
+    }
+
+    /**
+     * This method adds a listener that also gets the stream id of each event, and the events
+     * after afterId that were added while this node was down. It must be called while the
+     * context starts. Events can come twice, so the listener must not mind that.
+     *
+     * @param listener the listener, called from the reader thread
+     * @param afterId  the last stream id the listener has, or null for new events only
+     */
+    public synchronized void follow(BiConsumer<String, RevocationEventDto> listener, String afterId) {
+        listeners.add(listener);
+        if (afterId == null || !STREAM_ID.matcher(afterId).matches()) {
+            return;
+        }
+        if (reader != null) {
+            log.warn("Revocation listener added after start, events after {} are not read again", afterId);
+        } else if (resumeAfter == null || compareIds(afterId, resumeAfter) < 0) {
+            resumeAfter = afterId;
+        }
+    }
+
+    /**
+     * This method publishes that one access token is revoked.
+     *
+     * @param username        the owner of token
+     * @param token           the access token string
+     * @param expiresAtMillis the time when token expires (epoch millis)
+     */
+    public void publishToken(String username, String token, long expiresAtMillis) {
+        publish(RevocationEventDto.TYPE_TOKEN, TokenKeys.tokenId(token), username, expiresAtMillis);
+    }
+
+    /**
+     * This method publishes that all access tokens of user are revoked.
+     * Tokens issued later than now are not affected.
+     *
+     * @param username the owner of tokens
+     */
+    public void publishUser(String username) {
+        publish(RevocationEventDto.TYPE_USER, "", username, System.currentTimeMillis() + jwtExpirationMs);
+    }
+
+    /**
+     * This method publishes one event.
+     * The token is already revoked in Redis when this runs, so a failure here
+     * does not fail the logout. It is logged and counted.
+     */
+    private void publish(String type, String tokenId, String username, long expiresAtMillis) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisCircuitBreaker.executeSupplier(() -> redisTemplate.execute(PUBLISH_SCRIPT,
+                    List.of(TokenKeys.revocationStream()),
+                    String.valueOf(maxLength), type, tokenId, username,
+                    String.valueOf(expiresAtMillis), String.valueOf(System.currentTimeMillis())));
+            meterRegistry.counter("auth.revocation.events", "type", type, "outcome", "published").increment();
+        } catch (CallNotPermittedException | DataAccessException ex) {
+            meterRegistry.counter("auth.revocation.events", "type", type, "outcome", "failed").increment();
+            log.warn("Revocation event not published. type={}, user={}, error={}",
+                    type, username, ex.getMessage());
+        }
+    }
+
+    /**
+     * This method adds a new SSE subscriber. The replay is sent by the thread of the subscriber,
+     * so this method returns at once.
+     *
+     * @param lastEventId the last stream id the client has, or null to get only new events
+     * @return emitter for the response
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (!enabled) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Revocation stream is disabled");
+        }
+        if (lastEventId != null && !STREAM_ID.matcher(lastEventId).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Last-Event-ID must be a stream id like 1700000000000-0");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many revocation subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, lastEventId != null ? lastEventId : "0-0", subscriberQueueSize);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+
+        // added before the replay reads the stream, so no event is missed between them;
+        // events in both are sent once (cursor)
+        subscribers.add(subscriber);
+        subscriber.start(lastEventId);
+        return emitter;
+    }
+
+    private void replay(Subscriber subscriber, String fromId) throws IOException {
+        String from = fromId;
+        while (!subscriber.closed) {
+            List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().range(
+                    TokenKeys.revocationStream(),
+                    Range.rightUnbounded(Range.Bound.inclusive(from)),
+                    Limit.limit().count(READ_COUNT));
+            if (records == null || records.isEmpty()) {
+                return;
+            }
+            for (MapRecord<String, Object, Object> record : records) {
+                subscriber.send(record.getId().getValue(), toEvent(record));
+            }
+            if (records.size() < READ_COUNT) {
+                return;
+            }
+            from = records.get(records.size() - 1).getId().getValue();
+        }
+    }
+
+    /**
+     * This method reads new entries and sends them to all subscribers.
+     * It uses non-blocking XREAD on the shared connection: a blocking XREAD
+     * would open a new dedicated connection for every call.
+     */
+    private void readLoop() {
+        String lastId = null;
+        long lastHeartbeat = System.currentTimeMillis();
+
+        while (running) {
+            try {
+                if (lastId == null) {
+                    lastId = resumeAfter != null ? resumeFrom(resumeAfter) : latestId();
+                }
+                List<MapRecord<String, Object, Object>> records = readAfter(lastId);
+
+                if (records != null) {
+                    for (MapRecord<String, Object, Object> record : records) {
+                        String id = record.getId().getValue();
+                        RevocationEventDto event = toEvent(record);
+                        notifyListeners(id, event);
+                        subscribers.forEach(subscriber -> subscriber.offer(id, event));
+                        lastId = id;
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastHeartbeat >= heartbeatMs) {
+                    subscribers.forEach(subscriber -> subscriber.offer(null, null));
+                    lastHeartbeat = now;
+                }
+
+                if (records == null || records.size() < READ_COUNT) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("Revocation stream read failed: {}", ex.getMessage());
+                sleepQuietly(1000);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked") // generic varargs of read(), with one offset
+    private List<MapRecord<String, Object, Object>> readAfter(String lastId) {
+        return redisTemplate.opsForStream().read(
+                StreamReadOptions.empty().count(READ_COUNT),
+                StreamOffset.create(TokenKeys.revocationStream(), ReadOffset.from(lastId)));
+    }
+
+    private void notifyListeners(String id, RevocationEventDto event) {
+        for (BiConsumer<String, RevocationEventDto> listener : listeners) {
+            try {
+                listener.accept(id, event);
+            } catch (RuntimeException ex) {
+                log.warn("Revocation listener failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This method returns the start id of a resumed reader. When the oldest entry is newer
+     * than the saved id and the stream is full, entries were trimmed and are lost for this node.
+     */
+    private String resumeFrom(String afterId) {
+        List<MapRecord<String, Object, Object>> first = redisTemplate.opsForStream().range(
+                TokenKeys.revocationStream(), Range.unbounded(), Limit.limit().count(1));
+        Long length = redisTemplate.opsForStream().size(TokenKeys.revocationStream());
+        if (first != null && !first.isEmpty() && length != null && length >= maxLength
+                && compareIds(first.get(0).getId().getValue(), afterId) > 0) {
+            log.warn("Revocation stream was trimmed after {}: older missed events are lost, "
+                    + "raise revocation-stream.max-length", afterId);
+            meterRegistry.counter("auth.revocation.resume", "outcome", "gap").increment();
+        } else {
+            meterRegistry.counter("auth.revocation.resume", "outcome", "ok").increment();
+        }
+        log.info("Revocation stream resumed after {}", afterId);
+        return afterId;
+    }
+
+    private String latestId() {
+        List<MapRecord<String, Object, Object>> last = redisTemplate.opsForStream().reverseRange(
+                TokenKeys.revocationStream(), Range.unbounded(), Limit.limit().count(1));
+        return last == null || last.isEmpty() ? "0-0" : last.get(0).getId().getValue();
+    }
+
+    private static RevocationEventDto toEvent(MapRecord<String, Object, Object> record) {
+        Map<Object, Object> fields = record.getValue();
+        return new RevocationEventDto(
+                String.valueOf(fields.get("type")),
+                String.valueOf(fields.getOrDefault("tokenId", "")),
+                String.valueOf(fields.get("username")),
+                Long.parseLong(String.valueOf(fields.get("expiresAt"))),
+                Long.parseLong(String.valueOf(fields.get("revokedAt"))));
+    }
+
+    /**
+     * This method compares two stream ids ({@code <millis>-<sequence>}).
+     */
+    static int compareIds(String a, String b) {
+        int dashA = a.indexOf('-');
+        int dashB = b.indexOf('-');
+        int byTime = Long.compare(Long.parseLong(a.substring(0, dashA)), Long.parseLong(b.substring(0, dashB)));
+        if (byTime != 0) {
+            return byTime;
+        }
+        return Long.compare(Long.parseLong(a.substring(dashA + 1)), Long.parseLong(b.substring(dashB + 1)));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * This class is one SSE client.
+     * The cursor is the last sent stream id, so no event is sent twice.
+     * Only the sender thread of the subscriber writes to the emitter.
+     */
+    private final class Subscriber {
+
+        /** A queue entry; id null is a heartbeat. */
+        private record Pending(String id, RevocationEventDto event) {
+        }
+
+        private static final Pending HEARTBEAT = new Pending(null, null);
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Pending> queue;
+        private String cursor;
+        private volatile boolean closed;
+        private Thread sender;
+
+        private Subscriber(SseEmitter emitter, String cursor, int queueSize) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        synchronized void start(String replayFrom) {
+            if (!closed) {
+                sender = Thread.ofVirtual().name("revocation-sse-sender").start(() -> run(replayFrom));
+            }
+        }
+
+        /**
+         * This method queues an event (or a heartbeat when id is null) and never waits.
+         * A client whose queue is full is disconnected.
+         */
+        void offer(String id, RevocationEventDto event) {
+            if (closed) {
+                return;
+            }
+            if (id == null) {
+                // a full queue already keeps the connection busy
+                queue.offer(HEARTBEAT);
+            } else if (!queue.offer(new Pending(id, event))) {
+                meterRegistry.counter("auth.revocation.subscribers.dropped").increment();
+                log.warn("Revocation subscriber is too slow, disconnected after {}", cursor);
+                close();
+            }
+        }
+
+        private void run(String replayFrom) {
+            try {
+                if (replayFrom != null) {
+                    replay(this, replayFrom);
+                }
+                while (!closed) {
+                    Pending pending = queue.take();
+                    if (pending.id() == null) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } else {
+                        send(pending.id(), pending.event());
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException ex) {
+                // client is gone
+            } catch (DataAccessException ex) {
+                log.warn("Revocation replay failed: {}", ex.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        private void send(String id, RevocationEventDto event) throws IOException {
+            if (compareIds(id, cursor) <= 0) {
+                return;
+            }
+            emitter.send(SseEmitter.event()
+                    .id(id)
+                    .name("revocation")
+                    .data(event, MediaType.APPLICATION_JSON));
+            cursor = id;
+        }
+
+        void close() {
+            Thread thread;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                thread = sender;
+            }
+            subscribers.remove(this);
+            queue.clear();
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.auth.service;
+
+import com.auth.exception.RefreshTokenException;
+import com.auth.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * This service makes and checks signed refresh tokens ({@code refresh-token.format: signed}).
+ *
+ * <p>Format: {@code rt2.<payload>.<signature>}, both parts base64url without padding.
+ * The payload is 36 bytes: user id, family id, generation, issue time and expiry (epoch millis).
+ * The signature is HMAC-SHA256 of {@code "rt2."} and the payload.
+ * Tokens of the first format ({@code rt1.}: times in epoch seconds, signature of the payload only)
+ * are still accepted; their next generation is given out as {@code rt2.}.
+ *
+ * <p>A malformed, forged or expired token is rejected here, with no Redis and no database call.
+ * Only a token with a good signature reaches the token store, which keeps one small entry
+ * per family: the current generation. Each refresh makes the next generation current.
+ * When an older generation comes again (a copied token), the family is ended,
+ * so the thief and the user both must log in again.
+ * Logout on all devices ends all families of a user at once: tokens issued at or before
+ * that time are rejected ({@link #checkIssuedAfter(Claims, Instant)}).
+ *
+ * <p>Rejected tokens are counted in {@code auth.refresh.rejected} with tag {@code reason}.
+ */
+@Service
+public class SignedRefreshTokenService {
+
+    public static final String PREFIX = "rt2.";
+    public static final String LEGACY_PREFIX = "rt1.";
+
+    private static final int PAYLOAD_BYTES = 36;
+    private static final int SIGNATURE_BYTES = 32;
+    private static final int PAYLOAD_CHARS = 48;
+    private static final int SIGNATURE_CHARS = 43;
+    private static final int TOKEN_CHARS = PREFIX.length() + PAYLOAD_CHARS + 1 + SIGNATURE_CHARS;
+
+    /**
+     * This record is the content of a signed refresh token.
+     *
+     * @param userId     id of the user
+     * @param familyId   id of the login session; all rotations keep it
+     * @param generation number of rotations since login
+     * @param issuedAt   issue time in epoch millis; for an {@code rt1.} token the last milli of its second
+     * @param expiresAt  expiry time in epoch millis
+     */
+    public record Claims(long userId, long familyId, int generation, long issuedAt, long expiresAt) {
+    }
+
+    private final TokenStateService tokenStateService;
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] prefixBytes = PREFIX.getBytes(StandardCharsets.US_ASCII);
+    private final ThreadLocal<Mac> macs;
+    private final Map<String, Counter> rejected;
+
+    public SignedRefreshTokenService(TokenStateService tokenStateService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${refresh-token.secret:${jwt.secret}}") String secret,
+                                     @Value("${refresh-token.ttl-days:30}") long ttlDays) {
+        this.tokenStateService = tokenStateService;
+        // own key: a refresh token signature can never be used as a jwt signature
+        this.key = new SecretKeySpec(hmac(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"),
+                "refresh-token-v1".getBytes(StandardCharsets.UTF_8)), "HmacSHA256");
+        this.ttlMillis = Duration.ofDays(ttlDays).toMillis();
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+        this.rejected = Map.of(
+                "malformed", meterRegistry.counter("auth.refresh.rejected", "reason", "malformed"),
+                "forged", meterRegistry.counter("auth.refresh.rejected", "reason", "forged"),
+                "expired", meterRegistry.counter("auth.refresh.rejected", "reason", "expired"),
+                "reused", meterRegistry.counter("auth.refresh.rejected", "reason", "reused"),
+                "ended", meterRegistry.counter("auth.refresh.rejected", "reason", "ended"));
+    }
+
+    /**
+     * This method checks if token has the signed format. It does not check the signature.
+     *
+     * @param token the refresh token string
+     * @return true when token starts with {@link #PREFIX} or {@link #LEGACY_PREFIX}
+     */
+    public static boolean isSigned(String token) {
+        return token != null && (token.startsWith(PREFIX) || token.startsWith(LEGACY_PREFIX));
+    }
+
+    /**
+     * This method starts a new family and returns its first refresh token (login).
+     *
+     * @param user the user
+     * @return refresh token string
+     */
+    public String issue(User user) {
+        long familyId;
+        do {
+            familyId = random.nextLong();
+        } while (familyId == 0);
+        tokenStateService.startRefreshFamily(familyId, ttlMillis);
+        return encode(user.getId(), familyId, 0);
+    }
+
+    /**
+     * This method checks token and makes its generation used.
+     * The caller then gives out {@link #next(Claims)}.
+     *
+     * @param token   the refresh token string
+     * @param onReuse called when token was used before and its family is ended now
+     * @return claims of token
+     * @throws RefreshTokenException when token is not valid, used before or its family is ended
+     */
+    public Claims rotate(String token, Consumer<Claims> onReuse) {
+        Claims claims = verify(token);
+        TokenStore.Rotation rotation = tokenStateService.rotateRefreshFamily(
+                claims.familyId(), claims.generation(), ttlMillis);
+        return switch (rotation) {
+            case ROTATED -> claims;
+            case REUSED -> {
+                onReuse.accept(claims);
+                throw reject("reused", "Refresh token was already used, session is ended");
+            }
+            case UNKNOWN -> throw reject("ended", "Refresh token is revoked");
+        };
+    }
+
+    /**
+     * This method rejects claims issued at or before the last logout on all devices of the user.
+     * Times are compared in millis, so a login just after the logout in the same second is kept.
+     * An {@code rt1.} token has the last milli of its second: one of the same second is rejected.
+     *
+     * @param claims            claims of the token
+     * @param sessionsRevokedAt the last logout on all devices, or null
+     * @throws RefreshTokenException when token is older than the logout
+     */
+    public void checkIssuedAfter(Claims claims, Instant sessionsRevokedAt) {
+        if (sessionsRevokedAt != null && claims.issuedAt() <= sessionsRevokedAt.toEpochMilli()) {
+            throw reject("ended", "Refresh token is revoked");
+        }
+    }
+
+    /**
+     * This method returns the refresh token of the next generation of claims.
+     *
+     * @param claims claims of the used token
+     * @return refresh token string
+     */
+    public String next(Claims claims) {
+        return encode(claims.userId(), claims.familyId(), claims.generation() + 1);
+    }
+
+    /**
+     * This method checks format, signature and expiry of token. It does no I/O.
+     *
+     * @param token the refresh token string
+     * @return claims of token
+     * @throws RefreshTokenException when token is not valid
+     */
+    public Claims verify(String token) {
+        if (token == null || token.length() != TOKEN_CHARS || !isSigned(token)
+                || token.charAt(PREFIX.length() + PAYLOAD_CHARS) != '.') {
+            throw reject("malformed", "Refresh token is malformed");
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            payload = decoder.decode(token.substring(PREFIX.length(), PREFIX.length() + PAYLOAD_CHARS));
+            signature = decoder.decode(token.substring(PREFIX.length() + PAYLOAD_CHARS + 1));
+        } catch (IllegalArgumentException ex) {
+            throw reject("malformed", "Refresh token is malformed");
+        }
+        if (payload.length != PAYLOAD_BYTES || signature.length != SIGNATURE_BYTES) {
+            throw reject("malformed", "Refresh token is malformed");
+        }
+        boolean legacy = token.startsWith(LEGACY_PREFIX);
+        if (!MessageDigest.isEqual(legacy ? signLegacy(payload) : sign(payload), signature)) {
+            throw reject("forged", "Refresh token signature is not valid");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        Claims claims = new Claims(buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getLong(), buffer.getLong());
+        if (legacy) {
+            // seconds: the token may be from any milli of its second, take the last one
+            claims = new Claims(claims.userId(), claims.familyId(), claims.generation(),
+                    claims.issuedAt() * 1000 + 999, claims.expiresAt() * 1000);
+        }
+        if (claims.expiresAt() <= System.currentTimeMillis()) {
+            throw reject("expired", "Refresh token is expired");
+        }
+        return claims;
+    }
+
+    /**
+     * This method makes the error for a token that is not a refresh token of this service.
+     *
+     * @return refresh token exception
+     */
+    public RefreshTokenException malformed() {
+        return reject("malformed", "Refresh token is malformed");
+    }
+
+    private String encode(long userId, long familyId, int generation) {
+        long now = System.currentTimeMillis();
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+                .putLong(userId)
+                .putLong(familyId)
+                .putInt(generation)
+                .putLong(now)
+                .putLong(now + ttlMillis)
+                .array();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return PREFIX + encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(payload));
+    }
+
+    private byte[] sign(byte[] payload) {
+        // the prefix is signed too: a payload can not be read with the times of the other format
+        Mac mac = macs.get();
+        mac.update(prefixBytes);
+        return mac.doFinal(payload);
+    }
+
+    private byte[] signLegacy(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private RefreshTokenException reject(String reason, String message) {
+        rejected.get(reason).increment();
+        return new RefreshTokenException(message);
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        return newMac(key).doFinal(data);
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HmacSHA256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.auth.service;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * This service checks allowed access tokens.
+ * The state is kept by the {@link TokenStore} backend.
+ * Writes are done by {@link TokenStateService}.
+ */
+@Service
+public class TokenAllowListService {
+
+    private final TokenStore tokenStore;
+
+    public TokenAllowListService(TokenStore tokenStore) {
+        this.tokenStore = tokenStore;
+    }
+
+    public boolean isAllowed(String username, String token) {
+        return tokenStore.isAllowed(username, token);
+    }
+}
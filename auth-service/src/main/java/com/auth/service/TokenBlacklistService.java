@@ -0,0 +1,29 @@
+package com.auth.service;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * This service checks revoked tokens.
+ * The state is kept by the {@link TokenStore} backend.
+ * Tokens are revoked by {@link TokenStateService}.
+ */
+@Service
+public class TokenBlacklistService {
+
+    private final TokenStore tokenStore;
+
+    public TokenBlacklistService(TokenStore tokenStore) {
+        this.tokenStore = tokenStore;
+    }
+
+    /**
+     * This method checks if token is in blacklist.
+     *
+     * @param username the owner of token
+     * @param token the access token string
+     * @return true when token is revoked
+     */
+    public boolean isBlacklisted(String username, String token) {
+        return tokenStore.isBlacklisted(username, token);
+    }
+}
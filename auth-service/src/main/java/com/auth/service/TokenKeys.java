@@ -0,0 +1,144 @@
+package com.auth.service;
+
+import com.auth.client.TokenIds;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * This class builds the Redis keys for token state.
+ *
+ * <p>Keys of a user have a hash tag ({@code {...}}) made from the username.
+ * In Redis Cluster only the hash tag is hashed, so all keys of one user
+ * are in the same slot, and multi-key commands for one user are allowed.
+ *
+ * <p>The tag is not the username itself: a username may contain {@code {} or {@code }},
+ * and then Redis would hash another part of the key (example {@code a{b}c} hashes {@code b}),
+ * so the keys of that user would be in different slots (CROSSSLOT errors in the scripts).
+ * The tag is the first 96 bits of SHA-256 of the username, base64url (16 characters).
+ */
+public final class TokenKeys {
+
+    private static final int TAG_BYTES = 12;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    });
+
+    private TokenKeys() {
+    }
+
+    /**
+     * This method returns the allow-list key of token.
+     *
+     * @param username the owner of token
+     * @param token    the access token string
+     * @return redis key
+     */
+    public static String allowList(String username, String token) {
+        return allowListPrefix(username) + token;
+    }
+
+    /**
+     * This method returns the allow-list key prefix of user.
+     *
+     * @param username the owner of tokens
+     * @return redis key prefix
+     */
+    public static String allowListPrefix(String username) {
+        return "auth:allowlist:" + tag(username) + ":";
+    }
+
+    /**
+     * This method returns the blacklist key of token.
+     *
+     * @param username the owner of token
+     * @param token    the access token string
+     * @return redis key
+     */
+    public static String blacklist(String username, String token) {
+        return blacklistPrefix(username) + token;
+    }
+
+    /**
+     * This method returns the blacklist key prefix of user.
+     *
+     * @param username the owner of tokens
+     * @return redis key prefix
+     */
+    public static String blacklistPrefix(String username) {
+        return "auth:blacklist:" + tag(username) + ":";
+    }
+
+    /**
+     * This method returns the allow-list key of token in the old layout, without the user.
+     * It is read only when {@code redis.legacy-keys} is true, after an upgrade.
+     *
+     * @param token the access token string
+     * @return redis key
+     */
+    public static String legacyAllowList(String token) {
+        return "auth:allowlist:" + token;
+    }
+
+    /**
+     * This method returns the key of token index of user.
+     * It is a sorted set of live tokens, score is expiry time in epoch millis.
+     *
+     * @param username the owner of tokens
+     * @return redis key
+     */
+    public static String userTokens(String username) {
+        return "auth:user-tokens:" + tag(username);
+    }
+
+    /**
+     * This method returns the key of a signed refresh token family.
+     * The value is the current generation.
+     *
+     * @param familyId the family id
+     * @return redis key
+     */
+    public static String refreshFamily(long familyId) {
+        return "auth:refresh-family:" + Long.toHexString(familyId);
+    }
+
+    /**
+     * This method returns the key of the revocation stream.
+     * It has no hash tag: it is one key for all users.
+     *
+     * @return redis key
+     */
+    public static String revocationStream() {
+        return "auth:revocations";
+    }
+
+    /**
+     * This method returns the id of token used in revocation events.
+     * It comes from the client library, so downstream services compute the same id.
+     *
+     * @param token the access token string
+     * @return token id
+     */
+    public static String tokenId(String token) {
+        return TokenIds.of(token);
+    }
+
+    /**
+     * This method returns the hash tag of user, see the class comment.
+     *
+     * @param username the user
+     * @return hash tag with braces
+     */
+    static String tag(String username) {
+        byte[] hash = SHA_256.get().digest(username.getBytes(StandardCharsets.UTF_8));
+        return "{" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, TAG_BYTES)) + "}";
+    }
+}
@@ -0,0 +1,81 @@
+package com.auth.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This service changes token state.
+ *
+ * <p>The state is kept by the {@link TokenStore} backend ({@code token-store.type}).
+ * With Redis each change is one atomic Lua script, see {@link RedisTokenStore}.
+ *
+ * <p>Read-only checks stay in {@link TokenAllowListService} and {@link TokenBlacklistService}.
+ */
+@Service
+public class TokenStateService {
+
+    private final TokenStore tokenStore;
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationMs;
+
+    public TokenStateService(TokenStore tokenStore) {
+        this.tokenStore = tokenStore;
+    }
+
+    /**
+     * This method adds a new access token to allow-list
+     * and to the token index of user.
+     * It is used for login, signup, Google login and refresh.
+     *
+     * @param username the owner of token
+     * @param token    the access token string
+     */
+    public void issue(String username, String token) {
+        tokenStore.issue(username, token, jwtExpirationMs);
+    }
+
+    /**
+     * This method revokes one access token (logout).
+     * It moves the token from allow-list to blacklist with the TTL left.
+     *
+     * @param username the owner of token
+     * @param token    the access token string
+     * @return TTL left in millis, or 0 when the token was not allowed
+     */
+    public long revoke(String username, String token) {
+        return tokenStore.revoke(username, token);
+    }
+
+    /**
+     * This method revokes all live access tokens of user.
+     *
+     * @param username the owner of tokens
+     * @return number of revoked tokens
+     */
+    public long revokeAll(String username) {
+        return tokenStore.revokeAll(username);
+    }
+
+    /**
+     * This method starts a family of signed refresh tokens (login).
+     *
+     * @param familyId  the family id
+     * @param ttlMillis time to live of the first refresh token
+     */
+    public void startRefreshFamily(long familyId, long ttlMillis) {
+        tokenStore.startRefreshFamily(familyId, ttlMillis);
+    }
+
+    /**
+     * This method uses one generation of a refresh token family (refresh).
+     *
+     * @param familyId   the family id
+     * @param generation the generation of the presented refresh token
+     * @param ttlMillis  time to live of the next refresh token
+     * @return the result
+     */
+    public TokenStore.Rotation rotateRefreshFamily(long familyId, int generation, long ttlMillis) {
+        return tokenStore.rotateRefreshFamily(familyId, generation, ttlMillis);
+    }
+}
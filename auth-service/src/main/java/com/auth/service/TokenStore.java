@@ -0,0 +1,90 @@
+package com.auth.service;
+
+/**
+ * This interface is the store of token state: allow-list, blacklist,
+ * the token index of each user and the families of signed refresh tokens.
+ *
+ * <p>Backends ({@code token-store.type}):
+ * - redis: {@link RedisTokenStore}, shared by all nodes (default)
+ * - memory: {@link InMemoryTokenStore}, in this process only, for single-node installs and tests
+ *
+ * <p>The services {@link TokenStateService}, {@link TokenAllowListService} and
+ * {@link TokenBlacklistService} use it; other code uses those services.
+ */
+public interface TokenStore {
+
+    /**
+     * This enum lists the results of a refresh token rotation.
+     */
+    enum Rotation {
+        /** The generation was the current one; the next one is current now. */
+        ROTATED,
+        /** An older generation was used again; the family is ended. */
+        REUSED,
+        /** The family is ended or expired. */
+        UNKNOWN
+    }
+
+    /**
+     * This method adds a new access token to allow-list and to the token index of user.
+     *
+     * @param username  the owner of token
+     * @param token     the access token string
+     * @param ttlMillis time to live of token
+     */
+    void issue(String username, String token, long ttlMillis);
+
+    /**
+     * This method moves one access token from allow-list to blacklist with the TTL left.
+     *
+     * @param username the owner of token
+     * @param token    the access token string
+     * @return TTL left in millis, or 0 when the token was not allowed
+     */
+    long revoke(String username, String token);
+
+    /**
+     * This method moves all live access tokens of user to blacklist.
+     *
+     * @param username the owner of tokens
+     * @return number of revoked tokens
+     */
+    long revokeAll(String username);
+
+    /**
+     * This method checks if token is in allow-list.
+     *
+     * @param username the owner of token
+     * @param token    the access token string
+     * @return true when token is allowed
+     */
+    boolean isAllowed(String username, String token);
+
+    /**
+     * This method checks if token is in blacklist.
+     *
+     * @param username the owner of token
+     * @param token    the access token string
+     * @return true when token is revoked
+     */
+    boolean isBlacklisted(String username, String token);
+
+    /**
+     * This method starts a family of signed refresh tokens. Generation 0 is the current one.
+     *
+     * @param familyId  the family id, not 0
+     * @param ttlMillis time to live of the first refresh token
+     */
+    void startRefreshFamily(long familyId, long ttlMillis);
+
+    /**
+     * This method checks that generation is the current one of family and makes the next one current.
+     * When an older generation is used (a copied token), the whole family is ended.
+     *
+     * @param familyId   the family id
+     * @param generation the generation of the presented refresh token
+     * @param ttlMillis  time to live of the next refresh token
+     * @return the result
+     */
+    Rotation rotateRefreshFamily(long familyId, int generation, long ttlMillis);
+}
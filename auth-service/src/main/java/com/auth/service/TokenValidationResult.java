@@ -0,0 +1,58 @@
+package com.auth.service;
+
+import java.util.List;
+
+/**
+ * This record is the result of {@link TokenValidationService#validate(String)}.
+ *
+ * @param status          the result of checks
+ * @param username        owner of token, null when the signature was not valid
+ * @param roles           roles from token, empty when not valid
+ * @param expiresAtMillis expiry of token (epoch millis), 0 when not valid
+ */
+public record TokenValidationResult(Status status,
+                                    String username,
+                                    List<String> roles,
+                                    long expiresAtMillis) {
+
+    /**
+     * This enum lists the results of token checks.
+     * The tag is used in metrics.
+     */
+    public enum Status {
+        ALLOWED("allowed"),
+        REVOKED("revoked"),
+        UNKNOWN("unknown"),
+        EXPIRED("expired"),
+        INVALID("invalid"),
+        UNAVAILABLE("unavailable"),
+        ERROR("error");
+
+        private final String tag;
+
+        Status(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    /** Results without user, one per status; records can not change, so they are shared. */
+    private static final TokenValidationResult[] EMPTY = new TokenValidationResult[Status.values().length];
+
+    static {
+        for (Status status : Status.values()) {
+            EMPTY[status.ordinal()] = new TokenValidationResult(status, null, List.of(), 0);
+        }
+    }
+
+    static TokenValidationResult of(Status status) {
+        return EMPTY[status.ordinal()];
+    }
+
+    public boolean isAllowed() {
+        return status == Status.ALLOWED;
+    }
+}
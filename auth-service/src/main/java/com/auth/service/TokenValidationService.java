@@ -0,0 +1,113 @@
+package com.auth.service;
+
+import com.auth.client.RoleClaims;
+import com.auth.exception.TokenStateUnavailableException;
+import com.auth.jfr.TokenStageEvent;
+import com.auth.jfr.UserHashes;
+import com.auth.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * This service checks an access token.
+ *
+ * <p>Steps:
+ * - shape: a string that can not be a jwt is invalid at once
+ * - signature and expiry (no I/O)
+ * - blacklist in Redis
+ * - allow-list in Redis
+ *
+ * <p>It is used by the JWT filter of the REST API and by the gRPC validation API,
+ * so both give the same answer for the same token. It does not load the user from database.
+ *
+ * <p>Each step is a JFR event {@link TokenStageEvent} (recorded when it takes 1 ms or more).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenValidationService {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final TokenAllowListService tokenAllowListService;
+
+    /**
+     * This method checks a token. It does not throw.
+     *
+     * @param token the access token string (without "Bearer ")
+     * @return the result, with username and roles when the token is allowed
+     */
+    public TokenValidationResult validate(String token) {
+        if (!JwtTokenProvider.hasJwtShape(token, 0)) {
+            // junk is answered before parsing, so it costs no exception and no crypto
+            return TokenValidationResult.of(TokenValidationResult.Status.INVALID);
+        }
+        try {
+            TokenStageEvent parseEvent = new TokenStageEvent();
+            parseEvent.begin();
+            Claims claims;
+            try {
+                claims = jwtTokenProvider.getClaims(token);
+            } catch (RuntimeException ex) {
+                commit(parseEvent, TokenStageEvent.PARSE, ex.getClass().getSimpleName(), null);
+                throw ex;
+            }
+            // the username is needed for the Redis keys (hash tag)
+            String username = claims.getSubject();
+            commit(parseEvent, TokenStageEvent.PARSE, "ok", username);
+            if (username == null) {
+                return TokenValidationResult.of(TokenValidationResult.Status.INVALID);
+            }
+
+            TokenStageEvent blacklistEvent = new TokenStageEvent();
+            blacklistEvent.begin();
+            boolean blacklisted = tokenBlacklistService.isBlacklisted(username, token);
+            commit(blacklistEvent, TokenStageEvent.BLACKLIST, blacklisted ? "hit" : "miss", username);
+            if (blacklisted) {
+                return TokenValidationResult.of(TokenValidationResult.Status.REVOKED);
+            }
+
+            TokenStageEvent allowListEvent = new TokenStageEvent();
+            allowListEvent.begin();
+            boolean allowed = tokenAllowListService.isAllowed(username, token);
+            commit(allowListEvent, TokenStageEvent.ALLOW_LIST, allowed ? "hit" : "miss", username);
+            if (!allowed) {
+                return TokenValidationResult.of(TokenValidationResult.Status.UNKNOWN);
+            }
+
+            long expiresAt = claims.getExpiration() == null ? 0 : claims.getExpiration().getTime();
+            return new TokenValidationResult(TokenValidationResult.Status.ALLOWED, username,
+                    RoleClaims.roles(claims, jwtTokenProvider.getRoleTable()), expiresAt);
+        } catch (ExpiredJwtException ex) {
+            return TokenValidationResult.of(TokenValidationResult.Status.EXPIRED);
+        } catch (JwtException | IllegalArgumentException ex) {
+            // bad or forged token
+            return TokenValidationResult.of(TokenValidationResult.Status.INVALID);
+        } catch (TokenStateUnavailableException ex) {
+            // Redis is down and fallback policy is fail-closed
+            log.debug("Token state unavailable: {}", ex.getMessage());
+            return TokenValidationResult.of(TokenValidationResult.Status.UNAVAILABLE);
+        } catch (Exception ex) {
+            log.warn("Token check failed: {}", ex.getMessage());
+            return TokenValidationResult.of(TokenValidationResult.Status.ERROR);
+        }
+    }
+
+    /**
+     * This method ends a stage event and records it when JFR wants it.
+     * The username is hashed only then.
+     */
+    private static void commit(TokenStageEvent event, String stage, String outcome, String username) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.outcome = outcome;
+            event.user = UserHashes.of(username);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.auth.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This service keeps last login and last seen time of users.
+ *
+ * <p>Times are kept in memory, one entry per user, and only the newest time is kept.
+ * A scheduled job writes all entries with one {@code UPDATE ... FROM (VALUES ...)}.
+ * So the number of written rows depends on active users per interval, not on requests.
+ *
+ * <p>It depends on the entity manager factory, so the last flush on shutdown runs
+ * before Hibernate drops the schema ({@code ddl-auto: create-drop}).
+ */
+@Slf4j
+@Service
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class UserActivityTracker {
+
+    /**
+     * Max rows in one UPDATE statement (3 parameters per row).
+     */
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Activity> pending = new ConcurrentHashMap<>();
+
+    /**
+     * This record is the pending times of one user.
+     * A null value means no new time for this column.
+     */
+    private record Activity(LocalDateTime lastLoginAt, LocalDateTime lastSeenAt) {
+
+        Activity merge(Activity other) {
+            return new Activity(latest(lastLoginAt, other.lastLoginAt),
+                    latest(lastSeenAt, other.lastSeenAt));
+        }
+
+        private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return a.isAfter(b) ? a : b;
+        }
+    }
+
+    /**
+     * This method saves a login of user.
+     * A login is also a "seen" event.
+     *
+     * @param userId the user id
+     */
+    public void recordLogin(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        pending.merge(userId, new Activity(now, now), Activity::merge);
+    }
+
+    /**
+     * This method saves an authenticated request of user.
+     *
+     * @param userId the user id
+     */
+    public void recordSeen(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        pending.merge(userId, new Activity(null, LocalDateTime.now()), Activity::merge);
+    }
+
+    /**
+     * This method writes all pending times to database.
+     */
+    @Scheduled(fixedDelayString = "${user-activity.flush-interval-ms:30000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Long, Activity>> batch = new ArrayList<>(pending.size());
+        for (Long userId : pending.keySet()) {
+            Activity activity = pending.remove(userId);
+            if (activity != null) {
+                batch.add(Map.entry(userId, activity));
+            }
+        }
+
+        for (int from = 0; from < batch.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Map.Entry<Long, Activity>> chunk =
+                    batch.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, batch.size()));
+            try {
+                jdbcTemplate.update(buildUpdateSql(chunk.size()), buildParams(chunk));
+            } catch (RuntimeException ex) {
+                // put times back, so next flush tries again
+                chunk.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), Activity::merge));
+                log.warn("User activity flush failed. rows={}, error={}", chunk.size(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This method writes pending times before the app stops.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private String buildUpdateSql(int rows) {
+        StringBuilder sql = new StringBuilder(128 + rows * 64)
+                .append("UPDATE users AS u SET ")
+                .append("last_login_at = GREATEST(u.last_login_at, v.last_login_at), ")
+                .append("last_seen_at = GREATEST(u.last_seen_at, v.last_seen_at) ")
+                .append("FROM (VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(CAST(? AS bigint), CAST(? AS timestamp), CAST(? AS timestamp))");
+        }
+        return sql.append(") AS v(id, last_login_at, last_seen_at) WHERE u.id = v.id").toString();
+    }
+
+    private Object[] buildParams(List<Map.Entry<Long, Activity>> chunk) {
+        Object[] params = new Object[chunk.size() * 3];
+        int i = 0;
+        for (Map.Entry<Long, Activity> entry : chunk) {
+            Activity activity = entry.getValue();
+            params[i++] = entry.getKey();
+            params[i++] = activity.lastLoginAt() == null ? null : Timestamp.valueOf(activity.lastLoginAt());
+            params[i++] = activity.lastSeenAt() == null ? null : Timestamp.valueOf(activity.lastSeenAt());
+        }
+        return params;
+    }
+}
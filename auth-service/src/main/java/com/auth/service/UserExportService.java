@@ -0,0 +1,257 @@
+package com.auth.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This service writes all users with their roles to a stream (NDJSON or CSV).
+ *
+ * <p>Made for exports of millions of users:
+ * - the rows come from a Postgres server-side cursor ({@code export.fetch-size} rows per round trip),
+ *   not through JPA, so memory does not grow with the user count
+ * - each row is written to the output at once; the output is flushed after each fetch
+ * - the connection is not taken from the Hikari pool, so an export never makes requests wait
+ *   for a connection; at most {@code export.max-concurrent} exports run at the same time
+ * - rows are sorted by id; {@code afterId} continues a broken export after the last id received
+ *
+ * <p>The password hash is never exported.
+ * Metrics: timer {@code auth.export} (format, outcome), counter {@code auth.export.rows}.
+ */
+@Slf4j
+@Service
+public class UserExportService {
+
+    /**
+     * This enum lists the export formats.
+     */
+    public enum Format {
+        NDJSON, CSV;
+
+        /**
+         * This method reads a format name, in any case.
+         *
+         * @param name ndjson or csv
+         * @return the format
+         * @throws ResponseStatusException 400 for another name
+         */
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format must be ndjson or csv");
+        }
+    }
+
+    private static final String SELECT = """
+            SELECT u.id, u.username, u.email, u.provider, u.created_at, u.last_login_at, u.last_seen_at,
+                   (SELECT string_agg(r.name, ',' ORDER BY r.name)
+                      FROM user_roles ur JOIN roles r ON r.id = ur.role_id
+                     WHERE ur.user_id = u.id) AS roles
+              FROM users u
+             WHERE u.id > ?
+             ORDER BY u.id""";
+
+    private static final String CSV_HEADER = "id,username,email,provider,roles,created_at,last_login_at,last_seen_at\n";
+
+    private final DataSource exportDataSource;
+    private final Semaphore running;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final MeterRegistry meterRegistry;
+    private final Counter rows;
+
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
+    public UserExportService(DataSourceProperties dataSourceProperties,
+                             MeterRegistry meterRegistry,
+                             @Value("${export.max-concurrent:2}") int maxConcurrent) {
+        // own connections, not pooled: an export holds its connection for minutes
+        this.exportDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        this.running = new Semaphore(maxConcurrent);
+        this.meterRegistry = meterRegistry;
+        this.rows = meterRegistry.counter("auth.export.rows");
+    }
+
+    /**
+     * This method writes users with id greater than afterId to out, sorted by id.
+     * Nothing is written when the export can not start, so the caller can still send an error.
+     *
+     * @param format  output format
+     * @param afterId only users after this id (0 = all)
+     * @param limit   maximum number of users (0 = no limit)
+     * @param out     output, not closed
+     * @return number of users written
+     * @throws ResponseStatusException 429 when {@code export.max-concurrent} exports are running
+     * @throws IOException             when the client goes away
+     */
+    public long export(Format format, long afterId, long limit, OutputStream out) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many exports are running");
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try (Connection connection = exportDataSource.getConnection()) {
+            // Postgres uses a cursor only inside a transaction and with a fetch size
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            String sql = limit > 0 ? SELECT + " LIMIT ?" : SELECT;
+            try (PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, afterId);
+                if (limit > 0) {
+                    statement.setLong(2, limit);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    long written = format == Format.CSV ? writeCsv(resultSet, out) : writeNdjson(resultSet, out);
+                    outcome = "ok";
+                    return written;
+                }
+            } finally {
+                connection.rollback();
+            }
+        } catch (IOException ex) {
+            outcome = "aborted";
+            log.info("User export stopped by client: {}", ex.getMessage());
+            throw ex;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("User export failed", ex);
+        } finally {
+            running.release();
+            sample.stop(meterRegistry.timer("auth.export", "format", format.name().toLowerCase(), "outcome", outcome));
+        }
+    }
+
+    private long writeNdjson(ResultSet resultSet, OutputStream out) throws SQLException, IOException {
+        long count = 0;
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // one object per line, no space between them
+            json.setRootValueSeparator(null);
+            while (resultSet.next()) {
+                json.writeStartObject();
+                json.writeNumberField("id", resultSet.getLong(1));
+                json.writeStringField("username", resultSet.getString(2));
+                json.writeStringField("email", resultSet.getString(3));
+                json.writeStringField("provider", resultSet.getString(4));
+                json.writeArrayFieldStart("roles");
+                String roles = resultSet.getString(8);
+                if (roles != null) {
+                    for (String role : roles.split(",")) {
+                        json.writeString(role);
+                    }
+                }
+                json.writeEndArray();
+                json.writeStringField("createdAt", isoTime(resultSet.getTimestamp(5)));
+                json.writeStringField("lastLoginAt", isoTime(resultSet.getTimestamp(6)));
+                json.writeStringField("lastSeenAt", isoTime(resultSet.getTimestamp(7)));
+                json.writeEndObject();
+                json.writeRaw('\n');
+                count = written(count, json::flush);
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(ResultSet resultSet, OutputStream out) throws SQLException, IOException {
+        long count = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(new BufferedOutputStream(out), StandardCharsets.UTF_8));
+        csv.write(CSV_HEADER);
+        while (resultSet.next()) {
+            csv.write(Long.toString(resultSet.getLong(1)));
+            writeCsvField(csv, resultSet.getString(2));
+            writeCsvField(csv, resultSet.getString(3));
+            writeCsvField(csv, resultSet.getString(4));
+            writeCsvField(csv, roleList(resultSet.getString(8)));
+            writeCsvField(csv, isoTime(resultSet.getTimestamp(5)));
+            writeCsvField(csv, isoTime(resultSet.getTimestamp(6)));
+            writeCsvField(csv, isoTime(resultSet.getTimestamp(7)));
+            csv.write('\n');
+            count = written(count, csv::flush);
+        }
+        csv.flush();
+        return count;
+    }
+
+    /**
+     * This interface is a flush that can fail.
+     */
+    private interface Flush {
+        void run() throws IOException;
+    }
+
+    /**
+     * This method counts a row and flushes after each fetch, so the client gets data while the export runs.
+     */
+    private long written(long count, Flush flush) throws IOException {
+        rows.increment();
+        count++;
+        if (count % fetchSize == 0) {
+            flush.run();
+        }
+        return count;
+    }
+
+    /**
+     * This method writes a comma and a CSV field (RFC 4180): quoted when it has a comma, quote or line break.
+     */
+    private static void writeCsvField(Writer csv, String value) throws IOException {
+        csv.write(',');
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            csv.write(value);
+            return;
+        }
+        csv.write('"');
+        csv.write(value.replace("\"", "\"\""));
+        csv.write('"');
+    }
+
+    /**
+     * This method makes the CSV role list: role names with ';' between them.
+     */
+    private static String roleList(String roles) {
+        return roles == null ? null : roles.replace(',', ';');
+    }
+
+    private static String isoTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().toString();
+    }
+}
@@ -0,0 +1,14 @@
+-- Issue an access token in one step.
+-- KEYS[1] allow-list key of token
+-- KEYS[2] token index of user (sorted set, score = expiry in epoch millis)
+-- ARGV[1] token, ARGV[2] username, ARGV[3] ttl millis, ARGV[4] now millis
+local ttl = tonumber(ARGV[3])
+local now = tonumber(ARGV[4])
+
+redis.call('SET', KEYS[1], ARGV[2], 'PX', ttl)
+redis.call('ZADD', KEYS[2], now + ttl, ARGV[1])
+redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', now)
+if redis.call('PTTL', KEYS[2]) < ttl then
+    redis.call('PEXPIRE', KEYS[2], ttl)
+end
+return 1
@@ -0,0 +1,12 @@
+-- Append one revocation event to the revocation stream.
+-- The stream is trimmed to about ARGV[1] entries (MAXLEN ~ is cheap for Redis).
+-- KEYS[1] revocation stream
+-- ARGV[1] max length, ARGV[2] type, ARGV[3] token id, ARGV[4] username,
+-- ARGV[5] expires at (epoch millis), ARGV[6] revoked at (epoch millis)
+-- Returns the stream id of the new entry.
+return redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[1], '*',
+        'type', ARGV[2],
+        'tokenId', ARGV[3],
+        'username', ARGV[4],
+        'expiresAt', ARGV[5],
+        'revokedAt', ARGV[6])
@@ -0,0 +1,27 @@
+-- Revoke the given access tokens of one user in one step (logout-all).
+-- The caller reads the token index first and passes the keys of each token, so every key
+-- the script touches is declared in KEYS (needed by Redis Cluster and by ACL key patterns).
+-- All keys have the hash tag of the user, so they are in one slot.
+-- KEYS[1] token index of user, then allow-list key and blacklist key of each token
+-- ARGV[1] now millis, then the tokens, in the same order as their keys
+-- A token that left the index since it was read (logout, expiry) is skipped.
+-- Returns the number of revoked tokens.
+local now = tonumber(ARGV[1])
+
+local count = 0
+for i = 2, #ARGV do
+    local token = ARGV[i]
+    local expiresAt = redis.call('ZSCORE', KEYS[1], token)
+    if expiresAt then
+        redis.call('ZREM', KEYS[1], token)
+        local ttl = math.floor(tonumber(expiresAt) - now)
+        if ttl > 0 then
+            redis.call('DEL', KEYS[2 * i - 2])
+            redis.call('SET', KEYS[2 * i - 1], 'revoked', 'PX', ttl)
+            count = count + 1
+        end
+    end
+end
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now)
+return count
@@ -0,0 +1,14 @@
+-- Revoke one access token in one step (logout).
+-- The blacklist TTL is the TTL left on the allow-list key, so the token is not parsed.
+-- KEYS[1] allow-list key, KEYS[2] blacklist key, KEYS[3] token index of user
+-- ARGV[1] token
+-- Returns the TTL left in millis, or 0 when the token was not allowed.
+local ttl = redis.call('PTTL', KEYS[1])
+if ttl <= 0 then
+    return 0
+end
+
+redis.call('DEL', KEYS[1])
+redis.call('SET', KEYS[2], 'revoked', 'PX', ttl)
+redis.call('ZREM', KEYS[3], ARGV[1])
+return ttl
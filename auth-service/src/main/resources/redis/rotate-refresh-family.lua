@@ -0,0 +1,17 @@
+-- Use one generation of a signed refresh token family (refresh) in one step.
+-- KEYS[1] family key (value = current generation)
+-- ARGV[1] generation of the presented token, ARGV[2] TTL of the next token in millis
+-- Returns 1 when rotated, 0 when an older generation was used again (the family is ended),
+-- -1 when the family is unknown (ended or expired).
+local current = redis.call('GET', KEYS[1])
+if not current then
+    return -1
+end
+
+if tonumber(current) ~= tonumber(ARGV[1]) then
+    redis.call('DEL', KEYS[1])
+    return 0
+end
+
+redis.call('SET', KEYS[1], tonumber(current) + 1, 'PX', ARGV[2])
+return 1
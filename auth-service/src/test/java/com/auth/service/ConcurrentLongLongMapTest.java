@@ -0,0 +1,198 @@
+package com.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentLongLongMapTest {
+
+    @Test
+    void putGetAndMissingKey() {
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap(4, 8);
+
+        map.put(42, 7);
+        map.put(42, 8);
+
+        assertThat(map.get(42)).isEqualTo(8);
+        assertThat(map.get(43)).isZero();
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void computeWithZeroRemovesEntry() {
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap(1, 8);
+        map.put(5, 1);
+
+        assertThat(map.compute(5, current -> current + 1)).isEqualTo(2);
+        assertThat(map.compute(5, current -> 0)).isZero();
+        assertThat(map.compute(6, current -> 0)).isZero();
+
+        assertThat(map.get(5)).isZero();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    void deleteInsideProbeRunKeepsLaterKeysReachable() {
+        // capacity 8: keys 1, 9, 17, 25 have the same home slot
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap(1, 8);
+        map.put(1, 10);
+        map.put(9, 90);
+        map.put(17, 170);
+        map.put(2, 20);
+
+        map.compute(9, current -> 0);
+
+        assertThat(map.get(1)).isEqualTo(10);
+        assertThat(map.get(9)).isZero();
+        assertThat(map.get(17)).isEqualTo(170);
+        assertThat(map.get(2)).isEqualTo(20);
+        assertThat(map.size()).isEqualTo(3);
+
+        map.compute(1, current -> 0);
+        assertThat(map.get(17)).isEqualTo(170);
+        assertThat(map.get(2)).isEqualTo(20);
+    }
+
+    @Test
+    void deleteInProbeRunThatWrapsAroundTheTable() {
+        // capacity 8: home slot 7, the run goes on at slots 0 and 1
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap(1, 8);
+        map.put(7, 1);
+        map.put(15, 2);
+        map.put(23, 3);
+        map.put(8, 4);
+
+        map.compute(7, current -> 0);
+
+        assertThat(map.get(15)).isEqualTo(2);
+        assertThat(map.get(23)).isEqualTo(3);
+        assertThat(map.get(8)).isEqualTo(4);
+
+        map.compute(15, current -> 0);
+        assertThat(map.get(23)).isEqualTo(3);
+        assertThat(map.get(8)).isEqualTo(4);
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void growKeepsAllEntries() {
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap(2, 8);
+        long before = map.capacity();
+
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key * 31, key);
+        }
+
+        assertThat(map.capacity()).isGreaterThan(before);
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long key = 1; key <= 10_000; key++) {
+            assertThat(map.get(key * 31)).isEqualTo(key);
+        }
+    }
+
+    @Test
+    void sameResultsAsHashMapForRandomPutsAndRemoves() {
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap(1, 8);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            // few keys with few low bits: many collisions and deletes in the same runs
+            long key = 1 + random.nextInt(64) * 16L;
+            if (random.nextInt(3) == 0) {
+                map.compute(key, current -> 0);
+                expected.remove(key);
+            } else {
+                long value = 1 + random.nextInt(1000);
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 64 * 16; key += 16) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, 0L));
+        }
+    }
+
+    @Test
+    void concurrentPutAndRemove() throws Exception {
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap(4, 8);
+        int writers = 4;
+        int keysPerWriter = 20_000;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong wrongReads = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                long first = (long) w * keysPerWriter + 1;
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (long key = first; key < first + keysPerWriter; key++) {
+                        map.put(spread(key), key);
+                    }
+                    // remove the odd keys again
+                    for (long key = first; key < first + keysPerWriter; key += 2) {
+                        map.compute(spread(key), current -> 0);
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(pool.submit(() -> {
+                    start.await();
+                    Random random = new Random();
+                    while (writing.get()) {
+                        long key = 1 + random.nextInt(writers * keysPerWriter);
+                        long value = map.get(spread(key));
+                        // a key is either missing or has its own value, never another one
+                        if (value != 0 && value != key) {
+                            wrongReads.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(wrongReads.get()).isZero();
+        assertThat(map.size()).isEqualTo((long) writers * keysPerWriter / 2);
+        for (long key = 1; key <= (long) writers * keysPerWriter; key++) {
+            assertThat(map.get(spread(key))).isEqualTo(key % 2 == 0 ? key : 0);
+        }
+    }
+
+    /**
+     * This method spreads small keys over all stripes (chosen by the high bits), like the hashes of tokens.
+     */
+    private static long spread(long key) {
+        // odd multiplier: one key per value, and never 0 for keys 1..2^63
+        return key * 0x9E3779B97F4A7C15L;
+    }
+}
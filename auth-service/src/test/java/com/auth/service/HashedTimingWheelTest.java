@@ -0,0 +1,137 @@
+package com.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedTimingWheelTest {
+
+    private static final long TICK = 100;
+    private static final long START = 1_000;
+
+    private final List<Long> expired = new ArrayList<>();
+
+    @Test
+    void entryOnTickBoundaryExpiresAtThatTick() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, 8, START, (key, value, owner) -> expired.add(key));
+        wheel.schedule(1, 0, 1_100, null);
+
+        assertThat(wheel.advance(1_099)).isZero();
+        assertThat(wheel.advance(1_100)).isEqualTo(1);
+        assertThat(expired).containsExactly(1L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void entryInsideTickExpiresAtNextTickNeverBefore() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, 8, START, (key, value, owner) -> expired.add(key));
+        wheel.schedule(1, 0, 1_150, null);
+
+        assertThat(wheel.advance(1_100)).isZero();
+        assertThat(wheel.advance(1_199)).isZero();
+        assertThat(wheel.advance(1_200)).isEqualTo(1);
+        assertThat(expired).containsExactly(1L);
+    }
+
+    @Test
+    void handlerGetsValueAndOwner() {
+        List<String> seen = new ArrayList<>();
+        Object owner = new Object();
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, 8, START,
+                (key, value, o) -> seen.add(key + ":" + value + ":" + (o == owner)));
+        wheel.schedule(7, 42, 1_200, owner);
+
+        wheel.advance(1_200);
+
+        assertThat(seen).containsExactly("7:42:true");
+    }
+
+    @Test
+    void entryOfLaterRoundStaysUntilItExpires() {
+        // 4 buckets of 100 ms: one turn is 400 ms, the entry needs two and a half turns
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, 4, START, (key, value, owner) -> expired.add(key));
+        wheel.schedule(1, 0, 2_000, null);
+        wheel.schedule(2, 0, 1_200, null);
+
+        for (long now = START + TICK; now < 2_000; now += TICK) {
+            wheel.advance(now);
+            if (now >= 1_200) {
+                assertThat(expired).containsExactly(2L);
+            }
+        }
+        assertThat(wheel.size()).isEqualTo(1);
+
+        assertThat(wheel.advance(2_000)).isEqualTo(1);
+        assertThat(expired).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void advanceOverMoreThanOneTurnReadsEveryBucket() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, 4, START, (key, value, owner) -> expired.add(key));
+        for (long key = 1; key <= 10; key++) {
+            wheel.schedule(key, 0, START + key * TICK, null);
+        }
+
+        // a pause of many turns: all entries up to now expire at once
+        assertThat(wheel.advance(START + 7 * TICK + 50)).isEqualTo(7);
+        assertThat(expired).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+        assertThat(wheel.size()).isEqualTo(3);
+
+        assertThat(wheel.advance(START + 10 * TICK)).isEqualTo(3);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rescheduledKeyExpiresOncePerEntry() {
+        // the wheel keeps both entries; the handler decides with the owner which one is current
+        List<Object> owners = new ArrayList<>();
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, 8, START, (key, value, owner) -> owners.add(owner));
+        wheel.schedule(1, 0, 1_200, "first");
+        wheel.schedule(1, 0, 1_500, "second");
+
+        wheel.advance(1_200);
+        assertThat(owners).containsExactly("first");
+
+        wheel.advance(1_500);
+        assertThat(owners).containsExactly("first", "second");
+    }
+
+    @Test
+    void handlerCanScheduleAgainInTheSameBucket() {
+        HashedTimingWheel[] holder = new HashedTimingWheel[1];
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, 4, START, (key, value, owner) -> {
+            expired.add(key);
+            if (value > 0) {
+                // one turn later: same bucket that is being read
+                holder[0].schedule(key, value - 1, 1_200 + 4 * TICK, null);
+            }
+        });
+        holder[0] = wheel;
+        wheel.schedule(1, 1, 1_200, null);
+
+        assertThat(wheel.advance(1_200)).isEqualTo(1);
+        assertThat(wheel.size()).isEqualTo(1);
+
+        assertThat(wheel.advance(1_500)).isZero();
+        assertThat(wheel.advance(1_600)).isEqualTo(1);
+        assertThat(expired).containsExactly(1L, 1L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void bucketIsUsableAfterPeakIsGivenBack() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK, 4, START, (key, value, owner) -> expired.add(key));
+        for (long key = 1; key <= 5_000; key++) {
+            wheel.schedule(key, 0, 1_100, null);
+        }
+        assertThat(wheel.advance(1_100)).isEqualTo(5_000);
+
+        wheel.schedule(9, 0, 1_500, null);
+
+        assertThat(wheel.advance(1_500)).isEqualTo(1);
+        assertThat(expired).hasSize(5_001).endsWith(9L);
+    }
+}
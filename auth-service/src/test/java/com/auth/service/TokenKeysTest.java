@@ -0,0 +1,44 @@
+package com.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenKeysTest {
+
+    @Test
+    void tagHasFixedLengthAndNoBraces() {
+        for (String username : new String[] {"bob", "}abc", "a{b}c", "{}", "x".repeat(500), "żółw"}) {
+            String tag = TokenKeys.tag(username);
+
+            assertThat(tag).hasSize(18).startsWith("{").endsWith("}");
+            assertThat(tag.substring(1, 17)).doesNotContain("{", "}");
+        }
+    }
+
+    @Test
+    void allKeysOfUserHaveTheSameHashTag() {
+        String username = "a{b}c";
+        String tag = TokenKeys.tag(username);
+
+        assertThat(hashTag(TokenKeys.allowList(username, "t1"))).isEqualTo(tag);
+        assertThat(hashTag(TokenKeys.blacklist(username, "t1"))).isEqualTo(tag);
+        assertThat(hashTag(TokenKeys.userTokens(username))).isEqualTo(tag);
+    }
+
+    @Test
+    void differentUsersGetDifferentTags() {
+        assertThat(TokenKeys.tag("a{b}c")).isNotEqualTo(TokenKeys.tag("x{b}y"));
+        assertThat(TokenKeys.tag("bob")).isEqualTo(TokenKeys.tag("bob"));
+    }
+
+    /**
+     * This method returns the part of key that Redis Cluster hashes: from the first "{"
+     * to the next "}", when that part is not empty.
+     */
+    private static String hashTag(String key) {
+        int open = key.indexOf('{');
+        int close = key.indexOf('}', open + 1);
+        return key.substring(open, close + 1);
+    }
+}
@@ -0,0 +1,142 @@
+package com.auth.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class converts ES256 public keys to and from JSON Web Keys (RFC 7517).
+ *
+ * <p>Only EC keys on curve P-256 are used. The key id is the RFC 7638 thumbprint of the key,
+ * so the same key has the same id on every node.
+ *
+ * <p>The Auth Service publishes its keys with it ({@code GET /auth/jwks}),
+ * and {@link JwksKeySource} reads them.
+ */
+public final class Jwks {
+
+    /** The only curve of ES256. */
+    public static final String CURVE = "P-256";
+
+    private static final int COORDINATE_BYTES = 32;
+
+    private Jwks() {
+    }
+
+    /**
+     * This method checks that key is an EC key on P-256.
+     *
+     * @param key the public key
+     * @return the key as EC key
+     * @throws IllegalArgumentException for another key type or curve
+     */
+    public static ECPublicKey requireP256(PublicKey key) {
+        if (!(key instanceof ECPublicKey ec) || ec.getParams().getCurve().getField().getFieldSize() != 256) {
+            throw new IllegalArgumentException("ES256 needs an EC key on curve P-256");
+        }
+        return ec;
+    }
+
+    /**
+     * This method returns the key id: the RFC 7638 thumbprint (SHA-256, base64url).
+     *
+     * @param key the public key
+     * @return key id
+     */
+    public static String keyId(ECPublicKey key) {
+        String canonical = "{\"crv\":\"" + CURVE + "\",\"kty\":\"EC\",\"x\":\"" + coordinate(key.getW().getAffineX())
+                + "\",\"y\":\"" + coordinate(key.getW().getAffineY()) + "\"}";
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    /**
+     * This method returns the JSON Web Key of key, ready to be written as JSON.
+     *
+     * @param key the public key
+     * @return JWK fields in their usual order
+     */
+    public static Map<String, Object> toJwk(ECPublicKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", CURVE);
+        jwk.put("x", coordinate(key.getW().getAffineX()));
+        jwk.put("y", coordinate(key.getW().getAffineY()));
+        jwk.put("kid", keyId(key));
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        return jwk;
+    }
+
+    /**
+     * This method reads the P-256 keys of a JWK set. Other keys are skipped.
+     * The key id is computed from the key, so a wrong {@code kid} in the set is not trusted.
+     *
+     * @param jwks the JWK set ({@code {"keys":[...]}})
+     * @return keys by key id
+     */
+    public static Map<String, PublicKey> parse(JsonNode jwks) {
+        Map<String, PublicKey> keys = new HashMap<>();
+        for (JsonNode jwk : jwks.path("keys")) {
+            if (!"EC".equals(jwk.path("kty").asText()) || !CURVE.equals(jwk.path("crv").asText())) {
+                continue;
+            }
+            ECPublicKey key = publicKey(decode(jwk.path("x").asText()), decode(jwk.path("y").asText()));
+            keys.put(keyId(key), key);
+        }
+        return keys;
+    }
+
+    private static ECPublicKey publicKey(byte[] x, byte[] y) {
+        if (x.length != COORDINATE_BYTES || y.length != COORDINATE_BYTES) {
+            throw new IllegalArgumentException("P-256 coordinates must be 32 bytes");
+        }
+        try {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec("secp256r1"));
+            ECParameterSpec spec = parameters.getParameterSpec(ECParameterSpec.class);
+            ECPoint point = new ECPoint(new BigInteger(1, x), new BigInteger(1, y));
+            return (ECPublicKey) KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, spec));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalArgumentException("Not a valid P-256 key", ex);
+        }
+    }
+
+    /**
+     * This method writes a coordinate as 32 bytes big-endian, base64url without padding.
+     */
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[COORDINATE_BYTES];
+        int length = Math.min(bytes.length, COORDINATE_BYTES);
+        System.arraycopy(bytes, bytes.length - length, fixed, COORDINATE_BYTES - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    private static byte[] decode(String value) {
+        try {
+            return Base64.getUrlDecoder().decode(value);
+        } catch (IllegalArgumentException ex) {
+            return new byte[0];
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.auth.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class gives the public keys of Auth Service by key id, from its JWK set ({@code GET /auth/jwks}).
+ *
+ * <p>Keys are cached. The set is read again when it is older than the refresh interval,
+ * or when a token has a key id that is not known (a new key of the Auth Service).
+ * Reads are at least {@link #MIN_FETCH_INTERVAL_MILLIS} apart, so tokens with made-up
+ * key ids can not make this class call the Auth Service for each request.
+ * When a read fails, the keys already known are kept.
+ *
+ * <p>A request thread does not wait for another one's read. A known key is returned at once,
+ * and a set that is too old is read again in the background. For an unknown key id one thread
+ * reads the set; the others that come meanwhile get the keys already known (null for that key id).
+ *
+ * <p>Only public keys are read: a service that has them can verify tokens but not make them.
+ * The class is thread safe.
+ */
+public class JwksKeySource {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeySource.class);
+
+    static final long MIN_FETCH_INTERVAL_MILLIS = 30_000;
+
+    private final URI jwksUri;
+    private final long refreshMillis;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long fetchedAt;
+    private volatile long lastTryAt = -MIN_FETCH_INTERVAL_MILLIS;
+    private final AtomicBoolean fetching = new AtomicBoolean();
+
+    /**
+     * This constructor builds a key source. Nothing is read until the first token.
+     *
+     * @param jwksUri URL of the JWK set, example http://auth:8081/auth/jwks
+     * @param refresh how long a read set is used before it is read again
+     */
+    public JwksKeySource(URI jwksUri, Duration refresh) {
+        this.jwksUri = jwksUri;
+        this.refreshMillis = refresh.toMillis();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * This method returns the key with key id.
+     *
+     * @param keyId the {@code kid} of the token header
+     * @return the key, or null when Auth Service has no such key
+     */
+    public PublicKey key(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        PublicKey key = keys.get(keyId);
+        if (key != null) {
+            if (System.currentTimeMillis() - fetchedAt > refreshMillis) {
+                refreshInBackground();
+            }
+            return key;
+        }
+        refresh();
+        return keys.get(keyId);
+    }
+
+    /**
+     * This method reads the JWK set in this thread, when no other read runs and the last one
+     * is at least {@link #MIN_FETCH_INTERVAL_MILLIS} ago. Otherwise it returns at once.
+     */
+    private void refresh() {
+        long now = System.currentTimeMillis();
+        if (!startFetch(now)) {
+            return;
+        }
+        try {
+            accept(httpClient.send(request(), HttpResponse.BodyHandlers.ofString()), now);
+        } catch (IOException | IllegalArgumentException ex) {
+            log.warn("JWK set not read: {}", ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fetching.set(false);
+        }
+    }
+
+    /**
+     * This method reads the JWK set on a thread of the HTTP client, with the same limits as {@link #refresh()}.
+     */
+    private void refreshInBackground() {
+        long now = System.currentTimeMillis();
+        if (!startFetch(now)) {
+            return;
+        }
+        httpClient.sendAsync(request(), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, ex) -> {
+                    try {
+                        if (ex != null) {
+                            log.warn("JWK set not read: {}", ex.getMessage());
+                        } else {
+                            accept(response, now);
+                        }
+                    } catch (IOException | IllegalArgumentException parseEx) {
+                        log.warn("JWK set not read: {}", parseEx.getMessage());
+                    } finally {
+                        fetching.set(false);
+                    }
+                });
+    }
+
+    /**
+     * This method takes the right to read the set: only one thread has it, and only when the last read
+     * started at least {@link #MIN_FETCH_INTERVAL_MILLIS} ago. The holder gives it back with {@code fetching}.
+     */
+    private boolean startFetch(long now) {
+        if (now - lastTryAt < MIN_FETCH_INTERVAL_MILLIS || !fetching.compareAndSet(false, true)) {
+            return false;
+        }
+        // a read may have ended between the check and the compareAndSet
+        if (now - lastTryAt < MIN_FETCH_INTERVAL_MILLIS) {
+            fetching.set(false);
+            return false;
+        }
+        lastTryAt = now;
+        return true;
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(jwksUri)
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+    }
+
+    /**
+     * This method keeps the keys of a response read at {@code now}. Other responses are logged and ignored.
+     */
+    private void accept(HttpResponse<String> response, long now) throws IOException {
+        if (response.statusCode() != 200) {
+            log.warn("JWK set not read: HTTP {}", response.statusCode());
+            return;
+        }
+        keys = Map.copyOf(Jwks.parse(objectMapper.readTree(response.body())));
+        fetchedAt = now;
+    }
+}
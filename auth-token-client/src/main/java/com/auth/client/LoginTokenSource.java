@@ -0,0 +1,96 @@
+package com.auth.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * This class gives an access token of a service account.
+ * It logs in with {@code POST /auth/login} and logs in again one minute before the token expires.
+ *
+ * <p>It is used by {@link RevocationStreamClient}.
+ */
+public class LoginTokenSource implements Supplier<String> {
+
+    private static final long RENEW_BEFORE_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private final URI loginUri;
+    private final String username;
+    private final String password;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String token;
+    private long expiresAtMillis;
+
+    /**
+     * This constructor builds a token source.
+     *
+     * @param loginUri URL of login, example http://auth:8081/auth/login
+     * @param username service account username
+     * @param password service account password
+     */
+    public LoginTokenSource(URI loginUri, String username, String password) {
+        this.loginUri = loginUri;
+        this.username = username;
+        this.password = password;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @Override
+    public synchronized String get() {
+        if (token == null || System.currentTimeMillis() >= expiresAtMillis - RENEW_BEFORE_MILLIS) {
+            login();
+        }
+        return token;
+    }
+
+    private void login() {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("username", username)
+                .put("password", password);
+        HttpRequest request = HttpRequest.newBuilder(loginUri)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Service account login failed: HTTP " + response.statusCode());
+            }
+            token = objectMapper.readTree(response.body()).path("accessToken").asText();
+            expiresAtMillis = expiry(token);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Service account login failed", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Service account login interrupted", ex);
+        }
+    }
+
+    /**
+     * This method reads {@code exp} from the token payload.
+     * The signature is not checked here: the token comes directly from the Auth Service.
+     */
+    private long expiry(String jwt) throws IOException {
+        String[] parts = jwt.split("\\.");
+        if (parts.length < 2) {
+            throw new IllegalStateException("Login returned no JWT");
+        }
+        JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+        return payload.path("exp").asLong() * 1000;
+    }
+}
@@ -0,0 +1,649 @@
+package com.auth.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * This class is a set of revoked tokens and users in a memory-mapped file.
+ *
+ * <p>The set survives a restart: opening it maps the file, so a node has its full
+ * deny list at once and only reads the revocation events after {@link #getLastEventId()}.
+ * It is off-heap (no objects per entry, nothing for the GC to scan) and a check does not allocate:
+ * the key of a token is read from the characters of its id, and the key of a user is hashed
+ * with a digest and buffers kept per thread.
+ *
+ * <p>Layout: a 128-byte header, then an open-addressing table with linear probing.
+ * Each slot is 32 bytes: the first 128 bits of a SHA-256 (key), the expiry, and for users
+ * the time of logout-all. Tokens are keyed by their id ({@link TokenIds}), users by
+ * SHA-256 of {@code "user:" + username}, so the file has no usernames and no tokens.
+ *
+ * <p>One process writes; others on the same host open the file read-only and see new entries
+ * at once (shared page cache). The writer holds a lock on {@code <file>.lock}; a second
+ * process that opens the file for writing gets a read-only set ({@link #isWritable()} is false).
+ * Expired entries are reused by new ones. When the table is too full, the writer copies
+ * the live entries to a new file and renames it over the old one; readers see a flag in the
+ * old header and map the new file.
+ *
+ * <p>Writes are synchronized, checks are lock-free. The byte order is the native one,
+ * so the file is for one host only.
+ */
+public final class MappedRevocationSet implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedRevocationSet.class);
+
+    private static final long MAGIC = 0x4155544852455631L; // "AUTHREV1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 128;
+    private static final int SLOT_BYTES = 32;
+    private static final int MAX_EVENT_ID_BYTES = 64;
+    private static final long MIN_COMPACT_INTERVAL_MILLIS = 1000;
+
+    // header offsets
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 8;
+    private static final int SLOTS_AT = 12;
+    private static final int USED_AT = 16;
+    private static final int REPLACED_AT = 24;
+    private static final int EVENT_ID_LENGTH_AT = 32;
+    private static final int EVENT_ID_AT = 36;
+
+    // slot offsets
+    private static final int KEY_HIGH = 0;
+    private static final int KEY_LOW = 8;
+    private static final int EXPIRES_AT = 16;
+    private static final int REVOKED_AT = 24;
+
+    // the key is the first 128 bits of a token id: 22 base64url characters
+    private static final int KEY_CHARS = 22;
+    private static final byte[] BASE64URL = base64UrlTable();
+    private static final ThreadLocal<UserHasher> USER_HASHER = ThreadLocal.withInitial(UserHasher::new);
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final Path path;
+    private final int maxEntries;
+    private final boolean writable;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private volatile Table table;
+    private long nextCompactAt;
+
+    private MappedRevocationSet(Path path, int maxEntries, boolean writable,
+                                FileChannel lockChannel, FileLock lock, Table table) {
+        this.path = path;
+        this.maxEntries = maxEntries;
+        this.writable = writable;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+        this.table = table;
+    }
+
+    /**
+     * This method opens the set for writing, and creates the file when it is missing or not valid.
+     * When another process writes the file, the set is opened read-only.
+     *
+     * @param path       the file
+     * @param maxEntries max live entries; the table has at least twice as many slots
+     * @return the set
+     * @throws UncheckedIOException when the file can not be opened or created
+     */
+    public static MappedRevocationSet open(Path path, int maxEntries) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            FileChannel lockChannel = FileChannel.open(lockPath(path),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException ex) {
+                lock = null;
+            }
+            if (lock == null) {
+                lockChannel.close();
+                log.info("Revocation file {} is written by another process, opened read-only", path);
+                return openReadOnly(path);
+            }
+            Table table = Table.isValid(path) ? Table.map(path, true) : null;
+            if (table == null || table.slots < slotsFor(maxEntries)) {
+                // new file, or a bigger one for a larger max-entries
+                Table created = Table.create(path, slotsFor(maxEntries));
+                if (table != null) {
+                    created.copyLiveFrom(table, System.currentTimeMillis());
+                    created.setLastEventId(table.lastEventId());
+                    table.markReplaced();
+                }
+                table = created;
+            }
+            return new MappedRevocationSet(path, maxEntries, true, lockChannel, lock, table);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Revocation file " + path + " can not be opened", ex);
+        }
+    }
+
+    /**
+     * This method opens the set of another process for checks only.
+     *
+     * @param path the file
+     * @return the set
+     * @throws UncheckedIOException when the file is missing or not valid
+     */
+    public static MappedRevocationSet openReadOnly(Path path) {
+        try {
+            if (!Table.isValid(path)) {
+                throw new IOException("not a revocation file");
+            }
+            return new MappedRevocationSet(path, 0, false, null, null, Table.map(path, false));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Revocation file " + path + " can not be opened", ex);
+        }
+    }
+
+    /**
+     * This method tells if this set can write.
+     *
+     * @return false for a read-only set
+     */
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * This method adds a revoked token.
+     *
+     * @param tokenId         the token id ({@link TokenIds#of(String)})
+     * @param expiresAtMillis the time when token expires (epoch millis)
+     * @return false when the set is read-only or full (more than 1.5 x max entries are live)
+     */
+    public boolean addToken(String tokenId, long expiresAtMillis) {
+        return add(tokenHigh(tokenId), tokenLow(tokenId), expiresAtMillis, 0);
+    }
+
+    /**
+     * This method adds a logout-all of user: tokens issued at or before revokedAt are revoked.
+     *
+     * @param username        the user
+     * @param revokedAtMillis the time of logout-all (epoch millis)
+     * @param expiresAtMillis after this time no token of that time is valid anymore (epoch millis)
+     * @return false when the set is read-only or full
+     */
+    public boolean addUser(String username, long revokedAtMillis, long expiresAtMillis) {
+        UserHasher hasher = USER_HASHER.get();
+        hasher.hash(username);
+        return add(hasher.high, hasher.low, expiresAtMillis, revokedAtMillis);
+    }
+
+    /**
+     * This method checks if a token is revoked.
+     *
+     * @param tokenId the token id ({@link TokenIds#of(String)})
+     * @return true when the token is in the set and not expired
+     */
+    public boolean containsToken(String tokenId) {
+        return currentTable().find(tokenHigh(tokenId), tokenLow(tokenId), System.currentTimeMillis()) >= 0;
+    }
+
+    /**
+     * This method returns the time of the last logout-all of user.
+     *
+     * @param username the user
+     * @return epoch millis, or 0 when there is none that is not expired
+     */
+    public long userRevokedAt(String username) {
+        UserHasher hasher = USER_HASHER.get();
+        hasher.hash(username);
+        Table current = currentTable();
+        int slot = current.find(hasher.high, hasher.low, System.currentTimeMillis());
+        return slot < 0 ? 0 : current.getLong(slot, REVOKED_AT);
+    }
+
+    /**
+     * This method returns the id of the last revocation event written to the set.
+     *
+     * @return stream id, or null when none was saved
+     */
+    public String getLastEventId() {
+        return currentTable().lastEventId();
+    }
+
+    /**
+     * This method saves the id of the last revocation event written to the set.
+     * Events up to this id are not needed after a restart.
+     *
+     * @param eventId the stream id
+     */
+    public synchronized void setLastEventId(String eventId) {
+        if (writable) {
+            table.setLastEventId(eventId);
+        }
+    }
+
+    /**
+     * This method returns the number of used slots, expired entries included.
+     *
+     * @return used slots
+     */
+    public long usedSlots() {
+        return currentTable().used();
+    }
+
+    /**
+     * This method writes the changes to disk. Without it they survive a process restart
+     * (the page cache keeps them), but not a host crash.
+     */
+    public synchronized void flush() {
+        if (writable) {
+            table.buffer.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException ex) {
+            log.warn("Revocation file lock not released: {}", ex.getMessage());
+        }
+    }
+
+    private synchronized boolean add(long high, long low, long expiresAt, long revokedAt) {
+        long now = System.currentTimeMillis();
+        if (!writable || expiresAt <= now) {
+            return false;
+        }
+        if (table.put(high, low, expiresAt, revokedAt, now, maxUsed())) {
+            return true;
+        }
+        if (now < nextCompactAt) {
+            // full of live entries: no new copy on every add
+            return false;
+        }
+        // too full: copy the live entries to a new file
+        nextCompactAt = now + MIN_COMPACT_INTERVAL_MILLIS;
+        replaceTable(now);
+        return table.put(high, low, expiresAt, revokedAt, now, maxUsed());
+    }
+
+    private int maxUsed() {
+        return (int) (table.slots * 0.75);
+    }
+
+    private void replaceTable(long now) {
+        Table old = table;
+        Path next = path.resolveSibling(path.getFileName() + ".next");
+        try {
+            Table created = Table.create(next, old.slots);
+            long live = created.copyLiveFrom(old, now);
+            created.setLastEventId(old.lastEventId());
+            created.buffer.force();
+            Files.move(next, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            table = created;
+            old.markReplaced();
+            log.info("Revocation file {} compacted: {} of {} slots used, {} live", path, old.used(), old.slots, live);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Revocation file " + path + " can not be compacted", ex);
+        }
+    }
+
+    /**
+     * This method returns the table to check. A read-only set maps the file again
+     * when the writer has replaced it.
+     */
+    private Table currentTable() {
+        Table current = table;
+        if (!writable && current.isReplaced()) {
+            synchronized (this) {
+                current = table;
+                if (current.isReplaced()) {
+                    try {
+                        current = Table.map(path, false);
+                        table = current;
+                    } catch (IOException ex) {
+                        log.warn("Revocation file {} can not be mapped again: {}", path, ex.getMessage());
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    private static int slotsFor(int maxEntries) {
+        int slots = Integer.highestOneBit(Math.max(16, maxEntries) * 2 - 1) << 1;
+        return Math.max(64, slots);
+    }
+
+    private static Path lockPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".lock");
+    }
+
+    /**
+     * This method returns the first 64 bits of the hash in a token id, the same as the first 8 bytes
+     * of its base64url decoding. 0 is changed to 1: 0 marks an empty slot.
+     */
+    static long tokenHigh(String tokenId) {
+        long value = tokenBits(tokenId, 0);
+        return value == 0 ? 1 : value;
+    }
+
+    /**
+     * This method returns bits 64 to 127 of the hash in a token id.
+     */
+    static long tokenLow(String tokenId) {
+        return tokenBits(tokenId, 64);
+    }
+
+    /**
+     * This method reads 64 bits of a base64url string, from bit {@code from} on, without decoding the whole string.
+     */
+    private static long tokenBits(String tokenId, int from) {
+        if (tokenId.length() < KEY_CHARS) {
+            throw new IllegalArgumentException("Token id too short");
+        }
+        long value = 0;
+        int bit = from;
+        int left = 64;
+        while (left > 0) {
+            int sextet = sextet(tokenId.charAt(bit / 6));
+            int skip = bit % 6;
+            int take = Math.min(6 - skip, left);
+            value = (value << take) | ((sextet >>> (6 - skip - take)) & ((1 << take) - 1));
+            bit += take;
+            left -= take;
+        }
+        return value;
+    }
+
+    private static int sextet(char c) {
+        int value = c < BASE64URL.length ? BASE64URL[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Token id is not base64url");
+        }
+        return value;
+    }
+
+    private static byte[] base64UrlTable() {
+        byte[] table = new byte[128];
+        Arrays.fill(table, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            table[alphabet.charAt(i)] = (byte) i;
+        }
+        return table;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * This class hashes {@code "user:" + username} (UTF-8) to the key of a user, for one thread.
+     * The username is encoded into a buffer in parts, so no string or byte array is made.
+     */
+    static final class UserHasher {
+
+        private static final byte[] PREFIX = {'u', 's', 'e', 'r', ':'};
+
+        private final MessageDigest sha256;
+        private final byte[] buffer = new byte[64];
+        private final byte[] hash = new byte[32];
+        long high;
+        long low;
+
+        UserHasher() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 not available", ex);
+            }
+        }
+
+        /**
+         * This method sets {@link #high} and {@link #low} to the key of username.
+         */
+        void hash(String username) {
+            sha256.update(PREFIX);
+            int length = 0;
+            for (int i = 0; i < username.length(); i++) {
+                if (length > buffer.length - 4) {
+                    sha256.update(buffer, 0, length);
+                    length = 0;
+                }
+                char c = username.charAt(i);
+                if (c < 0x80) {
+                    buffer[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[length++] = (byte) (0xC0 | c >> 6);
+                    buffer[length++] = (byte) (0x80 | c & 0x3F);
+                } else if (!Character.isSurrogate(c)) {
+                    buffer[length++] = (byte) (0xE0 | c >> 12);
+                    buffer[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    buffer[length++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < username.length()
+                        && Character.isLowSurrogate(username.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, username.charAt(++i));
+                    buffer[length++] = (byte) (0xF0 | codePoint >> 18);
+                    buffer[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    buffer[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    buffer[length++] = (byte) (0x80 | codePoint & 0x3F);
+                } else {
+                    // a lone surrogate, written as '?' like String.getBytes does
+                    buffer[length++] = '?';
+                }
+            }
+            sha256.update(buffer, 0, length);
+            try {
+                sha256.digest(hash, 0, hash.length);
+            } catch (DigestException ex) {
+                throw new IllegalStateException("SHA-256 digest not written", ex);
+            }
+            long first = readLong(hash, 0);
+            // 0 marks an empty slot
+            high = first == 0 ? 1 : first;
+            low = readLong(hash, 8);
+        }
+    }
+
+    /**
+     * This class is one mapped file.
+     */
+    private static final class Table {
+
+        private final MappedByteBuffer buffer;
+        private final int slots;
+        private final int mask;
+
+        private Table(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.slots = buffer.getInt(SLOTS_AT);
+            this.mask = slots - 1;
+        }
+
+        static boolean isValid(Path path) throws IOException {
+            if (!Files.isRegularFile(path) || Files.size(path) < HEADER_BYTES) {
+                return false;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                header.order(ByteOrder.nativeOrder());
+                int slots = header.getInt(SLOTS_AT);
+                return header.getLong(MAGIC_AT) == MAGIC
+                        && header.getInt(VERSION_AT) == VERSION
+                        && slots > 0 && Integer.bitCount(slots) == 1
+                        && Files.size(path) == HEADER_BYTES + (long) slots * SLOT_BYTES;
+            }
+        }
+
+        static Table map(Path path, boolean write) throws IOException {
+            try (FileChannel channel = write
+                    ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                        0, channel.size());
+                buffer.order(ByteOrder.nativeOrder());
+                return new Table(buffer);
+            }
+        }
+
+        static Table create(Path path, int slots) throws IOException {
+            Files.deleteIfExists(path);
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+                        0, HEADER_BYTES + (long) slots * SLOT_BYTES);
+                buffer.order(ByteOrder.nativeOrder());
+                buffer.putInt(VERSION_AT, VERSION);
+                buffer.putInt(SLOTS_AT, slots);
+                // the magic is written last: a file cut before this point is not valid
+                buffer.putLong(MAGIC_AT, MAGIC);
+                return new Table(buffer);
+            }
+        }
+
+        /**
+         * This method returns the slot of a key that is not expired, or -1.
+         */
+        int find(long high, long low, long now) {
+            int slot = (int) high & mask;
+            for (int probes = 0; probes < slots; probes++) {
+                long keyHigh = (long) LONGS.getAcquire(buffer, offset(slot, KEY_HIGH));
+                if (keyHigh == 0) {
+                    return -1;
+                }
+                if (keyHigh == high && getLong(slot, KEY_LOW) == low) {
+                    return getLong(slot, EXPIRES_AT) > now ? slot : -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * This method adds or updates a key. A new key takes the first expired slot on its
+         * probe path, or the empty slot at its end.
+         *
+         * @return false when a new slot is needed and maxUsed slots are used
+         */
+        boolean put(long high, long low, long expiresAt, long revokedAt, long now, int maxUsed) {
+            int slot = (int) high & mask;
+            int reuse = -1;
+            for (int probes = 0; probes < slots; probes++) {
+                long keyHigh = getLong(slot, KEY_HIGH);
+                if (keyHigh == 0) {
+                    break;
+                }
+                if (keyHigh == high && getLong(slot, KEY_LOW) == low) {
+                    setLong(slot, REVOKED_AT, Math.max(revokedAt, getLong(slot, REVOKED_AT)));
+                    setLong(slot, EXPIRES_AT, Math.max(expiresAt, getLong(slot, EXPIRES_AT)));
+                    return true;
+                }
+                if (reuse < 0 && getLong(slot, EXPIRES_AT) <= now) {
+                    reuse = slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (reuse < 0) {
+                if (used() >= maxUsed) {
+                    return false;
+                }
+                reuse = slot;
+                buffer.putLong(USED_AT, used() + 1);
+            }
+            // a reader that sees the new high key sees the other fields too
+            setLong(reuse, KEY_LOW, low);
+            setLong(reuse, EXPIRES_AT, expiresAt);
+            setLong(reuse, REVOKED_AT, revokedAt);
+            LONGS.setRelease(buffer, offset(reuse, KEY_HIGH), high);
+            return true;
+        }
+
+        long copyLiveFrom(Table from, long now) {
+            long live = 0;
+            for (int slot = 0; slot < from.slots; slot++) {
+                long high = from.getLong(slot, KEY_HIGH);
+                long expiresAt = from.getLong(slot, EXPIRES_AT);
+                if (high != 0 && expiresAt > now
+                        && put(high, from.getLong(slot, KEY_LOW), expiresAt, from.getLong(slot, REVOKED_AT), now, slots)) {
+                    live++;
+                }
+            }
+            return live;
+        }
+
+        long used() {
+            return buffer.getLong(USED_AT);
+        }
+
+        boolean isReplaced() {
+            return (long) LONGS.getAcquire(buffer, REPLACED_AT) != 0;
+        }
+
+        void markReplaced() {
+            LONGS.setRelease(buffer, REPLACED_AT, 1L);
+        }
+
+        String lastEventId() {
+            int length = buffer.getInt(EVENT_ID_LENGTH_AT);
+            if (length <= 0 || length > MAX_EVENT_ID_BYTES) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(EVENT_ID_AT, bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        void setLastEventId(String eventId) {
+            byte[] bytes = eventId == null ? new byte[0] : eventId.getBytes(StandardCharsets.US_ASCII);
+            if (bytes.length > MAX_EVENT_ID_BYTES) {
+                throw new IllegalArgumentException("Event id is too long");
+            }
+            buffer.putInt(EVENT_ID_LENGTH_AT, 0);
+            buffer.put(EVENT_ID_AT, bytes);
+            buffer.putInt(EVENT_ID_LENGTH_AT, bytes.length);
+        }
+
+        long getLong(int slot, int field) {
+            return (long) LONGS.getOpaque(buffer, offset(slot, field));
+        }
+
+        void setLong(int slot, int field, long value) {
+            LONGS.setOpaque(buffer, offset(slot, field), value);
+        }
+
+        private static int offset(int slot, int field) {
+            return HEADER_BYTES + slot * SLOT_BYTES + field;
+        }
+    }
+}
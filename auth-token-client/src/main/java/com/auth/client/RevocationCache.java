@@ -0,0 +1,144 @@
+package com.auth.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps revoked tokens and users in memory until they expire.
+ *
+ * <p>It is filled by {@link RevocationStreamClient}. It also keeps the last time
+ * the stream was heard from (event or heartbeat), so the verifier can tell how
+ * old the data may be (staleness).
+ *
+ * <p>The size is bounded: when it is full, expired entries are removed first.
+ * If it is still full, the new entry is not kept, and the cache reports itself
+ * as stale until that entry would have expired. So an overflow is never a silent accept.
+ *
+ * <p>With a {@link MappedRevocationSet} of an Auth Service node on the same host, tokens and
+ * users in that file are rejected too, also before the stream has caught up after a start.
+ */
+public class RevocationCache {
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedUsers = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedUserExpiry = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final MappedRevocationSet shared;
+
+    private volatile long lastContactMillis;
+    private volatile long overflowUntilMillis;
+
+    public RevocationCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * This constructor builds a cache that also checks a shared revocation file.
+     *
+     * @param maxEntries max revoked tokens and users kept in memory
+     * @param shared     revocation file of an Auth Service node (read-only), or null
+     */
+    public RevocationCache(int maxEntries, MappedRevocationSet shared) {
+        this.maxEntries = maxEntries;
+        this.shared = shared;
+    }
+
+    /**
+     * This method applies one event from the stream.
+     *
+     * @param event the revocation event
+     */
+    public void apply(RevocationEvent event) {
+        long now = System.currentTimeMillis();
+        markContact();
+        if (event.expiresAt() <= now) {
+            return;
+        }
+        if (size() >= maxEntries) {
+            removeExpired();
+            if (size() >= maxEntries) {
+                overflowUntilMillis = Math.max(overflowUntilMillis, event.expiresAt());
+                return;
+            }
+        }
+
+        if (RevocationEvent.TYPE_USER.equals(event.type())) {
+            revokedUsers.merge(event.username(), event.revokedAt(), Math::max);
+            revokedUserExpiry.merge(event.username(), event.expiresAt(), Math::max);
+        } else if (event.tokenId() != null && !event.tokenId().isEmpty()) {
+            revokedTokens.put(event.tokenId(), event.expiresAt());
+        }
+    }
+
+    /**
+     * This method saves that the stream is alive (event or heartbeat received).
+     */
+    public void markContact() {
+        lastContactMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * This method returns how old the revocation data may be.
+     *
+     * @return millis since last contact, or {@link Long#MAX_VALUE} before the first contact
+     *         and while a dropped entry (overflow) is not expired
+     */
+    public long stalenessMillis() {
+        long now = System.currentTimeMillis();
+        long last = lastContactMillis;
+        if (last == 0 || now < overflowUntilMillis) {
+            return Long.MAX_VALUE;
+        }
+        return now - last;
+    }
+
+    /**
+     * This method checks if a token is revoked.
+     *
+     * @param token          the access token string
+     * @param username       the subject of token
+     * @param issuedAtMillis issue time of token (epoch millis)
+     * @return true when the token or the user is revoked
+     */
+    public boolean isRevoked(String token, String username, long issuedAtMillis) {
+        Long userRevokedAt = revokedUsers.get(username);
+        // iat has second precision: a token from the same second as logout-all is rejected too
+        if (userRevokedAt != null && issuedAtMillis <= userRevokedAt) {
+            return true;
+        }
+        if (shared != null) {
+            long sharedRevokedAt = shared.userRevokedAt(username);
+            if (sharedRevokedAt != 0 && issuedAtMillis <= sharedRevokedAt) {
+                return true;
+            }
+            String tokenId = TokenIds.of(token);
+            return revokedTokens.containsKey(tokenId) || shared.containsToken(tokenId);
+        }
+        // most of the time nothing is revoked, then the hash is not needed
+        return !revokedTokens.isEmpty() && revokedTokens.containsKey(TokenIds.of(token));
+    }
+
+    /**
+     * This method returns the number of kept entries.
+     *
+     * @return tokens plus users
+     */
+    public int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    /**
+     * This method removes expired entries.
+     */
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUserExpiry.entrySet().removeIf(entry -> {
+            if (entry.getValue() <= now) {
+                revokedUsers.remove(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+    }
+}
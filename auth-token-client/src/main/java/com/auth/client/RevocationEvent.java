@@ -0,0 +1,22 @@
+package com.auth.client;
+
+/**
+ * This record is one event of the Auth Service revocation stream.
+ *
+ * @param type      {@code token} (one token) or {@code user} (all tokens of user issued at or before revokedAt)
+ * @param tokenId   id of token, see {@link TokenIds}; empty for type user
+ * @param username  the owner of token
+ * @param expiresAt after this time (epoch millis) the event is not needed anymore
+ * @param revokedAt the time of revocation (epoch millis)
+ */
+public record RevocationEvent(
+        String type,
+        String tokenId,
+        String username,
+        long expiresAt,
+        long revokedAt
+) {
+
+    public static final String TYPE_TOKEN = "token";
+    public static final String TYPE_USER = "user";
+}
@@ -0,0 +1,164 @@
+package com.auth.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * This class follows the revocation stream of Auth Service ({@code GET /auth/revocations}, SSE)
+ * and puts the events in a {@link RevocationCache}.
+ *
+ * <p>It uses the JDK HTTP client, so no other library is needed.
+ * The first connection asks for all kept events ({@code Last-Event-ID: 0-0}), so tokens
+ * revoked before this service started are known too. After a disconnect it reconnects
+ * with the last received id and gets the missed events first.
+ *
+ * <p>One virtual thread reads the stream. Heartbeats of the server keep
+ * {@link RevocationCache#stalenessMillis()} low while nothing is revoked.
+ */
+public class RevocationStreamClient implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationStreamClient.class);
+
+    private static final long MIN_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final URI streamUri;
+    private final Supplier<String> bearerToken;
+    private final RevocationCache cache;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile boolean running;
+    private volatile String lastEventId = "0-0";
+    private Thread reader;
+
+    /**
+     * This constructor builds a stream client.
+     *
+     * @param streamUri   URL of the revocation stream, example http://auth:8081/auth/revocations
+     * @param bearerToken gives an access token of a service account (ROLE_ADMIN)
+     * @param cache       the cache to fill
+     */
+    public RevocationStreamClient(URI streamUri, Supplier<String> bearerToken, RevocationCache cache) {
+        this.streamUri = streamUri;
+        this.bearerToken = bearerToken;
+        this.cache = cache;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * This method starts the reader thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        reader = Thread.ofVirtual().name("auth-revocation-stream").start(this::run);
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+
+    /**
+     * This method returns the id of the last received event.
+     *
+     * @return stream id
+     */
+    public String getLastEventId() {
+        return lastEventId;
+    }
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (running) {
+            try {
+                if (readOnce()) {
+                    backoff = MIN_BACKOFF_MILLIS;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                log.warn("Revocation stream disconnected: {}", ex.getMessage());
+            }
+            if (!running) {
+                return;
+            }
+            cache.removeExpired();
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    /**
+     * This method reads the stream until it ends.
+     *
+     * @return true when the connection was accepted
+     */
+    private boolean readOnce() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(streamUri)
+                .header("Accept", "text/event-stream")
+                .header("Authorization", "Bearer " + bearerToken.get())
+                .header("Last-Event-ID", lastEventId)
+                .GET()
+                .build();
+
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            log.warn("Revocation stream rejected the connection: HTTP {}", response.statusCode());
+            return false;
+        }
+        log.info("Revocation stream connected, resuming after {}", lastEventId);
+
+        try (Stream<String> lines = response.body()) {
+            String id = null;
+            StringBuilder data = new StringBuilder();
+            Iterator<String> iterator = lines.iterator();
+            while (running && iterator.hasNext()) {
+                String line = iterator.next();
+                if (line.isEmpty()) {
+                    // end of one event
+                    if (data.length() > 0) {
+                        cache.apply(objectMapper.readValue(data.toString(), RevocationEvent.class));
+                        if (id != null) {
+                            lastEventId = id;
+                        }
+                    }
+                    id = null;
+                    data.setLength(0);
+                } else if (line.startsWith(":")) {
+                    cache.markContact();
+                } else if (line.startsWith("id:")) {
+                    id = line.substring(3).trim();
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5).trim());
+                }
+            }
+        }
+        return true;
+    }
+}
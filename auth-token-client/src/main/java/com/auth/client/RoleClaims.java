@@ -0,0 +1,94 @@
+package com.auth.client;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class reads and writes the roles of an access token.
+ *
+ * <p>Two profiles ({@code jwt.profile} of Auth Service):
+ * - standard: {@code "roles":["ROLE_USER","ROLE_ADMIN"]}
+ * - compact: {@code "r":3}, a bitmask over the role table (bit 0 = first role of the table).
+ *   A role that is not in the table still goes to {@code roles}.
+ *
+ * <p>{@link #roles(Claims, List)} reads both profiles, so a service keeps working while
+ * Auth Service switches. The role table must be the same on both sides; only add roles at the end.
+ * The Auth Service uses this class too, so both sides always agree.
+ */
+public final class RoleClaims {
+
+    /** Claim with the role names (standard profile, and roles not in the table). */
+    public static final String ROLES = "roles";
+
+    /** Claim with the role bitmask (compact profile). */
+    public static final String ROLE_MASK = "r";
+
+    /** Role table of Auth Service when {@code jwt.compact.role-table} is not set. */
+    public static final List<String> DEFAULT_TABLE = List.of("ROLE_USER", "ROLE_ADMIN");
+
+    private RoleClaims() {
+    }
+
+    /**
+     * This method returns the bitmask of the roles that are in table.
+     *
+     * @param roles role names
+     * @param table role table, at most 63 roles
+     * @return bitmask
+     */
+    public static long mask(Collection<String> roles, List<String> table) {
+        long mask = 0;
+        for (String role : roles) {
+            int index = table.indexOf(role);
+            if (index >= 0) {
+                mask |= 1L << index;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * This method returns the roles that are not in table.
+     *
+     * @param roles role names
+     * @param table role table
+     * @return roles not in table, usually empty
+     */
+    public static List<String> notInTable(Collection<String> roles, List<String> table) {
+        List<String> others = new ArrayList<>(0);
+        for (String role : roles) {
+            if (!table.contains(role)) {
+                others.add(role);
+            }
+        }
+        return others;
+    }
+
+    /**
+     * This method returns the role names of a token, in either profile.
+     *
+     * @param claims claims of token
+     * @param table  role table
+     * @return role names
+     */
+    public static List<String> roles(Claims claims, List<String> table) {
+        List<String> roles = new ArrayList<>(2);
+        if (claims.get(ROLE_MASK) instanceof Number number) {
+            long mask = number.longValue();
+            for (int i = 0; i < table.size() && i < 63; i++) {
+                if ((mask & (1L << i)) != 0) {
+                    roles.add(table.get(i));
+                }
+            }
+        }
+        if (claims.get(ROLES) instanceof List<?> list) {
+            for (Object role : list) {
+                roles.add(String.valueOf(role));
+            }
+        }
+        return List.copyOf(roles);
+    }
+}
@@ -0,0 +1,34 @@
+package com.auth.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * This class builds the id of an access token.
+ *
+ * <p>The id is SHA-256 of the token (base64url, no padding).
+ * Revocation events carry the id, not the token itself.
+ * The Auth Service uses this class too, so both sides always agree.
+ */
+public final class TokenIds {
+
+    private TokenIds() {
+    }
+
+    /**
+     * This method returns the id of token.
+     *
+     * @param token the access token string
+     * @return token id
+     */
+    public static String of(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.auth.client;
+
+/**
+ * This exception is thrown when a token is rejected.
+ *
+ * <p>Rejected tokens are normal traffic, so no stack trace is filled in.
+ */
+public class TokenVerificationException extends RuntimeException {
+
+    /**
+     * Why the token is rejected.
+     */
+    public enum Reason {
+        /** Not a signed JWT, or claims are missing. */
+        MALFORMED,
+        /** Signature does not match any known key. */
+        INVALID_SIGNATURE,
+        /** Token is expired. */
+        EXPIRED,
+        /** Token or all tokens of user were revoked. */
+        REVOKED,
+        /** Revocation data is older than allowed, so revocation can not be checked. */
+        STALE
+    }
+
+    private final Reason reason;
+
+    public TokenVerificationException(Reason reason, String message) {
+        super(message, null, false, false);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
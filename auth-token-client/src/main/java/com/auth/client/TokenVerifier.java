@@ -0,0 +1,221 @@
+package com.auth.client;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class verifies Auth Service access tokens locally, without a network call.
+ *
+ * <p>Steps:
+ * - signature and expiry: ES256 tokens with the public keys of Auth Service ({@link JwksKeySource}),
+ *   HS256 tokens with parsers built once per secret (the current one first, then old ones during a key change)
+ * - revocation, with a {@link RevocationCache} fed by the revocation stream
+ * - roles, from the standard or the compact token profile ({@link RoleClaims})
+ *
+ * <p>When the revocation data is older than {@code maxStaleness}, tokens are rejected
+ * ({@code rejectWhenStale = true}) or accepted on signature only.
+ *
+ * <p>Prefer ES256 with a key source: an HS256 secret can also make tokens, so every service
+ * that has it can act as any user, admins included. Give secrets only during the move to ES256.
+ *
+ * <p>The class is thread safe.
+ */
+public class TokenVerifier {
+
+    private final List<JwtParser> parsers;
+    private final JwtParser publicKeyParser;
+    private final RevocationCache revocationCache;
+    private final long maxStalenessMillis;
+    private final boolean rejectWhenStale;
+    private final List<String> roleTable;
+
+    /**
+     * This constructor builds a verifier with the default role table.
+     *
+     * @param secrets         HMAC secrets, current one first (same value as {@code jwt.secret} of Auth Service)
+     * @param revocationCache revocation data, or null to check signature and expiry only
+     * @param maxStaleness    max age of revocation data
+     * @param rejectWhenStale true to reject tokens when the data is too old
+     */
+    public TokenVerifier(List<String> secrets,
+                         RevocationCache revocationCache,
+                         Duration maxStaleness,
+                         boolean rejectWhenStale) {
+        this(secrets, revocationCache, maxStaleness, rejectWhenStale, RoleClaims.DEFAULT_TABLE);
+    }
+
+    /**
+     * This constructor builds a verifier for HS256 tokens.
+     *
+     * @param secrets         HMAC secrets, current one first (same value as {@code jwt.secret} of Auth Service)
+     * @param revocationCache revocation data, or null to check signature and expiry only
+     * @param maxStaleness    max age of revocation data
+     * @param rejectWhenStale true to reject tokens when the data is too old
+     * @param roleTable       role table of compact tokens (same as {@code jwt.compact.role-table})
+     */
+    public TokenVerifier(List<String> secrets,
+                         RevocationCache revocationCache,
+                         Duration maxStaleness,
+                         boolean rejectWhenStale,
+                         List<String> roleTable) {
+        this(secrets, null, revocationCache, maxStaleness, rejectWhenStale, roleTable);
+    }
+
+    /**
+     * This constructor builds a verifier.
+     *
+     * @param secrets         HMAC secrets, current one first, or empty to accept ES256 tokens only
+     * @param keySource       public keys of Auth Service for ES256 tokens, or null to accept HS256 tokens only
+     * @param revocationCache revocation data, or null to check signature and expiry only
+     * @param maxStaleness    max age of revocation data
+     * @param rejectWhenStale true to reject tokens when the data is too old
+     * @param roleTable       role table of compact tokens (same as {@code jwt.compact.role-table})
+     */
+    public TokenVerifier(List<String> secrets,
+                         JwksKeySource keySource,
+                         RevocationCache revocationCache,
+                         Duration maxStaleness,
+                         boolean rejectWhenStale,
+                         List<String> roleTable) {
+        if ((secrets == null || secrets.isEmpty()) && keySource == null) {
+            throw new IllegalArgumentException("At least one secret or a JWK set is required");
+        }
+        List<JwtParser> built = new ArrayList<>();
+        for (String secret : secrets == null ? List.<String>of() : secrets) {
+            built.add(Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                    .build());
+        }
+        this.parsers = List.copyOf(built);
+        this.publicKeyParser = keySource == null ? null : Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        if (!"ES256".equals(header.getAlgorithm())) {
+                            throw new UnsupportedJwtException("Only ES256 is accepted with public keys");
+                        }
+                        PublicKey key = keySource.key(header.getKeyId());
+                        if (key == null) {
+                            throw new SignatureException("Unknown key id");
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        this.revocationCache = revocationCache;
+        this.maxStalenessMillis = maxStaleness.toMillis();
+        this.rejectWhenStale = rejectWhenStale;
+        this.roleTable = List.copyOf(roleTable);
+    }
+
+    /**
+     * This method verifies a token.
+     *
+     * @param token the access token string (without "Bearer ")
+     * @return the verified token
+     * @throws TokenVerificationException when the token is rejected
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = parse(token);
+
+        String username = claims.getSubject();
+        Date issuedAt = claims.getIssuedAt();
+        Date expiresAt = claims.getExpiration();
+        if (username == null || issuedAt == null || expiresAt == null) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.MALFORMED,
+                    "Token has no sub, iat or exp");
+        }
+
+        if (revocationCache != null) {
+            if (revocationCache.stalenessMillis() > maxStalenessMillis && rejectWhenStale) {
+                throw new TokenVerificationException(TokenVerificationException.Reason.STALE,
+                        "Revocation data is too old");
+            }
+            if (revocationCache.isRevoked(token, username, issuedAt.getTime())) {
+                throw new TokenVerificationException(TokenVerificationException.Reason.REVOKED,
+                        "Token is revoked");
+            }
+        }
+
+        return new VerifiedToken(username, RoleClaims.roles(claims, roleTable), issuedAt.toInstant(), expiresAt.toInstant());
+    }
+
+    private Claims parse(String token) {
+        if (isPublicKeyToken(token)) {
+            if (publicKeyParser == null) {
+                throw new TokenVerificationException(TokenVerificationException.Reason.INVALID_SIGNATURE,
+                        "ES256 tokens need a JWK set");
+            }
+            return parse(publicKeyParser, token);
+        }
+        if (parsers.isEmpty()) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.INVALID_SIGNATURE,
+                    "HS256 tokens are not accepted");
+        }
+        for (int i = 0; i < parsers.size(); i++) {
+            try {
+                return parsers.get(i).parseClaimsJws(token).getBody();
+            } catch (ExpiredJwtException ex) {
+                throw new TokenVerificationException(TokenVerificationException.Reason.EXPIRED, "Token is expired");
+            } catch (SignatureException ex) {
+                if (i == parsers.size() - 1) {
+                    throw new TokenVerificationException(TokenVerificationException.Reason.INVALID_SIGNATURE,
+                            "Token signature is invalid");
+                }
+                // try the next (older) key
+            } catch (JwtException | IllegalArgumentException ex) {
+                throw new TokenVerificationException(TokenVerificationException.Reason.MALFORMED,
+                        "Token is not a valid JWT");
+            }
+        }
+        throw new IllegalStateException("No parser");
+    }
+
+    private static Claims parse(JwtParser parser, String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException ex) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.EXPIRED, "Token is expired");
+        } catch (SignatureException ex) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.INVALID_SIGNATURE,
+                    "Token signature is invalid");
+        } catch (JwtException | IllegalArgumentException ex) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.MALFORMED,
+                    "Token is not a valid JWT");
+        }
+    }
+
+    /**
+     * This method reads the algorithm from the token header (a few dozen bytes), so the token
+     * goes to one parser only. A wrong answer can only make the signature check fail.
+     */
+    private static boolean isPublicKeyToken(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return false;
+        }
+        try {
+            String header = new String(Base64.getUrlDecoder().decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+            return header.contains("\"alg\":\"ES");
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+}
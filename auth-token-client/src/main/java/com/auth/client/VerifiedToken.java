@@ -0,0 +1,27 @@
+package com.auth.client;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * This record is an access token that passed verification.
+ * It is the principal of the Spring Security authentication.
+ *
+ * @param username  the subject of token
+ * @param roles     role names, example ROLE_USER
+ * @param issuedAt  issue time (second precision)
+ * @param expiresAt expiry time
+ */
+public record VerifiedToken(
+        String username,
+        List<String> roles,
+        Instant issuedAt,
+        Instant expiresAt
+) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,87 @@
+package com.auth.client.spring;
+
+import com.auth.client.JwksKeySource;
+import com.auth.client.LoginTokenSource;
+import com.auth.client.MappedRevocationSet;
+import com.auth.client.RevocationCache;
+import com.auth.client.RevocationStreamClient;
+import com.auth.client.TokenVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * This class creates the token client beans from {@code auth.client.*}.
+ *
+ * <p>It is active when {@code auth.client.enabled=true}.
+ * With {@code auth.client.jwks-url}, ES256 tokens are checked with the public keys of Auth Service.
+ * With {@code auth.client.base-url}, revocations are followed from the stream.
+ * With {@code auth.client.revocation-file}, the revocation file of an Auth Service node
+ * on the same host is checked too.
+ * The Auth Service itself does not set these properties, so nothing is created there.
+ *
+ * <p>The Spring Security filter is in {@link AuthClientFilterAutoConfiguration}.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "auth.client", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(AuthClientProperties.class)
+public class AuthClientAutoConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthClientAutoConfiguration.class);
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "auth.client", name = "base-url")
+    public RevocationCache revocationCache(AuthClientProperties properties) {
+        MappedRevocationSet shared = null;
+        if (!properties.getRevocationFile().isBlank()) {
+            try {
+                shared = MappedRevocationSet.openReadOnly(Path.of(properties.getRevocationFile()));
+            } catch (UncheckedIOException ex) {
+                // the stream alone is enough; the file only helps right after a start
+                log.warn("Revocation file not used: {}", ex.getMessage());
+            }
+        }
+        return new RevocationCache(properties.getMaxRevocations(), shared);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "auth.client", name = "base-url")
+    public RevocationStreamClient revocationStreamClient(AuthClientProperties properties,
+                                                         RevocationCache revocationCache) {
+        String baseUrl = properties.getBaseUrl().replaceAll("/+$", "");
+        LoginTokenSource tokenSource = new LoginTokenSource(
+                URI.create(baseUrl + "/auth/login"), properties.getUsername(), properties.getPassword());
+        return new RevocationStreamClient(URI.create(baseUrl + "/auth/revocations"), tokenSource, revocationCache);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "auth.client", name = "jwks-url")
+    public JwksKeySource jwksKeySource(AuthClientProperties properties) {
+        return new JwksKeySource(URI.create(properties.getJwksUrl()), properties.getJwksRefresh());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenVerifier tokenVerifier(AuthClientProperties properties,
+                                       ObjectProvider<JwksKeySource> jwksKeySource,
+                                       ObjectProvider<RevocationCache> revocationCache) {
+        if (!properties.getSecrets().isEmpty()) {
+            log.warn("auth.client.secrets is set: this service can also make tokens; "
+                    + "use auth.client.jwks-url (ES256) and remove the secret after the move");
+        }
+        return new TokenVerifier(properties.getSecrets(), jwksKeySource.getIfAvailable(), revocationCache.getIfAvailable(),
+                properties.getMaxStaleness(), properties.isRejectWhenStale(), properties.getRoleTable());
+    }
+}
@@ -0,0 +1,40 @@
+package com.auth.client.spring;
+
+import com.auth.client.TokenVerifier;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * This class creates the {@link JwtVerificationFilter}
+ * when Spring Security web is on the class path and a {@link TokenVerifier} exists.
+ *
+ * <p>It is a separate top-level class (not nested), so component scan of
+ * a {@code com.auth} application never picks it up without its conditions.
+ */
+@AutoConfiguration(after = AuthClientAutoConfiguration.class)
+@ConditionalOnClass(name = "org.springframework.security.web.SecurityFilterChain")
+@ConditionalOnBean(TokenVerifier.class)
+public class AuthClientFilterAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtVerificationFilter jwtVerificationFilter(TokenVerifier tokenVerifier) {
+        return new JwtVerificationFilter(tokenVerifier);
+    }
+
+    /**
+     * The filter is added to the security chain by the service,
+     * so Spring Boot must not add it to the servlet filters a second time.
+     */
+    @Bean
+    public FilterRegistrationBean<JwtVerificationFilter> jwtVerificationFilterRegistration(
+            JwtVerificationFilter filter) {
+        FilterRegistrationBean<JwtVerificationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
@@ -0,0 +1,159 @@
+package com.auth.client.spring;
+
+import com.auth.client.RoleClaims;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * This class has the {@code auth.client.*} settings of a downstream service.
+ *
+ * <pre>
+ * auth:
+ *   client:
+ *     enabled: true
+ *     jwks-url: http://auth-service:8081/auth/jwks   # public keys (jwt.algorithm: ES256)
+ *     base-url: http://auth-service:8081
+ *     username: orders-service          # service account with ROLE_ADMIN, for the revocation stream
+ *     password: ${AUTH_CLIENT_PASSWORD}
+ * </pre>
+ *
+ * <p>{@code secrets} (HS256) is only for the move to ES256: a service with the secret can make
+ * tokens for any user and role.
+ */
+@ConfigurationProperties(prefix = "auth.client")
+public class AuthClientProperties {
+
+    /** true: create the token client beans. */
+    private boolean enabled;
+
+    /** HMAC secrets, current one first. Old ones are accepted during a key change. Empty: no HS256 tokens. */
+    private List<String> secrets = List.of();
+
+    /** JWK set of Auth Service ({@code GET /auth/jwks}) for ES256 tokens. Empty: no ES256 tokens. */
+    private String jwksUrl = "";
+
+    /** How long the read JWK set is used before it is read again (unknown key ids read it at once). */
+    private Duration jwksRefresh = Duration.ofMinutes(10);
+
+    /** Base URL of Auth Service. Empty: no revocation stream, signature and expiry only. */
+    private String baseUrl = "";
+
+    /** Service account for the revocation stream. */
+    private String username = "";
+
+    /** Password of service account. */
+    private String password = "";
+
+    /** Max age of revocation data (heartbeat of the stream is 15s). */
+    private Duration maxStaleness = Duration.ofSeconds(45);
+
+    /** true: reject tokens while revocation data is too old. false: accept on signature only. */
+    private boolean rejectWhenStale = true;
+
+    /** Max revoked tokens and users kept in memory. */
+    private int maxRevocations = 100_000;
+
+    /** Revocation file of an Auth Service node on this host ({@code revocation-file.path}), read-only. Empty: none. */
+    private String revocationFile = "";
+
+    /** Role table for compact tokens ({@code jwt.compact.role-table} of Auth Service), same order. */
+    private List<String> roleTable = RoleClaims.DEFAULT_TABLE;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getSecrets() {
+        return secrets;
+    }
+
+    public void setSecrets(List<String> secrets) {
+        this.secrets = secrets;
+    }
+
+    public String getJwksUrl() {
+        return jwksUrl;
+    }
+
+    public void setJwksUrl(String jwksUrl) {
+        this.jwksUrl = jwksUrl;
+    }
+
+    public Duration getJwksRefresh() {
+        return jwksRefresh;
+    }
+
+    public void setJwksRefresh(Duration jwksRefresh) {
+        this.jwksRefresh = jwksRefresh;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public void setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
+    public boolean isRejectWhenStale() {
+        return rejectWhenStale;
+    }
+
+    public void setRejectWhenStale(boolean rejectWhenStale) {
+        this.rejectWhenStale = rejectWhenStale;
+    }
+
+    public int getMaxRevocations() {
+        return maxRevocations;
+    }
+
+    public void setMaxRevocations(int maxRevocations) {
+        this.maxRevocations = maxRevocations;
+    }
+
+    public String getRevocationFile() {
+        return revocationFile;
+    }
+
+    public void setRevocationFile(String revocationFile) {
+        this.revocationFile = revocationFile;
+    }
+
+    public List<String> getRoleTable() {
+        return roleTable;
+    }
+
+    public void setRoleTable(List<String> roleTable) {
+        this.roleTable = roleTable;
+    }
+}
@@ -0,0 +1,63 @@
+package com.auth.client.spring;
+
+import com.auth.client.TokenVerificationException;
+import com.auth.client.TokenVerifier;
+import com.auth.client.VerifiedToken;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * This filter authenticates requests with a local token check ({@link TokenVerifier}).
+ *
+ * <p>Add it to the security chain of a downstream service:
+ * <pre>
+ * http.addFilterBefore(jwtVerificationFilter, UsernamePasswordAuthenticationFilter.class)
+ * </pre>
+ * The principal is a {@link VerifiedToken}, so controllers can use
+ * {@code @AuthenticationPrincipal VerifiedToken token}. Authorities are the roles of the token.
+ *
+ * <p>A rejected token does not stop the chain. The request stays anonymous and the
+ * chain decides (401 for protected paths). The reason is in request attribute {@link #REJECT_REASON}.
+ */
+public class JwtVerificationFilter extends OncePerRequestFilter {
+
+    public static final String REJECT_REASON = JwtVerificationFilter.class.getName() + ".REJECT_REASON";
+
+    private final TokenVerifier tokenVerifier;
+
+    public JwtVerificationFilter(TokenVerifier tokenVerifier) {
+        this.tokenVerifier = tokenVerifier;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                VerifiedToken token = tokenVerifier.verify(header.substring(7));
+                List<GrantedAuthority> authorities = token.roles().stream()
+                        .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                        .toList();
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(token, null, authorities);
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } catch (TokenVerificationException ex) {
+                request.setAttribute(REJECT_REASON, ex.getReason());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
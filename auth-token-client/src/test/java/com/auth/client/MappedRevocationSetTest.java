@@ -0,0 +1,228 @@
+package com.auth.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedRevocationSetTest {
+
+    // 16 entries: 64 slots, a new slot is refused at 48 used slots
+    private static final int MAX_ENTRIES = 16;
+    private static final int MAX_USED = 48;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void addedTokensAndUsersAreFound() {
+        long now = System.currentTimeMillis();
+        try (MappedRevocationSet set = MappedRevocationSet.open(dir.resolve("rev.bin"), MAX_ENTRIES)) {
+            assertThat(set.isWritable()).isTrue();
+            assertThat(set.addToken(id("a"), now + 60_000)).isTrue();
+            assertThat(set.addUser("alice", now - 5_000, now + 60_000)).isTrue();
+            // an older logout-all does not move the time back
+            assertThat(set.addUser("alice", now - 10_000, now + 60_000)).isTrue();
+
+            assertThat(set.containsToken(id("a"))).isTrue();
+            assertThat(set.containsToken(id("b"))).isFalse();
+            assertThat(set.userRevokedAt("alice")).isEqualTo(now - 5_000);
+            assertThat(set.userRevokedAt("bob")).isZero();
+            assertThat(set.usedSlots()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void expiredEntriesAreNotFoundAndNotAdded() throws Exception {
+        long now = System.currentTimeMillis();
+        try (MappedRevocationSet set = MappedRevocationSet.open(dir.resolve("rev.bin"), MAX_ENTRIES)) {
+            assertThat(set.addToken(id("old"), now - 1)).isFalse();
+            assertThat(set.addToken(id("short"), now + 100)).isTrue();
+            assertThat(set.containsToken(id("short"))).isTrue();
+
+            Thread.sleep(150);
+
+            assertThat(set.containsToken(id("short"))).isFalse();
+            assertThat(set.containsToken(id("old"))).isFalse();
+        }
+    }
+
+    @Test
+    void newEntriesReuseExpiredSlots() throws Exception {
+        try (MappedRevocationSet set = MappedRevocationSet.open(dir.resolve("rev.bin"), MAX_ENTRIES)) {
+            long shortExpiry = System.currentTimeMillis() + 200;
+            for (int i = 0; i < 40; i++) {
+                assertThat(set.addToken(id("short-" + i), shortExpiry)).isTrue();
+            }
+            assertThat(set.usedSlots()).isEqualTo(40);
+            Thread.sleep(250);
+
+            long longExpiry = System.currentTimeMillis() + 60_000;
+            for (int i = 0; i < 8; i++) {
+                assertThat(set.addToken(id("long-" + i), longExpiry)).isTrue();
+            }
+
+            // most new keys found an expired slot on their probe path
+            assertThat(set.usedSlots()).isLessThan(48);
+            for (int i = 0; i < 8; i++) {
+                assertThat(set.containsToken(id("long-" + i))).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void fullOfLiveEntriesRefusesNewOnes() {
+        long expiry = System.currentTimeMillis() + 60_000;
+        try (MappedRevocationSet set = MappedRevocationSet.open(dir.resolve("rev.bin"), MAX_ENTRIES)) {
+            for (int i = 0; i < MAX_USED; i++) {
+                assertThat(set.addToken(id("live-" + i), expiry)).isTrue();
+            }
+
+            assertThat(set.addToken(id("one-more"), expiry)).isFalse();
+            // an entry that is there already is still updated
+            assertThat(set.addToken(id("live-0"), expiry + 1_000)).isTrue();
+            for (int i = 0; i < MAX_USED; i++) {
+                assertThat(set.containsToken(id("live-" + i))).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void compactionReplacesFileAndReaderMapsTheNewOne() throws Exception {
+        Path file = dir.resolve("rev.bin");
+        try (MappedRevocationSet writer = MappedRevocationSet.open(file, MAX_ENTRIES);
+             MappedRevocationSet reader = MappedRevocationSet.openReadOnly(file)) {
+            writer.setLastEventId("1700000000000-1");
+            long shortExpiry = System.currentTimeMillis() + 200;
+            for (int i = 0; i < MAX_USED; i++) {
+                assertThat(writer.addToken(id("short-" + i), shortExpiry)).isTrue();
+            }
+            Object before = fileKey(file);
+            Thread.sleep(250);
+            long longExpiry = System.currentTimeMillis() + 60_000;
+
+            // new keys reuse expired slots until one needs an empty slot: then the file is compacted
+            int added = 0;
+            while (fileKey(file).equals(before) && added < 200) {
+                assertThat(writer.addToken(id("new-" + added), longExpiry)).isTrue();
+                added++;
+            }
+            assertThat(fileKey(file)).isNotEqualTo(before);
+            assertThat(writer.usedSlots()).isLessThanOrEqualTo(added);
+
+            // written after the compaction: only in the new file
+            assertThat(writer.addToken(id("after"), longExpiry)).isTrue();
+
+            assertThat(reader.containsToken(id("after"))).isTrue();
+            assertThat(reader.containsToken(id("new-" + (added - 1)))).isTrue();
+            assertThat(reader.containsToken(id("short-0"))).isFalse();
+            assertThat(reader.getLastEventId()).isEqualTo("1700000000000-1");
+            assertThat(reader.usedSlots()).isEqualTo(writer.usedSlots());
+        }
+    }
+
+    @Test
+    void secondWriterGetsReadOnlySet() {
+        Path file = dir.resolve("rev.bin");
+        long expiry = System.currentTimeMillis() + 60_000;
+        try (MappedRevocationSet writer = MappedRevocationSet.open(file, MAX_ENTRIES);
+             MappedRevocationSet second = MappedRevocationSet.open(file, MAX_ENTRIES)) {
+            assertThat(writer.isWritable()).isTrue();
+            assertThat(second.isWritable()).isFalse();
+
+            assertThat(second.addToken(id("from-second"), expiry)).isFalse();
+            second.setLastEventId("1-1");
+            assertThat(writer.addToken(id("from-writer"), expiry)).isTrue();
+
+            assertThat(second.containsToken(id("from-writer"))).isTrue();
+            assertThat(writer.containsToken(id("from-second"))).isFalse();
+            assertThat(writer.getLastEventId()).isNull();
+        }
+    }
+
+    @Test
+    void reopenKeepsEntriesAndResumeId() {
+        Path file = dir.resolve("rev.bin");
+        long expiry = System.currentTimeMillis() + 60_000;
+        try (MappedRevocationSet set = MappedRevocationSet.open(file, MAX_ENTRIES)) {
+            set.addToken(id("a"), expiry);
+            set.addUser("alice", 1_000, expiry);
+            set.setLastEventId("1700000000000-7");
+        }
+
+        try (MappedRevocationSet set = MappedRevocationSet.open(file, MAX_ENTRIES)) {
+            assertThat(set.isWritable()).isTrue();
+            assertThat(set.getLastEventId()).isEqualTo("1700000000000-7");
+            assertThat(set.containsToken(id("a"))).isTrue();
+            assertThat(set.userRevokedAt("alice")).isEqualTo(1_000);
+        }
+
+        // a larger max-entries makes a bigger file with the same content
+        try (MappedRevocationSet set = MappedRevocationSet.open(file, MAX_ENTRIES * 4)) {
+            assertThat(set.getLastEventId()).isEqualTo("1700000000000-7");
+            assertThat(set.containsToken(id("a"))).isTrue();
+            assertThat(set.usedSlots()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void brokenFileIsCreatedAgain() throws IOException {
+        Path file = dir.resolve("rev.bin");
+        Files.write(file, new byte[] {1, 2, 3});
+
+        try (MappedRevocationSet set = MappedRevocationSet.open(file, MAX_ENTRIES)) {
+            assertThat(set.isWritable()).isTrue();
+            assertThat(set.getLastEventId()).isNull();
+            assertThat(set.usedSlots()).isZero();
+        }
+    }
+
+    @Test
+    void tokenKeyIsTheSameAsTheDecodedId() {
+        for (int i = 0; i < 1_000; i++) {
+            String tokenId = id("token-" + i);
+            ByteBuffer decoded = ByteBuffer.wrap(Base64.getUrlDecoder().decode(tokenId));
+            long high = decoded.getLong();
+
+            assertThat(MappedRevocationSet.tokenHigh(tokenId)).isEqualTo(high == 0 ? 1 : high);
+            assertThat(MappedRevocationSet.tokenLow(tokenId)).isEqualTo(decoded.getLong());
+        }
+        assertThatThrownBy(() -> MappedRevocationSet.tokenHigh("short")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MappedRevocationSet.tokenLow("a".repeat(21) + "*"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void userKeyIsTheSameAsSha256OfUtf8() throws Exception {
+        MappedRevocationSet.UserHasher hasher = new MappedRevocationSet.UserHasher();
+        String[] usernames = {"", "alice", "żółw", "日本語", "emoji\uD83D\uDE00", "lone\uD800x", "x".repeat(500)};
+        for (String username : usernames) {
+            ByteBuffer expected = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(("user:" + username).getBytes(StandardCharsets.UTF_8)));
+            long high = expected.getLong();
+
+            hasher.hash(username);
+
+            assertThat(hasher.high).isEqualTo(high == 0 ? 1 : high);
+            assertThat(hasher.low).isEqualTo(expected.getLong());
+        }
+    }
+
+    private static String id(String token) {
+        return TokenIds.of(token);
+    }
+
+    private static Object fileKey(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+}
@@ -1,26 +0,0 @@
-package com.auth.bootstrap;
-
-import com.auth.model.Role;
-import com.auth.repository.RoleRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.stereotype.Component;
-
-@Component
-@RequiredArgsConstructor
-public class RoleDataInitializer implements CommandLineRunner {
-
-    private final RoleRepository roleRepository;
-
-    @Override
-    public void run(String... args) {
-        createRoleIfNotExists("ROLE_USER");
-        createRoleIfNotExists("ROLE_ADMIN");
-    }
-
-    private void createRoleIfNotExists(String roleName) {
-        if (roleRepository.findByName(roleName).isEmpty()) {
-            roleRepository.save(new Role(null, roleName));
-        }
-    }
-}
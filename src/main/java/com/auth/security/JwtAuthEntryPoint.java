@@ -1,33 +0,0 @@
-package com.auth.security;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.auth.dto.ErrorResponseDto;
-import org.springframework.http.HttpStatus;
-import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.web.AuthenticationEntryPoint;
-import org.springframework.stereotype.Component;
-
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import java.io.IOException;
-
-/**
- * JwtAuthEntryPoint handles unauthorized access.
- */
-@Component
-public class JwtAuthEntryPoint implements AuthenticationEntryPoint {
-
-    @Override
-    public void commence(HttpServletRequest request,
-                         HttpServletResponse response,
-                         AuthenticationException authException) throws IOException {
-
-        response.setContentType("application/json");
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-
-        ObjectMapper mapper = new ObjectMapper();
-        response.getWriter().write(mapper.writeValueAsString(
-                new ErrorResponseDto(HttpStatus.UNAUTHORIZED.value(), "Invalid token")
-        ));
-    }
-}
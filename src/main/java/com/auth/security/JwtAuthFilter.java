@@ -1,99 +0,0 @@
-package com.auth.security;
-
-import com.auth.service.TokenAllowListService;
-import com.auth.service.TokenBlacklistService;
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
-
-import java.io.IOException;
-
-/**
- * This filter reads jwt from request.
- * It sets authentication when token is valid and allowed.
- */
-@Component
-public class JwtAuthFilter extends OncePerRequestFilter {
-
-    private final JwtTokenProvider jwtUtil;
-    private final UserDetailsService userDetailsService;
-    private final TokenBlacklistService tokenBlacklistService;
-    private final TokenAllowListService tokenAllowListService;
-
-    public JwtAuthFilter(JwtTokenProvider jwtUtil,
-                         @Lazy UserDetailsService userDetailsService,
-                         TokenBlacklistService tokenBlacklistService,
-                         TokenAllowListService tokenAllowListService) {
-        this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
-        this.tokenBlacklistService = tokenBlacklistService;
-        this.tokenAllowListService = tokenAllowListService;
-    }
-
-    @Override
-    protected void doFilterInternal(HttpServletRequest request,
-                                    HttpServletResponse response,
-                                    FilterChain filterChain)
-            throws ServletException, IOException {
-
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            filterChain.doFilter(request, response);
-            return;
-        }
-
-        String token = authHeader.substring(7);
-
-        try {
-            // check blacklist in Redis
-            boolean revoked = tokenBlacklistService.isBlacklisted(token);
-            if (revoked) {
-                // token is revoked, do not set authentication
-                SecurityContextHolder.clearContext();
-                filterChain.doFilter(request, response);
-                return;
-            }
-
-            // check allow-list in Redis
-            boolean allowed = tokenAllowListService.isAllowed(token);
-            if (!allowed) {
-                // token is not in allow-list
-                SecurityContextHolder.clearContext();
-                filterChain.doFilter(request, response);
-                return;
-            }
-
-            String username = jwtUtil.extractUsername(token);
-            if (username != null &&
-                    SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails =
-                        userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.isValid(token, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails,
-                                    null,
-                                    userDetails.getAuthorities()
-                            );
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
-            }
-        } catch (Exception ex) {
-            // do not send error from this filter
-            SecurityContextHolder.clearContext();
-        }
-
-        filterChain.doFilter(request, response);
-    }
-}